@@ -0,0 +1,79 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.service.BatchingWriter;
+import com.example.transaction.management.service.IdempotencyStore;
+import com.example.transaction.management.service.TransactionCache;
+import com.example.transaction.management.service.TransactionMetrics;
+import com.example.transaction.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Creates committed one by one on the calling thread ({@code SYNC}) against creates queued for the writer thread
+ * and committed in micro-batches ({@code ASYNC}), without persistence and with fsync {@code ALWAYS}. Each
+ * benchmark thread stands for a request thread waiting for its create; throughput and the latency distribution
+ * are both reported. Thread count can be changed with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class AsyncWriteBenchmark {
+    private static final int BUFFER_BYTES = 1024 * 1024;
+    private static final int DISTINCT_TRANSACTIONS = 1_024;
+
+    @Param({"SYNC", "ASYNC"})
+    private String writes;
+
+    @Param({"NONE", "ALWAYS"})
+    private String fsync;
+
+    private Path directory;
+    private WriteAheadLog wal;
+    private TransactionService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("async-write-benchmark");
+        if (!"NONE".equals(fsync)) {
+            wal = new WriteAheadLog(directory,
+                    WriteAheadLog.FsyncPolicy.valueOf(fsync), Duration.ofMillis(100), BUFFER_BYTES);
+        }
+        BatchingWriter writer = "ASYNC".equals(writes)
+                ? new BatchingWriter(BatchingWriter.DEFAULT_QUEUE_CAPACITY, BatchingWriter.DEFAULT_BATCH_SIZE, Duration.ZERO)
+                : null;
+        service = new TransactionService(new InMemoryTransactionRepository(wal), TransactionCache.disabled(),
+                TransactionMetrics.disabled(),
+                new IdempotencyStore(IdempotencyStore.DEFAULT_MAXIMUM_SIZE, IdempotencyStore.DEFAULT_TTL), writer,
+                64, 1_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service.close();
+        if (wal != null) {
+            wal.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Transaction create() {
+        return service.createTransaction(BenchmarkData.transaction(ThreadLocalRandom.current().nextInt(DISTINCT_TRANSACTIONS)));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+final class BenchmarkData {
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final String[] CATEGORIES = {"Income", "Groceries", "Rent", "Travel", "Utilities", "Savings"};
+
+    private BenchmarkData() {
+    }
+
+    static Transaction transaction(int index) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(BigDecimal.valueOf(100 + index % 10_000, 2));
+        transaction.setType(TYPES[index % TYPES.length]);
+        transaction.setDescription("Benchmark transaction " + index);
+        transaction.setCategory(CATEGORIES[index % CATEGORIES.length]);
+        transaction.setTimestamp(BASE_TIME.plusMillis(index));
+        return transaction;
+    }
+
+    static Transaction transaction(UUID id, int index) {
+        Transaction transaction = transaction(index);
+        transaction.setId(id);
+        return transaction;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.service.BatchingWriter;
+import com.example.transaction.management.service.ChangeFeed;
+import com.example.transaction.management.service.IdempotencyStore;
+import com.example.transaction.management.service.TransactionCache;
+import com.example.transaction.management.service.TransactionMetrics;
+import com.example.transaction.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing every update to the change feed, with several threads updating a shared pool of ids: no
+ * feed, a feed nobody reads, and a feed with consumers that keep up. Consumers only hold up writers by
+ * competing for the CPU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ChangeFeedBenchmark {
+    private static final int SHARED_TRANSACTIONS = 1_024;
+    private static final int READ_SIZE = 256;
+
+    @Param({"OFF", "UNREAD", "READ"})
+    private String feed;
+
+    @Param({"2"})
+    private int consumers;
+
+    private TransactionService service;
+    private UUID[] ids;
+    private Thread[] readers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChangeFeed changes = "OFF".equals(feed) ? ChangeFeed.disabled() : new ChangeFeed(ChangeFeed.DEFAULT_CAPACITY);
+        service = new TransactionService(new InMemoryTransactionRepository(), TransactionCache.disabled(),
+                TransactionMetrics.disabled(), new IdempotencyStore(100, Duration.ofMinutes(1)), changes,
+                (BatchingWriter) null, 64, 1_000);
+        ids = new UUID[SHARED_TRANSACTIONS];
+        for (int i = 0; i < SHARED_TRANSACTIONS; i++) {
+            ids[i] = service.createTransaction(BenchmarkData.transaction(i)).getId();
+        }
+        readers = new Thread["READ".equals(feed) ? consumers : 0];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = Thread.ofPlatform().daemon().start(this::consume);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        for (Thread reader : readers) {
+            reader.interrupt();
+            reader.join();
+        }
+    }
+
+    @Benchmark
+    public Transaction update() {
+        int index = ThreadLocalRandom.current().nextInt(SHARED_TRANSACTIONS);
+        return service.updateTransaction(ids[index], BenchmarkData.transaction(index));
+    }
+
+    private void consume() {
+        long after = service.latestChangeSequence();
+        try {
+            while (true) {
+                ChangeFeed.Page page = service.getChanges(after, READ_SIZE, Duration.ofSeconds(1));
+                if (page.resync()) {
+                    after = page.latestSequence();
+                } else if (!page.changes().isEmpty()) {
+                    after = page.changes().get(page.changes().size() - 1).sequence();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Trial over
+        }
+    }
+}
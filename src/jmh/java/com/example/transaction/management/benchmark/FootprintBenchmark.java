@@ -0,0 +1,58 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.repository.columnar.ColumnarTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filling each storage engine with {@code rows} transactions that share 100 descriptions and 6 categories. The
+ * score is the fill time; {@code bytesPerRow} is the heap the filled repository retains per row, measured by
+ * walking its object graph with JOL. JMH sums counters over iterations, so there is a single measured one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djol.magicFieldOffset=true", "-Djdk.attach.allowAttachSelf"})
+public class FootprintBenchmark {
+    private static final String[] CATEGORIES = {"Income", "Groceries", "Rent", "Travel", "Utilities", "Savings"};
+
+    @Param({"200000"})
+    private int rows;
+
+    @Param({"memory", "columnar"})
+    private String engine;
+
+    private TransactionRepository repository;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerRow;
+    }
+
+    @Benchmark
+    public TransactionRepository fill() {
+        repository = "columnar".equals(engine)
+                ? new ColumnarTransactionRepository()
+                : new InMemoryTransactionRepository();
+        for (int i = 0; i < rows; i++) {
+            Transaction transaction = BenchmarkData.transaction(i);
+            // New String instances per row, as JSON deserialization would produce
+            transaction.setDescription("Card payment " + (i % 100));
+            transaction.setCategory(new String(CATEGORIES[i % CATEGORIES.length]));
+            repository.save(transaction);
+        }
+        return repository;
+    }
+
+    @TearDown(Level.Iteration)
+    public void measure(Footprint footprint) {
+        footprint.bytesPerRow = GraphLayout.parseInstance(repository).totalSize() / rows;
+    }
+}
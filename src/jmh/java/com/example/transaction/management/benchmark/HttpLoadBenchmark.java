@@ -0,0 +1,197 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.TransactionManagementApplication;
+import com.example.transaction.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end HTTP load on Tomcat's platform-thread pool, on virtual threads and, when built with the
+ * {@code reactive} profile, on WebFlux. Each invocation opens {@code connections} keep-alive connections at
+ * once, and each sends {@value #REQUESTS_PER_CONNECTION} requests back to back. {@code CREATE} persists with
+ * fsync {@code ALWAYS}, so every request blocks until its group commit is on disk; {@code GET} and
+ * {@code LIST} (a page of 50) only read memory. The score is the time for the whole wave; throughput and
+ * latency percentiles of each wave are printed after it.
+ *
+ * <p>Client and server share the JVM and each connection needs a file descriptor on both sides, so
+ * {@code ulimit -n} must exceed twice the connection count; narrow it with {@code -p connections=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 6)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HttpLoadBenchmark {
+    private static final int REQUESTS_PER_CONNECTION = 10;
+    private static final int LIST_SIZE = 50;
+    private static final String CREATE_BODY =
+            "{\"amount\":12.34,\"type\":\"DEPOSIT\",\"description\":\"Load test\",\"category\":\"Load\"}";
+
+    // REACTIVE needs -Pbenchmark,reactive
+    @Param({"PLATFORM", "VIRTUAL"})
+    private String server;
+
+    @Param({"10000"})
+    private int connections;
+
+    @Param({"CREATE", "GET", "LIST"})
+    private String operation;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private byte[] request;
+    private int port;
+    private long[] latencies;
+    private long waveNanos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("http-load-benchmark");
+        context = new SpringApplicationBuilder(TransactionManagementApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.web-application-type=" + ("REACTIVE".equals(server) ? "reactive" : "servlet"),
+                        "spring.threads.virtual.enabled=" + "VIRTUAL".equals(server),
+                        "server.tomcat.max-connections=" + (connections + 100),
+                        "server.tomcat.accept-count=" + connections,
+                        "server.tomcat.max-keep-alive-requests=-1",
+                        "transaction.persistence.enabled=true",
+                        "transaction.persistence.directory=" + directory,
+                        "transaction.persistence.fsync=ALWAYS",
+                        "logging.level.root=WARN")
+                .run();
+        port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        if ("CREATE".equals(operation)) {
+            byte[] body = CREATE_BODY.getBytes(StandardCharsets.UTF_8);
+            request = ("POST /transactions HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\n"
+                    + "Content-Length: " + body.length + "\r\n\r\n" + CREATE_BODY).getBytes(StandardCharsets.UTF_8);
+        } else {
+            TransactionService service = context.getBean(TransactionService.class);
+            String id = service.createTransaction(BenchmarkData.transaction(0)).getId().toString();
+            for (int i = 1; i < LIST_SIZE; i++) {
+                service.createTransaction(BenchmarkData.transaction(i));
+            }
+            String path = "GET".equals(operation) ? "/transactions/" + id : "/transactions?size=" + LIST_SIZE;
+            request = ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n\r\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%n%,d requests: %,.0f req/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                sorted.length, sorted.length * 1e9 / waveNanos, percentile(sorted, 0.50) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+
+    @Benchmark
+    public long[] wave() throws Exception {
+        latencies = new long[connections * REQUESTS_PER_CONNECTION];
+        long start = System.nanoTime();
+        // One virtual thread per client connection, so the client side is never the thread-bound one
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> results = new ArrayList<>(connections);
+            for (int c = 0; c < connections; c++) {
+                int offset = c * REQUESTS_PER_CONNECTION;
+                results.add(clients.submit(() -> {
+                    send(offset);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        waveNanos = System.nanoTime() - start;
+        return latencies;
+    }
+
+    private void send(int offset) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (int i = 0; i < REQUESTS_PER_CONNECTION; i++) {
+                long start = System.nanoTime();
+                out.write(request);
+                out.flush();
+                readResponse(in);
+                latencies[offset + i] = System.nanoTime() - start;
+            }
+        }
+    }
+
+    // Reads one response, with either a Content-Length or a chunked body, and fails unless it is a 200
+    private static void readResponse(InputStream in) throws IOException {
+        String status = readLine(in);
+        if (!status.startsWith("HTTP/1.1 200")) {
+            throw new IOException("Unexpected response: " + status);
+        }
+        long length = -1;
+        boolean chunked = false;
+        for (String header = readLine(in); !header.isEmpty(); header = readLine(in)) {
+            String lower = header.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                length = Long.parseLong(lower.substring("content-length:".length()).trim());
+            } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                chunked = true;
+            }
+        }
+        if (!chunked) {
+            in.skipNBytes(Math.max(length, 0));
+            return;
+        }
+        for (long chunk = Long.parseLong(readLine(in).trim(), 16); chunk > 0; chunk = Long.parseLong(readLine(in).trim(), 16)) {
+            in.skipNBytes(chunk);
+            readLine(in);
+        }
+        readLine(in);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new IOException("Connection closed mid-response");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of {@link Transaction}, configured the way Spring MVC configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final TypeReference<List<Transaction>> LIST_TYPE = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper;
+    private Transaction transaction;
+    private List<Transaction> page;
+    private byte[] transactionJson;
+    private byte[] pageJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        transaction = BenchmarkData.transaction(42);
+        page = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(BenchmarkData.transaction(i));
+        }
+        transactionJson = objectMapper.writeValueAsBytes(transaction);
+        pageJson = objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeTransaction() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction deserializeTransaction() throws IOException {
+        return objectMapper.readValue(transactionJson, Transaction.class);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Transaction> deserializePage() throws IOException {
+        return objectMapper.readValue(pageJson, LIST_TYPE);
+    }
+}
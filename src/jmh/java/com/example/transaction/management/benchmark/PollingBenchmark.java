@@ -0,0 +1,180 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.TransactionManagementApplication;
+import com.example.transaction.management.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One client polling {@code GET /transactions?size=50} over a keep-alive connection, as a dashboard refreshing a
+ * page would: in full every time ({@code PLAIN}), gzip-compressed ({@code GZIP}), or compressed and revalidated
+ * with the ETag of the previous answer ({@code CONDITIONAL}). With {@code updateEvery} above 0, a transaction is
+ * updated before every such number of polls, which makes the next conditional poll a full one.
+ *
+ * <p>Bytes received and server CPU time per poll are printed after each iteration. Server CPU is the process CPU
+ * time minus the client thread's, so it includes garbage collection and the JIT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+// Long enough for the JIT to compile the whole request path
+@Warmup(iterations = 6, time = 10)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PollingBenchmark {
+    private static final int STORE_SIZE = 1_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"PLAIN", "GZIP", "CONDITIONAL"})
+    private String mode;
+
+    @Param({"0", "10"})
+    private int updateEvery;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService service;
+    private UUID[] ids;
+    private Socket socket;
+    private OutputStream out;
+    private InputStream in;
+    private String eTag;
+    private int polls;
+    private long bytes;
+    private Thread client;
+    private long processCpuStart;
+    private long clientCpuStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(TransactionManagementApplication.class)
+                .properties("server.port=0", "server.tomcat.max-keep-alive-requests=-1", "logging.level.root=WARN")
+                .run();
+        service = context.getBean(TransactionService.class);
+        ids = new UUID[STORE_SIZE];
+        for (int i = 0; i < STORE_SIZE; i++) {
+            ids[i] = service.createTransaction(BenchmarkData.transaction(i)).getId();
+        }
+        socket = new Socket("localhost", ((WebServerApplicationContext) context).getWebServer().getPort());
+        socket.setTcpNoDelay(true);
+        out = socket.getOutputStream();
+        in = new BufferedInputStream(socket.getInputStream());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        socket.close();
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        polls = 0;
+        bytes = 0;
+        client = null;
+        processCpuStart = processCpuTime();
+        clientCpuStart = -1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long processCpu = processCpuTime() - processCpuStart;
+        long clientCpu = client == null ? 0 : threads().getThreadCpuTime(client.threadId()) - clientCpuStart;
+        System.out.printf("%n%,d polls: %,.0f bytes and %.1f µs server CPU per poll%n",
+                polls, (double) bytes / polls, (processCpu - clientCpu) / 1e3 / polls);
+    }
+
+    @Benchmark
+    public int poll() throws IOException {
+        if (client == null) {
+            client = Thread.currentThread();
+            clientCpuStart = threads().getCurrentThreadCpuTime();
+        }
+        if (updateEvery > 0 && polls % updateEvery == 0) {
+            int index = polls % STORE_SIZE;
+            service.updateTransaction(ids[index], BenchmarkData.transaction(index));
+        }
+        StringBuilder request = new StringBuilder("GET /transactions?size=" + PAGE_SIZE + " HTTP/1.1\r\n")
+                .append("Host: localhost\r\nAccept: application/json\r\n");
+        if (!"PLAIN".equals(mode)) {
+            request.append("Accept-Encoding: gzip\r\n");
+        }
+        if ("CONDITIONAL".equals(mode) && eTag != null) {
+            request.append("If-None-Match: ").append(eTag).append("\r\n");
+        }
+        out.write(request.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        polls++;
+        return readResponse();
+    }
+
+    // Reads one response, with either a Content-Length or a chunked body, counting every byte received
+    private int readResponse() throws IOException {
+        String status = readLine();
+        int code = Integer.parseInt(status.substring(9, 12));
+        if (code != 200 && code != 304) {
+            throw new IOException("Unexpected response: " + status);
+        }
+        long length = 0;
+        boolean chunked = false;
+        for (String header = readLine(); !header.isEmpty(); header = readLine()) {
+            String lower = header.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                length = Long.parseLong(lower.substring("content-length:".length()).trim());
+            } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                chunked = true;
+            } else if (lower.startsWith("etag:")) {
+                eTag = header.substring("etag:".length()).trim();
+            }
+        }
+        if (!chunked) {
+            skip(length);
+            return code;
+        }
+        for (long chunk = Long.parseLong(readLine().trim(), 16); chunk > 0; chunk = Long.parseLong(readLine().trim(), 16)) {
+            skip(chunk);
+            readLine();
+        }
+        readLine();
+        return code;
+    }
+
+    private void skip(long length) throws IOException {
+        in.skipNBytes(length);
+        bytes += length;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new IOException("Connection closed mid-response");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        bytes += line.length() + 2;
+        return line.toString();
+    }
+
+    private static ThreadMXBean threads() {
+        return ManagementFactory.getThreadMXBean();
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+}
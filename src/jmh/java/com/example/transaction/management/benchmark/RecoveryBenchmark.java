@@ -0,0 +1,77 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.persistence.SnapshotStore;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup time of a persistent repository: loading a snapshot plus a log tail of {@value #TAIL_SIZE} writes,
+ * against replaying the whole history from the log. The 10M size needs a heap of several gigabytes; narrow
+ * it with {@code -p storeSize=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecoveryBenchmark {
+    private static final int TAIL_SIZE = 100_000;
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    @Param({"1000000", "10000000"})
+    private int storeSize;
+
+    @Param({"SNAPSHOT", "LOG"})
+    private String source;
+
+    private Path directory;
+    private WriteAheadLog wal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        WriteAheadLog writer = open();
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(writer, new SnapshotStore(directory));
+        for (int i = 0; i < storeSize; i++) {
+            repository.save(BenchmarkData.transaction(i));
+        }
+        if ("SNAPSHOT".equals(source)) {
+            repository.checkpoint();
+        }
+        for (int i = 0; i < TAIL_SIZE; i++) {
+            repository.save(BenchmarkData.transaction(storeSize + i));
+        }
+        writer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeLog() throws IOException {
+        wal.close();
+    }
+
+    @Benchmark
+    public InMemoryTransactionRepository recover() throws IOException {
+        wal = open();
+        return new InMemoryTransactionRepository(wal, new SnapshotStore(directory));
+    }
+
+    private WriteAheadLog open() throws IOException {
+        return new WriteAheadLog(directory, WriteAheadLog.FsyncPolicy.NEVER, Duration.ofMillis(100), BUFFER_BYTES);
+    }
+}
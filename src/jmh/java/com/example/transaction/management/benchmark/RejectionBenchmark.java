@@ -0,0 +1,73 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.exception.GlobalExceptionHandler;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.service.TransactionService;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of rejecting an invalid create, in the service alone and through the error
+ * response. {@code stackDepth} adds frames below the call, as the servlet container and Spring MVC do; a
+ * stack trace would cost more the deeper it is. Run with {@code -prof gc} to see bytes per rejection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+    // Roughly the depth of a controller call under Tomcat and Spring MVC
+    @Param({"0", "120"})
+    private int stackDepth;
+
+    private TransactionService service;
+    private GlobalExceptionHandler handler;
+    private Transaction invalid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new TransactionService(new InMemoryTransactionRepository());
+        handler = new GlobalExceptionHandler(Jackson2ObjectMapperBuilder.json().build());
+        invalid = BenchmarkData.transaction(0);
+        invalid.setAmount(BigDecimal.ZERO);
+    }
+
+    @Benchmark
+    public Object rejectInService() {
+        return atDepth(stackDepth);
+    }
+
+    private Object atDepth(int depth) {
+        if (depth > 0) {
+            return atDepth(depth - 1);
+        }
+        try {
+            return service.createTransaction(invalid);
+        } catch (TransactionException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public byte[] rejectAndRespond() {
+        return respondAtDepth(stackDepth);
+    }
+
+    private byte[] respondAtDepth(int depth) {
+        if (depth > 0) {
+            return respondAtDepth(depth - 1);
+        }
+        try {
+            service.createTransaction(invalid);
+            return null;
+        } catch (TransactionException e) {
+            return handler.handleTransactionException(e).getBody();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.repository.columnar.ColumnarTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point and page operations of {@link InMemoryTransactionRepository} and {@link ColumnarTransactionRepository}
+ * at increasing store sizes.
+ * The 10M size needs a heap of several gigabytes; narrow it with {@code -p storeSize=...}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+    private static final int PAGE_SIZE = 50;
+    // One category in six; the in-memory engine reads its posting list, the columnar one scans and filters
+    private static final TransactionQuery CATEGORY_QUERY =
+            new TransactionQuery(TransactionType.DEPOSIT, "Travel", null, null, null, null);
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    private int storeSize;
+
+    @Param({"memory", "columnar"})
+    private String repositoryType;
+
+    private TransactionRepository repository;
+    private UUID[] ids;
+    private TransactionCursor deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "columnar".equals(repositoryType)
+                ? new ColumnarTransactionRepository()
+                : new InMemoryTransactionRepository();
+        ids = new UUID[storeSize];
+        for (int i = 0; i < storeSize; i++) {
+            ids[i] = repository.save(BenchmarkData.transaction(i)).getId();
+        }
+        // Position of the page at three quarters of the store, for the deep-page comparison
+        List<Transaction> beforeDeepPage = repository.findAll(storeSize * 3 / 4 / PAGE_SIZE - 1, PAGE_SIZE);
+        deepCursor = TransactionCursor.of(beforeDeepPage.get(beforeDeepPage.size() - 1));
+    }
+
+    @Benchmark
+    public Transaction save() {
+        // Overwrites an existing id so the store size stays constant
+        int index = ThreadLocalRandom.current().nextInt(storeSize);
+        return repository.save(BenchmarkData.transaction(ids[index], index));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(ids[ThreadLocalRandom.current().nextInt(storeSize)]);
+    }
+
+    @Benchmark
+    public List<Transaction> findAllFirstPage() {
+        return repository.findAll(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> findAllDeepPage() {
+        return repository.findAll(storeSize * 3 / 4 / PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> findAfterDeepCursor() {
+        return repository.findAfter(deepCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> queryByCategory() {
+        return repository.query(CATEGORY_QUERY, null, PAGE_SIZE);
+    }
+}
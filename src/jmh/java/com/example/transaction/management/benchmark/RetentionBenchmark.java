@@ -0,0 +1,84 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.persistence.PartitionArchive;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Removing the oldest day from a store holding {@value #DAYS} days of transactions, spread evenly over each day:
+ * by dropping its partition ({@code DROP}), by archiving and dropping it ({@code ARCHIVE}), or by finding and
+ * deleting its transactions one by one ({@code DELETE}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RetentionBenchmark {
+    private static final int DAYS = 8;
+
+    @Param({"10000", "100000"})
+    private int transactionsPerDay;
+
+    @Param({"DROP", "ARCHIVE", "DELETE"})
+    private String method;
+
+    private Path directory;
+    private PartitionArchive archive;
+    private InMemoryTransactionRepository repository;
+    private Instant cutoff;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("retention-benchmark");
+        archive = new PartitionArchive(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fill() {
+        repository = new InMemoryTransactionRepository();
+        Instant start = BenchmarkData.transaction(0).getTimestamp();
+        long spacing = Duration.ofDays(1).toMillis() / transactionsPerDay;
+        for (int i = 0; i < DAYS * transactionsPerDay; i++) {
+            Transaction transaction = BenchmarkData.transaction(i);
+            transaction.setTimestamp(start.plusMillis(i * spacing));
+            repository.save(transaction);
+        }
+        cutoff = start.plus(Duration.ofDays(1));
+    }
+
+    @Benchmark
+    public long expireOldestDay() throws IOException {
+        switch (method) {
+            case "ARCHIVE":
+                return repository.dropBefore(cutoff, archive);
+            case "DELETE":
+                List<UUID> ids = new ArrayList<>(transactionsPerDay);
+                repository.iterate(null, cutoff).forEachRemaining(transaction -> ids.add(transaction.getId()));
+                repository.deleteAllById(ids);
+                return ids.size();
+            default:
+                return repository.dropBefore(cutoff, null);
+        }
+    }
+}
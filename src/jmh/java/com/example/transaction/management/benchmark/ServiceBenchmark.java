@@ -0,0 +1,107 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.service.TransactionCache;
+import com.example.transaction.management.service.TransactionMetrics;
+import com.example.transaction.management.service.TransactionService;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write paths of {@link TransactionService} with several threads hitting a shared pool of ids, with metrics
+ * off and recorded into a Prometheus registry. Thread count can be changed with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ServiceBenchmark {
+    private static final int SHARED_TRANSACTIONS = 1_024;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"1", "64"})
+    private int lockStripes;
+
+    @Param({"OFF", "PROMETHEUS"})
+    private String metrics;
+
+    private TransactionService service;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TransactionMetrics recorder = "OFF".equals(metrics)
+                ? TransactionMetrics.disabled()
+                : new TransactionMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        service = new TransactionService(new InMemoryTransactionRepository(), TransactionCache.disabled(), recorder,
+                lockStripes, BATCH_SIZE);
+        ids = new UUID[SHARED_TRANSACTIONS];
+        for (int i = 0; i < SHARED_TRANSACTIONS; i++) {
+            ids[i] = service.createTransaction(BenchmarkData.transaction(i)).getId();
+        }
+    }
+
+    @Benchmark
+    public Transaction create() {
+        return service.createTransaction(BenchmarkData.transaction(ThreadLocalRandom.current().nextInt(SHARED_TRANSACTIONS)));
+    }
+
+    @Benchmark
+    public Transaction createIdempotent() {
+        // A new key every time, the common case of a create that is not a retry
+        return service.createTransaction(BenchmarkData.transaction(ThreadLocalRandom.current().nextInt(SHARED_TRANSACTIONS)),
+                UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    public Transaction update() {
+        int index = ThreadLocalRandom.current().nextInt(SHARED_TRANSACTIONS);
+        return service.updateTransaction(ids[index], BenchmarkData.transaction(index));
+    }
+
+    @Benchmark
+    public Transaction updateIfMatch() {
+        // Read-modify-write as an editor would, reading again after losing a race to another thread
+        int index = ThreadLocalRandom.current().nextInt(SHARED_TRANSACTIONS);
+        while (true) {
+            long version = service.getTransaction(ids[index]).orElseThrow().getVersion();
+            try {
+                return service.updateTransaction(ids[index], BenchmarkData.transaction(index), version);
+            } catch (TransactionException e) {
+                if (e.getErrorType() != TransactionErrorType.VERSION_CONFLICT) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void createThenDelete() {
+        // Each thread deletes only what it created, so deletes never race to a 404
+        Transaction created = service.createTransaction(BenchmarkData.transaction(ThreadLocalRandom.current().nextInt(SHARED_TRANSACTIONS)));
+        service.deleteTransaction(created.getId());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BatchItemResult> createBatch() {
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BenchmarkData.transaction(i));
+        }
+        return service.createTransactions(batch);
+    }
+}
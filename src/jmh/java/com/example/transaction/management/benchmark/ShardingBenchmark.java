@@ -0,0 +1,75 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.ShardedTransactionRepository;
+import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.repository.columnar.ColumnarTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write scaling of {@link ShardedTransactionRepository} with the shard count, with several threads saving
+ * concurrently, and the cost of the k-way merge on the read side. One shard is the plain repository behind the
+ * same routing. Thread count can be changed with {@code -t}; writes only scale up to the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ShardingBenchmark {
+    private static final int STORE_SIZE = 100_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"1", "4", "16"})
+    private int shards;
+
+    @Param({"memory", "columnar"})
+    private String repositoryType;
+
+    private TransactionRepository repository;
+    private UUID[] ids;
+    private TransactionCursor deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<TransactionRepository> stores = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            stores.add("columnar".equals(repositoryType)
+                    ? new ColumnarTransactionRepository()
+                    : new InMemoryTransactionRepository());
+        }
+        repository = new ShardedTransactionRepository(stores);
+        ids = new UUID[STORE_SIZE];
+        for (int i = 0; i < STORE_SIZE; i++) {
+            ids[i] = repository.save(BenchmarkData.transaction(i)).getId();
+        }
+        List<Transaction> beforeDeepPage = repository.findAfter(null, STORE_SIZE * 3 / 4);
+        deepCursor = TransactionCursor.of(beforeDeepPage.get(beforeDeepPage.size() - 1));
+    }
+
+    @Benchmark
+    public Transaction save() {
+        // Overwrites an existing id so the store size stays constant
+        int index = ThreadLocalRandom.current().nextInt(STORE_SIZE);
+        return repository.save(BenchmarkData.transaction(ids[index], index));
+    }
+
+    @Benchmark
+    public List<Transaction> findAllFirstPage() {
+        return repository.findAll(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Transaction> findAfterDeepCursor() {
+        return repository.findAfter(deepCursor, PAGE_SIZE);
+    }
+}
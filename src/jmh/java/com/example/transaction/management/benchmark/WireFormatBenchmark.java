@@ -0,0 +1,90 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size on the wire and (de)serialization cost of stored transactions in JSON, Smile and CBOR, each mapper set up
+ * like the application's JSON one. The sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final TypeReference<List<Transaction>> LIST_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private Transaction transaction;
+    private List<Transaction> page;
+    private byte[] transactionBytes;
+    private byte[] pageBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        switch (format) {
+            case "SMILE" -> builder.factory(new SmileFactory());
+            case "CBOR" -> builder.factory(new CBORFactory());
+            default -> {
+            }
+        }
+        objectMapper = builder.build();
+        transaction = stored(42);
+        page = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(stored(i));
+        }
+        transactionBytes = objectMapper.writeValueAsBytes(transaction);
+        pageBytes = objectMapper.writeValueAsBytes(page);
+        System.out.println(format + ": " + transactionBytes.length + " bytes per transaction, "
+                + pageBytes.length + " bytes per page of " + PAGE_SIZE);
+    }
+
+    // As returned by the API: with an id, a version and a timestamp taken from the clock
+    private static Transaction stored(int index) {
+        Transaction transaction = BenchmarkData.transaction(UUID.randomUUID(), index);
+        transaction.setTimestamp(transaction.getTimestamp().plusNanos(123_456_789));
+        transaction.setVersion(1L);
+        return transaction;
+    }
+
+    @Benchmark
+    public byte[] serializeTransaction() throws IOException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction deserializeTransaction() throws IOException {
+        return objectMapper.readValue(transactionBytes, Transaction.class);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Transaction> deserializePage() throws IOException {
+        return objectMapper.readValue(pageBytes, LIST_TYPE);
+    }
+}
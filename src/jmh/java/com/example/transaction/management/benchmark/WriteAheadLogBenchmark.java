@@ -0,0 +1,75 @@
+package com.example.transaction.management.benchmark;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost the write-ahead log adds to repository writes and reads, per fsync policy.
+ * {@code NONE} is the repository without persistence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class WriteAheadLogBenchmark {
+    private static final int STORE_SIZE = 100_000;
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    @Param({"NONE", "NEVER", "INTERVAL", "ALWAYS"})
+    private String fsync;
+
+    private Path directory;
+    private WriteAheadLog wal;
+    private InMemoryTransactionRepository repository;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        if (!"NONE".equals(fsync)) {
+            wal = new WriteAheadLog(directory,
+                    WriteAheadLog.FsyncPolicy.valueOf(fsync), Duration.ofMillis(100), BUFFER_BYTES);
+        }
+        repository = new InMemoryTransactionRepository(wal);
+        ids = new UUID[STORE_SIZE];
+        for (int i = 0; i < STORE_SIZE; i++) {
+            ids[i] = repository.save(BenchmarkData.transaction(i)).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Transaction save() {
+        int index = ThreadLocalRandom.current().nextInt(STORE_SIZE);
+        return repository.save(BenchmarkData.transaction(ids[index], index));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(ids[ThreadLocalRandom.current().nextInt(STORE_SIZE)]);
+    }
+}
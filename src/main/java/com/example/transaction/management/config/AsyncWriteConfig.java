@@ -0,0 +1,27 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.service.BatchingWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AsyncWriteProperties.class)
+@ConditionalOnProperty(name = "transaction.async-writes.enabled", havingValue = "true")
+public class AsyncWriteConfig {
+    // Started and closed by TransactionService
+    @Bean(destroyMethod = "")
+    public BatchingWriter batchingWriter(AsyncWriteProperties properties) {
+        return new BatchingWriter(properties.queueCapacity(), properties.batchSize(), properties.linger());
+    }
+
+    @Bean
+    public MeterBinder writeQueueMetrics(BatchingWriter writer) {
+        return registry -> Gauge.builder("transaction.write.queue.size", writer, BatchingWriter::pending)
+                .description("Creates waiting for the writer")
+                .register(registry);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.service.BatchingWriter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import java.time.Duration;
+
+/**
+ * Optional asynchronous commit of creates: up to {@code queueCapacity} validated creates wait for a writer thread
+ * that stores them {@code batchSize} at a time, waiting up to {@code linger} for a batch to fill.
+ */
+@ConfigurationProperties(prefix = "transaction.async-writes")
+public record AsyncWriteProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("" + BatchingWriter.DEFAULT_QUEUE_CAPACITY) int queueCapacity,
+        @DefaultValue("" + BatchingWriter.DEFAULT_BATCH_SIZE) int batchSize,
+        @DefaultValue("0ms") Duration linger) {
+}
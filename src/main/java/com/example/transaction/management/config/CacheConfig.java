@@ -0,0 +1,70 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.model.TransactionSnapshot;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.time.Duration;
+
+/**
+ * Caffeine (W-TinyLFU eviction) backs the Spring cache abstraction. Spring Boot's cache auto-configuration
+ * picks up the builder below and applies it to every cache named in {@code spring.cache.cache-names}.
+ */
+@Configuration
+@EnableConfigurationProperties(TransactionCacheProperties.class)
+public class CacheConfig {
+    // Rough shallow size of a snapshot with its UUID, BigDecimal and Instant
+    private static final int SNAPSHOT_BASE_BYTES = 200;
+    private static final int MISSING_BYTES = 16;
+
+    @Bean
+    public Caffeine<Object, Object> caffeineConfig(TransactionCacheProperties properties) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfter(expiry(properties.expireAfterWrite(), properties.negativeTtl()));
+        if (properties.maximumWeight() > 0) {
+            builder.maximumWeight(properties.maximumWeight()).weigher(estimatedBytes());
+        } else {
+            builder.maximumSize(properties.maximumSize());
+        }
+        if (properties.recordStats()) {
+            builder.recordStats();
+        }
+        return builder;
+    }
+
+    // Snapshots live for the full TTL from their last write; negative entries only briefly
+    private static Expiry<Object, Object> expiry(Duration ttl, Duration negativeTtl) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return (value instanceof TransactionSnapshot ? ttl : negativeTtl).toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static Weigher<Object, Object> estimatedBytes() {
+        return (key, value) -> {
+            if (value instanceof TransactionSnapshot snapshot) {
+                return SNAPSHOT_BASE_BYTES + 2 * (length(snapshot.description()) + length(snapshot.category()));
+            }
+            return MISSING_BYTES;
+        };
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.service.IdempotencyStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyProperties properties) {
+        return new IdempotencyStore(properties.maximumSize(), properties.ttl());
+    }
+}
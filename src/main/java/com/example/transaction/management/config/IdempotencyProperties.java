@@ -0,0 +1,16 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.service.IdempotencyStore;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import java.time.Duration;
+
+/**
+ * Dedup window of creates sent with an {@code Idempotency-Key}: a key is remembered for {@code ttl} after its
+ * create, or until {@code maximumSize} newer keys push it out, whichever comes first.
+ */
+@ConfigurationProperties(prefix = "transaction.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("" + IdempotencyStore.DEFAULT_MAXIMUM_SIZE) long maximumSize,
+        @DefaultValue("10m") Duration ttl) {
+}
@@ -0,0 +1,40 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.service.TransactionCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges read on scrape. Spring Boot already binds the JVM, Tomcat and HTTP server metrics, and
+ * {@code cache.gets}/{@code cache.size} of the {@value TransactionCache#CACHE_NAME} cache when
+ * {@code transaction.cache.record-stats} is on; the operation timers are registered by
+ * {@link com.example.transaction.management.service.TransactionMetrics}.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public MeterBinder repositoryMetrics(TransactionRepository repository) {
+        return registry -> Gauge.builder("transaction.repository.size", repository, TransactionRepository::count)
+                .description("Number of stored transactions")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder cacheHitRatio(CacheManager cacheManager) {
+        return registry -> {
+            if (cacheManager.getCache(TransactionCache.CACHE_NAME) instanceof CaffeineCache caffeine) {
+                Cache<Object, Object> cache = caffeine.getNativeCache();
+                // Since startup; rate(cache_gets_total{result="hit"}) over all gets gives it per window
+                Gauge.builder("transaction.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                        .description("Fraction of transaction cache lookups served from the cache since startup")
+                        .register(registry);
+            }
+        };
+    }
+}
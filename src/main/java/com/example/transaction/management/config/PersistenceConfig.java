@@ -0,0 +1,60 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.persistence.SnapshotStore;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(PersistenceProperties.class)
+@ConditionalOnProperty(name = "transaction.persistence.enabled", havingValue = "true")
+public class PersistenceConfig {
+    private static final Logger log = LoggerFactory.getLogger(PersistenceConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public WriteAheadLog writeAheadLog(PersistenceProperties properties) throws IOException {
+        return new WriteAheadLog(
+                properties.directory(),
+                properties.fsync(),
+                properties.fsyncInterval(),
+                (int) properties.bufferSize().toBytes());
+    }
+
+    @Bean
+    public SnapshotStore snapshotStore(PersistenceProperties properties) throws IOException {
+        return new SnapshotStore(properties.directory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnExpression("'${transaction.repository.type:memory}' == 'memory' and ${transaction.repository.shards:1} == 1")
+    public ScheduledExecutorService snapshotScheduler(PersistenceProperties properties,
+                                                      InMemoryTransactionRepository repository) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.snapshotInterval().toMillis();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    repository.checkpoint();
+                } catch (RuntimeException e) {
+                    // Keep the schedule alive; the log still holds every write, so the next attempt loses nothing
+                    log.warn("Snapshot of the transaction repository failed", e);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return scheduler;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.persistence.WriteAheadLog;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional write-ahead logging of the in-memory repository to a local directory, with periodic snapshots
+ * that bound how much of the log is replayed at startup. A zero snapshot interval disables periodic snapshots.
+ */
+@ConfigurationProperties(prefix = "transaction.persistence")
+public record PersistenceProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data") Path directory,
+        @DefaultValue("INTERVAL") WriteAheadLog.FsyncPolicy fsync,
+        @DefaultValue("100ms") Duration fsyncInterval,
+        @DefaultValue("1MB") DataSize bufferSize,
+        @DefaultValue("10m") Duration snapshotInterval) {
+}
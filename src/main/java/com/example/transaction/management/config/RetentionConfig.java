@@ -0,0 +1,59 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.persistence.PartitionArchive;
+import com.example.transaction.management.service.TransactionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops expired partitions of the in-memory repository on a schedule, starting right after startup so that
+ * transactions restored from the write-ahead log are held to the same age.
+ */
+@Configuration
+@EnableConfigurationProperties(RetentionProperties.class)
+@ConditionalOnProperty(name = "transaction.retention.enabled", havingValue = "true")
+public class RetentionConfig {
+    private static final Logger log = LoggerFactory.getLogger(RetentionConfig.class);
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService retentionScheduler(RetentionProperties properties, TransactionService service,
+                                                       @Value("${transaction.repository.type:memory}") String type)
+            throws IOException {
+        if (!"memory".equals(type)) {
+            throw new IllegalStateException("transaction.retention.enabled requires transaction.repository.type=memory");
+        }
+        if (properties.maxAge().isNegative() || properties.maxAge().isZero()
+                || properties.checkInterval().isNegative() || properties.checkInterval().isZero()) {
+            throw new IllegalArgumentException("transaction.retention.max-age and check-interval must be positive");
+        }
+        PartitionArchive archive = properties.archive() ? new PartitionArchive(properties.archiveDirectory()) : null;
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            Instant cutoff = Instant.now().minus(properties.maxAge());
+            try {
+                long dropped = service.expireTransactions(cutoff, archive);
+                if (dropped > 0) {
+                    log.info("Dropped {} transactions older than {}", dropped, cutoff);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Keep the schedule alive; a partition that failed to archive is kept and retried next time
+                log.warn("Retention of the transaction repository failed", e);
+            }
+        }, 0, properties.checkInterval().toMillis(), TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+}
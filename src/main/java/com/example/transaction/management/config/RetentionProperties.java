@@ -0,0 +1,22 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.model.StatsInterval;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional retention of the in-memory repository, which keeps transactions in partitions of one {@code partition}
+ * interval of their timestamps. Every {@code checkInterval}, the partitions that end more than {@code maxAge} ago
+ * are dropped, after being written to gzip files in {@code archiveDirectory} when {@code archive} is set.
+ */
+@ConfigurationProperties(prefix = "transaction.retention")
+public record RetentionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("DAY") StatsInterval partition,
+        @DefaultValue("30d") Duration maxAge,
+        @DefaultValue("false") boolean archive,
+        @DefaultValue("archive") Path archiveDirectory,
+        @DefaultValue("1h") Duration checkInterval) {
+}
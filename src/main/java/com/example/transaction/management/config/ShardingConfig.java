@@ -0,0 +1,46 @@
+package com.example.transaction.management.config;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.ShardedTransactionRepository;
+import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.repository.columnar.ColumnarTransactionRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Replaces the single repository with {@code transaction.repository.shards} repositories of
+ * {@code transaction.repository.type} when more than one shard is configured. Write-ahead log persistence
+ * only covers a single in-memory repository.
+ */
+@Configuration
+@ConditionalOnExpression("${transaction.repository.shards:1} > 1")
+public class ShardingConfig {
+    @Bean
+    public ShardedTransactionRepository shardedTransactionRepository(
+            @Value("${transaction.repository.type:memory}") String type,
+            @Value("${transaction.repository.shards}") int shardCount,
+            @Value("${transaction.retention.partition:DAY}") StatsInterval partition,
+            ObjectProvider<WriteAheadLog> wal) {
+        if (wal.getIfAvailable() != null) {
+            throw new IllegalStateException("transaction.persistence.enabled requires transaction.repository.shards=1");
+        }
+        Supplier<TransactionRepository> shard = switch (type) {
+            case "memory" -> () -> new InMemoryTransactionRepository(partition);
+            case "columnar" -> ColumnarTransactionRepository::new;
+            default -> throw new IllegalStateException("Unknown transaction.repository.type: " + type);
+        };
+        List<TransactionRepository> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(shard.get());
+        }
+        return new ShardedTransactionRepository(shards);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.transaction.management.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import java.time.Duration;
+
+/**
+ * Bounds of the "transactions" cache. When {@code maximumWeight} is positive the cache is bounded by the
+ * estimated heap size of its entries in bytes and {@code maximumSize} is ignored. Lookups of unknown ids are
+ * cached for {@code negativeTtl} only.
+ */
+@ConfigurationProperties(prefix = "transaction.cache")
+public record TransactionCacheProperties(
+        @DefaultValue("100000") long maximumSize,
+        @DefaultValue("0") long maximumWeight,
+        @DefaultValue("10m") Duration expireAfterWrite,
+        @DefaultValue("5s") Duration negativeTtl,
+        @DefaultValue("true") boolean recordStats) {
+}
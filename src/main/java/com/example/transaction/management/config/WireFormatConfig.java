@@ -0,0 +1,25 @@
+package com.example.transaction.management.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Serves and accepts Smile, Jackson's binary JSON, for clients that send {@code Accept} or {@code Content-Type}
+ * {@code application/x-jackson-smile}; everyone else keeps getting JSON. Spring MVC registers a Smile converter
+ * on its own when the format is on the classpath, but with a plain mapper; this one replaces it with a mapper
+ * built like the JSON one, so both formats carry the same fields and timestamps.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WireFormatConfig {
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,35 +1,98 @@
 package com.example.transaction.management.controller;
 
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.StatsInterval;
 import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionChange;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.service.ChangeFeed;
 import com.example.transaction.management.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/transactions")
 @Tag(name = "Transaction Management", description = "Transaction Management API, including create, query, update and delete transactions")
 public class TransactionController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // Expected by a write whose If-Match is not an ETag of ours; no stored transaction has it
+    static final long NO_VERSION = 0;
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    static final String CHANGE_EVENT = "change";
+    static final String RESYNC_EVENT = "resync";
+    // Changes sent to a change stream with one flush
+    static final int CHANGE_BATCH_SIZE = 256;
+
     private final TransactionService service;
+    private final ObjectMapper objectMapper;
+    // Flushing is left to the response buffer so an export is written in large chunks
+    private final ObjectWriter exportWriter;
+    // Longest a change stream stays silent; the heartbeat also finds connections the client has closed
+    private final Duration heartbeat;
+    // Change numbers restart with the application, so store ETags also name the run that handed them out
+    private final String storeEpoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
 
-    public TransactionController(TransactionService service) {
+    public TransactionController(TransactionService service, ObjectMapper objectMapper,
+                                 @Value("${transaction.changes.heartbeat:15s}") Duration heartbeat) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.exportWriter = objectMapper.writerFor(Transaction.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.heartbeat = heartbeat;
     }
 
     @Operation(summary = "Create New Transaction", description = "Create a new transaction record")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transaction created successfully", 
-                    content = @Content(schema = @Schema(implementation = Transaction.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid input data")
+                    content = @Content(schema = @Schema(implementation = Transaction.class)),
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the transaction")),
+        @ApiResponse(responseCode = "400", description = "Invalid input data"),
+        @ApiResponse(responseCode = "429", description = "Too many creates are waiting to be committed (asynchronous writes only)",
+                    headers = @Header(name = HttpHeaders.RETRY_AFTER, description = "Seconds to wait before retrying"))
     })
     @PostMapping
     public ResponseEntity<Transaction> createTransaction(
@@ -37,14 +100,21 @@ public class TransactionController {
                 description = "Transaction object", 
                 required = true, 
                 content = @Content(schema = @Schema(implementation = Transaction.class)))
-            @RequestBody Transaction transaction) {
-        return ResponseEntity.ok(service.createTransaction(transaction));
+            @RequestBody Transaction transaction,
+            @Parameter(description = "Client-chosen key; a repeated create with the same key returns the transaction made by the first")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Transaction created = idempotencyKey == null
+                ? service.createTransaction(transaction)
+                : service.createTransaction(transaction, idempotencyKey);
+        return withETag(ResponseEntity.ok(), created).body(created);
     }
 
     @Operation(summary = "Get Transaction Details", description = "Get transaction details by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transaction found", 
-                    content = @Content(schema = @Schema(implementation = Transaction.class))),
+                    content = @Content(schema = @Schema(implementation = Transaction.class)),
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the transaction")),
+        @ApiResponse(responseCode = "304", description = "Transaction is still at the version in If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Transaction not found")
     })
     @GetMapping("/{id}")
@@ -52,28 +122,141 @@ public class TransactionController {
             @Parameter(description = "Transaction ID", required = true)
             @PathVariable UUID id) {
         Optional<Transaction> transaction = service.getTransaction(id);
-        return transaction.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        // A matching If-None-Match turns the response into a 304 without a body
+        return transaction.map(found -> withETag(ResponseEntity.ok(), found).body(found))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get All Transactions", description = "Get all transaction records with pagination")
+    @Operation(summary = "Get All Transactions", description = "Get transaction records, newest first, optionally filtered, with offset or cursor pagination")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved transaction list", 
-                    content = @Content(schema = @Schema(implementation = Transaction.class)))
+                    content = @Content(schema = @Schema(implementation = Transaction.class)),
+                    headers = {
+                        @Header(name = NEXT_CURSOR_HEADER, description = "Cursor for the following page, present when the page is full"),
+                        @Header(name = HttpHeaders.ETAG, description = "Version of the stored data the page was read from")
+                    }),
+        @ApiResponse(responseCode = "304", description = "Nothing was stored, updated or deleted since the ETag in If-None-Match")
     })
     @GetMapping
     public ResponseEntity<List<Transaction>> getAllTransactions(
-            @Parameter(description = "Page number (starting from 0)") 
+            @Parameter(description = "Page number (starting from 0), ignored when a cursor is given") 
             @RequestParam(defaultValue = "0") int page, 
             @Parameter(description = "Number of records per page") 
-            @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(service.getAllTransactions(page, size));
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Opaque cursor taken from the " + NEXT_CURSOR_HEADER + " header of a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Only transactions of this type")
+            @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Only transactions in this category (exact match)")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Inclusive lower bound on the amount")
+            @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "Inclusive upper bound on the amount")
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "Inclusive lower bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Exclusive upper bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        TransactionQuery query = new TransactionQuery(type, category, minAmount, maxAmount, from, to);
+        List<Transaction> transactions;
+        if (query.isRestricted()) {
+            transactions = cursor == null
+                    ? service.queryTransactions(query, page, size)
+                    : service.queryTransactionsAfter(query, cursor, size);
+        } else {
+            transactions = cursor == null
+                    ? service.getAllTransactions(page, size)
+                    : service.getTransactionsAfter(cursor, size);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!transactions.isEmpty() && transactions.size() == size) {
+            Transaction last = transactions.get(transactions.size() - 1);
+            response.header(NEXT_CURSOR_HEADER, TransactionCursor.of(last).encode());
+        }
+        return response.body(transactions);
+    }
+
+    @Operation(summary = "Export Transactions", description = "Stream all transactions, newest first, as newline-delimited JSON")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "One transaction per line",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = Transaction.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid time range")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "Inclusive lower bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Exclusive upper bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Iterator<Transaction> transactions = service.exportTransactions(from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeNdjson(transactions, out));
+    }
+
+    @Operation(summary = "Stream Transaction Changes", description = "Stream every committed create, update and delete, in commit order, as server-sent events. "
+            + "Each '" + CHANGE_EVENT + "' event has the sequence number of its change as its ID. A client whose position is no longer held by the feed "
+            + "gets one '" + RESYNC_EVENT + "' event, carrying the latest sequence number, and the stream ends; it should reload the transactions it "
+            + "needs and reconnect after that number")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream of change events",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = TransactionChange.class)))
+    })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @Parameter(description = "Sequence number of the last change already seen; only later changes are sent. "
+                    + "Defaults to the " + LAST_EVENT_ID_HEADER + " header, then to the latest change")
+            @RequestParam(required = false) Long since,
+            @Parameter(description = "Set by reconnecting event-stream clients to the ID of the last event they received")
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        long after = changesAfter(since, lastEventId, service::latestChangeSequence);
+        // Ends when the client goes away or has to resync, not on the server's async request timeout. The
+        // container still reports some disconnects as a timeout, which then only ends the stream.
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onTimeout(emitter::complete);
+        // A slow client only holds up its own virtual thread; writers never wait for it
+        Thread.ofVirtual().name("transaction-changes").start(() -> sendChanges(after, emitter));
+        return emitter;
+    }
+
+    @Operation(summary = "Get Transaction Statistics", description = "Get the count, sum, min and max of amounts per time bucket, type and category, newest bucket first")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics of the non-empty buckets",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = TransactionStats.class))),
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the stored data the statistics were computed from")),
+        @ApiResponse(responseCode = "304", description = "Nothing was stored, updated or deleted since the ETag in If-None-Match"),
+        @ApiResponse(responseCode = "400", description = "Invalid interval, type or time range")
+    })
+    @GetMapping("/stats")
+    public ResponseEntity<List<TransactionStats>> getStats(
+            @Parameter(description = "Width of the time buckets, aligned to UTC")
+            @RequestParam(defaultValue = "HOUR") StatsInterval interval,
+            @Parameter(description = "Only transactions of this type")
+            @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Only transactions in this category (exact match)")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Start of the time range (ISO-8601), rounded down to a bucket boundary")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End of the time range (ISO-8601), rounded up to a bucket boundary")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(service.getStats(interval, type, category, from, to));
     }
 
     @Operation(summary = "Update Transaction", description = "Update transaction information by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transaction updated successfully", 
-                    content = @Content(schema = @Schema(implementation = Transaction.class))),
-        @ApiResponse(responseCode = "404", description = "Transaction not found")
+                    content = @Content(schema = @Schema(implementation = Transaction.class)),
+                    headers = @Header(name = HttpHeaders.ETAG, description = "New version of the transaction")),
+        @ApiResponse(responseCode = "404", description = "Transaction not found"),
+        @ApiResponse(responseCode = "412", description = "Transaction was changed since the version in If-Match, or in the body without If-Match")
     })
     @PutMapping("/{id}")
     public ResponseEntity<Transaction> updateTransaction(
@@ -83,10 +266,18 @@ public class TransactionController {
                 description = "Updated transaction object", 
                 required = true, 
                 content = @Content(schema = @Schema(implementation = Transaction.class)))
-            @RequestBody Transaction transaction) {
+            @RequestBody Transaction transaction,
+            @Parameter(description = "ETag the update is based on; it is rejected if the transaction has changed since")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            return ResponseEntity.ok(service.updateTransaction(id, transaction));
+            Transaction updated = ifMatch == null
+                    ? service.updateTransaction(id, transaction)
+                    : service.updateTransaction(id, transaction, expectedVersions(ifMatch));
+            return withETag(ResponseEntity.ok(), updated).body(updated);
         } catch (RuntimeException e) {
+            if (isVersionConflict(e)) {
+                throw e;
+            }
             return ResponseEntity.notFound().build();
         }
     }
@@ -94,13 +285,192 @@ public class TransactionController {
     @Operation(summary = "Delete Transaction", description = "Delete transaction by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transaction deleted successfully"),
-        @ApiResponse(responseCode = "404", description = "Transaction not found")
+        @ApiResponse(responseCode = "404", description = "Transaction not found"),
+        @ApiResponse(responseCode = "412", description = "Transaction was changed since the version in If-Match")
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTransaction(
             @Parameter(description = "Transaction ID", required = true)
-            @PathVariable UUID id) {
-        service.deleteTransaction(id);
+            @PathVariable UUID id,
+            @Parameter(description = "ETag the delete is based on; it is rejected if the transaction has changed since")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch == null) {
+            service.deleteTransaction(id);
+        } else {
+            service.deleteTransaction(id, expectedVersions(ifMatch));
+        }
         return ResponseEntity.ok().build();
     }
+
+    @Operation(summary = "Create Transactions in Batch", description = "Create many transactions in one request, reporting the outcome of each item")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createTransactions(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Transaction objects",
+                required = true,
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = Transaction.class))))
+            @RequestBody List<Transaction> transactions) {
+        return ResponseEntity.ok(service.createTransactions(transactions));
+    }
+
+    @Operation(summary = "Update Transactions in Batch", description = "Update many transactions, identified by their IDs, in one request; an item with a version is only applied at that version")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+    })
+    @PutMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> updateTransactions(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Updated transaction objects, each with its ID",
+                required = true,
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = Transaction.class))))
+            @RequestBody List<Transaction> transactions) {
+        return ResponseEntity.ok(service.updateTransactions(transactions));
+    }
+
+    @Operation(summary = "Delete Transactions in Batch", description = "Delete many transactions by ID in one request")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+    })
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> deleteTransactions(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Transaction IDs",
+                required = true,
+                content = @Content(array = @ArraySchema(schema = @Schema(implementation = UUID.class))))
+            @RequestBody List<UUID> ids) {
+        return ResponseEntity.ok(service.deleteTransactions(ids));
+    }
+
+    // Versions are sent as strong ETags
+    static <B extends ResponseEntity.HeadersBuilder<B>> B withETag(B response, Transaction transaction) {
+        if (transaction.getVersion() != null) {
+            response.eTag("\"" + transaction.getVersion() + "\"");
+        }
+        return response;
+    }
+
+    /**
+     * Weak ETag of everything read from the store: the latest change number, which moves with every committed
+     * write. It is taken before the store is read, so a response may already hold a later write, which only
+     * makes the next poll fetch it again; a write the response misses always has a later number.
+     */
+    static String storeETag(String epoch, long latestChange) {
+        return "W/\"" + epoch + "-" + latestChange + "\"";
+    }
+
+    /**
+     * The versions an If-Match header asks for: {@code null} for {@code *}, else the version of every strong
+     * ETag in its list, any of which may match. A header without any ETag of ours asks for {@link #NO_VERSION}
+     * alone, which fails the precondition.
+     */
+    static long[] expectedVersions(String ifMatch) {
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String[] tags = ifMatch.split(",");
+        long[] versions = new long[tags.length];
+        int count = 0;
+        for (String tag : tags) {
+            long version = version(tag.trim());
+            if (version != NO_VERSION) {
+                versions[count++] = version;
+            }
+        }
+        return count == 0 ? new long[] {NO_VERSION} : Arrays.copyOf(versions, count);
+    }
+
+    // The version of one of our ETags; weak and foreign ones are NO_VERSION
+    private static long version(String tag) {
+        if (tag.length() > 2 && tag.charAt(0) == '"' && tag.charAt(tag.length() - 1) == '"') {
+            try {
+                long version = Long.parseLong(tag, 1, tag.length() - 1, 10);
+                return version > 0 ? version : NO_VERSION;
+            } catch (NumberFormatException e) {
+                return NO_VERSION;
+            }
+        }
+        return NO_VERSION;
+    }
+
+    /**
+     * The sequence number a change stream starts after: {@code since}, else the last event ID, else the latest
+     * change. A last event ID that is not a number asks for a resync.
+     */
+    static long changesAfter(Long since, String lastEventId, LongSupplier latest) {
+        if (since != null) {
+            return since;
+        }
+        if (lastEventId != null) {
+            try {
+                return Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return latest.getAsLong();
+    }
+
+    // Sets the store ETag on the response, and 304 Not Modified when If-None-Match already holds it
+    private boolean notModified(WebRequest request) {
+        return request.checkNotModified(storeETag(storeEpoch, service.latestChangeSequence()));
+    }
+
+    static boolean isVersionConflict(Throwable e) {
+        return e instanceof TransactionException rejected
+                && rejected.getErrorType() == TransactionErrorType.VERSION_CONFLICT;
+    }
+
+    private void sendChanges(long after, SseEmitter emitter) {
+        try {
+            while (true) {
+                ChangeFeed.Page page = service.getChanges(after, CHANGE_BATCH_SIZE, heartbeat);
+                if (page.resync()) {
+                    emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(page.latestSequence()));
+                    emitter.complete();
+                    return;
+                }
+                if (page.changes().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+                Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+                for (TransactionChange change : page.changes()) {
+                    events.addAll(SseEmitter.event()
+                            .id(Long.toString(change.sequence()))
+                            .name(CHANGE_EVENT)
+                            .data(change, MediaType.APPLICATION_JSON)
+                            .build());
+                }
+                emitter.send(events);
+                after = page.changes().get(page.changes().size() - 1).sequence();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the request ended; the container completes the emitter
+        } catch (InterruptedException e) {
+            emitter.complete();
+        }
+    }
+
+    private void writeNdjson(Iterator<Transaction> transactions, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            boolean empty = true;
+            while (transactions.hasNext()) {
+                exportWriter.writeValue(generator, transactions.next());
+                empty = false;
+            }
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
 }
\ No newline at end of file
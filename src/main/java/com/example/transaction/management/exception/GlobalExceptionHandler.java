@@ -1,35 +1,72 @@
 package com.example.transaction.management.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.catalina.connector.ClientAbortException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    // A full write queue drains within a few batches
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    // Rejections are the path a misbehaving client can flood, so their responses are rendered once per
+    // second and error type and then shared; their timestamps are truncated to the second
+    private volatile RenderedErrors rendered = new RenderedErrors(Long.MIN_VALUE);
+
+    @Autowired
+    public GlobalExceptionHandler(ObjectMapper objectMapper) {
+        this(objectMapper, Clock.systemDefaultZone());
+    }
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
     @ExceptionHandler(TransactionException.class)
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> handleTransactionException(TransactionException ex) {
-        Map<String, Object> error = new HashMap<>();
-        error.put("timestamp", LocalDateTime.now());
-        error.put("status", HttpStatus.BAD_REQUEST.value());
-        error.put("error", "Transaction Error");
-        error.put("errorType", ex.getErrorType().name());
-        error.put("message", ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    public ResponseEntity<byte[]> handleTransactionException(TransactionException ex) {
+        long second = clock.millis() / 1000;
+        RenderedErrors errors = rendered;
+        if (errors.second != second) {
+            errors = new RenderedErrors(second);
+            rendered = errors;
+        }
+        int index = ex.getErrorType().ordinal();
+        ResponseEntity<byte[]> response = errors.responses[index];
+        if (response == null) {
+            // Threads racing here render identical responses; whichever is stored last wins
+            response = render(ex.getErrorType(), second);
+            errors.responses[index] = response;
+        }
+        return response;
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseBody
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, Object> error = new HashMap<>();
-        error.put("timestamp", LocalDateTime.now());
+        error.put("timestamp", LocalDateTime.now(clock));
         error.put("status", HttpStatus.BAD_REQUEST.value());
         error.put("error", "Validation Error");
         
@@ -44,14 +81,73 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now(clock));
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Invalid Parameter");
+        error.put("message", "Invalid value for parameter '" + ex.getName() + "'");
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    // Writing a streamed response, such as an export or a change stream, failed because the client closed the
+    // connection; nobody is left to answer. Any other I/O failure, such as a transaction that cannot be
+    // serialized, is an internal error.
+    @ExceptionHandler({AsyncRequestNotUsableException.class, ClientAbortException.class})
+    public void handleDisconnectedClient() {
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseBody
     public ResponseEntity<Map<String, Object>> handleGeneralException(Exception ex) {
         Map<String, Object> error = new HashMap<>();
-        error.put("timestamp", LocalDateTime.now());
+        error.put("timestamp", LocalDateTime.now(clock));
         error.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
         error.put("error", "Internal Server Error");
         error.put("message", ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    private ResponseEntity<byte[]> render(TransactionErrorType errorType, long second) {
+        HttpStatus status = statusOf(errorType);
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochSecond(second), clock.getZone()));
+        error.put("status", status.value());
+        error.put("error", "Transaction Error");
+        error.put("errorType", errorType.name());
+        error.put("message", errorType.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (status == HttpStatus.TOO_MANY_REQUESTS) {
+            headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        }
+        try {
+            return new ResponseEntity<>(objectMapper.writeValueAsBytes(error), headers, status);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render the " + errorType + " response", e);
+        }
+    }
+
+    // A write whose If-Match no longer holds failed a precondition, and a create turned away by a full write
+    // queue may be retried; every other rejection is a bad request
+    private static HttpStatus statusOf(TransactionErrorType errorType) {
+        return switch (errorType) {
+            case VERSION_CONFLICT -> HttpStatus.PRECONDITION_FAILED;
+            case WRITE_QUEUE_FULL -> HttpStatus.TOO_MANY_REQUESTS;
+            default -> HttpStatus.BAD_REQUEST;
+        };
+    }
+
+    // Responses are immutable, and published safely through their final fields
+    private static final class RenderedErrors {
+        private final long second;
+        @SuppressWarnings("unchecked")
+        private final ResponseEntity<byte[]>[] responses = new ResponseEntity[TransactionErrorType.values().length];
+
+        private RenderedErrors(long second) {
+            this.second = second;
+        }
+    }
 } 
\ No newline at end of file
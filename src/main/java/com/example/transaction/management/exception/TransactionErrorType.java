@@ -8,7 +8,15 @@ public enum TransactionErrorType {
     NEGATIVE_AMOUNT("Transaction amount cannot be negative"),
     ZERO_AMOUNT("Transaction amount cannot be zero"),
     TRANSACTION_NOT_FOUND("Transaction not found"),
-    INVALID_PAGINATION("Invalid pagination parameters");
+    INVALID_PAGINATION("Invalid pagination parameters"),
+    INVALID_CURSOR("Invalid pagination cursor"),
+    INVALID_BATCH("Invalid batch request"),
+    INVALID_TIME_RANGE("Invalid time range"),
+    INVALID_AMOUNT_RANGE("Invalid amount range"),
+    INVALID_IDEMPOTENCY_KEY("Invalid idempotency key"),
+    IDEMPOTENCY_KEY_REUSED("Idempotency key was already used for a different transaction"),
+    VERSION_CONFLICT("Transaction was changed since the given version"),
+    WRITE_QUEUE_FULL("Too many writes are pending, retry later");
 
     private final String message;
 
@@ -1,19 +1,38 @@
 package com.example.transaction.management.exception;
 
+/**
+ * A request rejected for one of the {@link TransactionErrorType}s. These only ever become 4xx responses, so they
+ * carry no stack trace, and {@link #of} hands out one shared instance per type instead of allocating.
+ */
 public class TransactionException extends RuntimeException {
+    private static final TransactionException[] SHARED = new TransactionException[TransactionErrorType.values().length];
+
+    static {
+        for (TransactionErrorType type : TransactionErrorType.values()) {
+            SHARED[type.ordinal()] = new TransactionException(type);
+        }
+    }
+
     private final TransactionErrorType errorType;
 
     public TransactionException(TransactionErrorType errorType) {
-        super(errorType.getMessage());
-        this.errorType = errorType;
+        this(errorType, null);
     }
 
     public TransactionException(TransactionErrorType errorType, Throwable cause) {
-        super(errorType.getMessage(), cause);
+        super(errorType.getMessage(), cause, false, false);
         this.errorType = errorType;
     }
 
+    /**
+     * The shared, immutable exception for {@code errorType}: it has no stack trace, no cause and no suppressed
+     * exceptions, and {@link #initCause} on it fails.
+     */
+    public static TransactionException of(TransactionErrorType errorType) {
+        return SHARED[errorType.ordinal()];
+    }
+
     public TransactionErrorType getErrorType() {
         return errorType;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.example.transaction.management.model;
+
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.UUID;
+
+@Schema(description = "Outcome of one item of a batch request")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(
+        @Schema(description = "Position of the item in the request", example = "0")
+        int index,
+        @Schema(description = "Transaction ID", example = "123e4567-e89b-12d3-a456-426614174000")
+        UUID id,
+        @Schema(description = "Whether the item was applied")
+        boolean success,
+        @Schema(description = "Error type when the item was rejected", example = "INVALID_AMOUNT")
+        TransactionErrorType errorType,
+        @Schema(description = "Error message when the item was rejected", example = "Invalid transaction amount")
+        String message,
+        @Schema(description = "Stored transaction for created or updated items")
+        Transaction transaction) {
+
+    public static BatchItemResult succeeded(int index, Transaction transaction) {
+        return new BatchItemResult(index, transaction.getId(), true, null, null, transaction);
+    }
+
+    public static BatchItemResult succeeded(int index, UUID id) {
+        return new BatchItemResult(index, id, true, null, null, null);
+    }
+
+    public static BatchItemResult failed(int index, UUID id, TransactionErrorType errorType) {
+        return new BatchItemResult(index, id, false, errorType, errorType.getMessage(), null);
+    }
+}
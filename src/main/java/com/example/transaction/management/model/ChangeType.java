@@ -0,0 +1,15 @@
+package com.example.transaction.management.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Kind of change in the change feed")
+public enum ChangeType {
+    @Schema(description = "Transaction created")
+    CREATED,
+
+    @Schema(description = "Transaction replaced by an update")
+    UPDATED,
+
+    @Schema(description = "Transaction deleted")
+    DELETED
+}
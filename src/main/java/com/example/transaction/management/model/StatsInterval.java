@@ -0,0 +1,36 @@
+package com.example.transaction.management.model;
+
+import java.time.Instant;
+
+/**
+ * Width of the time buckets transaction statistics are grouped into. Buckets are aligned to UTC.
+ */
+public enum StatsInterval {
+    HOUR(3_600),
+    DAY(86_400);
+
+    private final long seconds;
+
+    StatsInterval(long seconds) {
+        this.seconds = seconds;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * Start of the bucket containing {@code instant}.
+     */
+    public Instant floor(Instant instant) {
+        return Instant.ofEpochSecond(Math.floorDiv(instant.getEpochSecond(), seconds) * seconds);
+    }
+
+    /**
+     * Start of the first bucket at or after {@code instant}.
+     */
+    public Instant ceil(Instant instant) {
+        Instant floor = floor(instant);
+        return floor.equals(instant) ? floor : floor.plusSeconds(seconds);
+    }
+}
@@ -33,6 +33,9 @@ public class Transaction {
     @Schema(description = "Transaction Timestamp", example = "2023-12-01T10:15:30Z")
     private Instant timestamp;
 
+    @Schema(description = "Version of the stored transaction, starting at 1 and incremented by every update; sent as its ETag", example = "1", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     public Transaction() {
         this.id = UUID.randomUUID();
         this.timestamp = Instant.now();
@@ -85,4 +88,12 @@ public class Transaction {
     public void setTimestamp(Instant timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
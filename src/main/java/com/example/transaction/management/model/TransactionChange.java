@@ -0,0 +1,20 @@
+package com.example.transaction.management.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.UUID;
+
+@Schema(description = "One committed change of a transaction, as sent by the change feed")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionChange(
+        @Schema(description = "Position in the change feed; every change gets the next number", example = "42")
+        long sequence,
+        @Schema(description = "Kind of change", example = "UPDATED")
+        ChangeType type,
+        @Schema(description = "Transaction ID", example = "123e4567-e89b-12d3-a456-426614174000")
+        UUID id,
+        @Schema(description = "Version the transaction has after the change, or had when it was deleted", example = "2")
+        Long version,
+        @Schema(description = "Transaction as stored by the change; absent for deletes", implementation = Transaction.class)
+        TransactionSnapshot transaction) {
+}
@@ -0,0 +1,41 @@
+package com.example.transaction.management.model;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the (timestamp desc, id) ordering used for keyset pagination.
+ * Clients only ever see the encoded form, which is URL safe and opaque.
+ */
+public record TransactionCursor(Instant timestamp, UUID id) {
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getTimestamp(), transaction.getId());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        buffer.putLong(timestamp.getEpochSecond());
+        buffer.putInt(timestamp.getNano());
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value was not produced by {@link #encode()}
+     */
+    public static TransactionCursor decode(String value) {
+        byte[] bytes = Base64.getUrlDecoder().decode(value);
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Instant timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        return new TransactionCursor(timestamp, id);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.transaction.management.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Filter over transactions. Every {@code null} component matches anything; the others must all match.
+ *
+ * @param type      exact transaction type
+ * @param category  exact, case-sensitive category
+ * @param minAmount inclusive lower bound on the amount
+ * @param maxAmount inclusive upper bound on the amount
+ * @param from      inclusive lower bound on the timestamp
+ * @param to        exclusive upper bound on the timestamp
+ */
+public record TransactionQuery(TransactionType type, String category, BigDecimal minAmount, BigDecimal maxAmount,
+                               Instant from, Instant to) {
+
+    public boolean matches(Transaction transaction) {
+        if (type != null && type != transaction.getType()) {
+            return false;
+        }
+        if (category != null && !category.equals(transaction.getCategory())) {
+            return false;
+        }
+        BigDecimal amount = transaction.getAmount();
+        if ((minAmount != null || maxAmount != null) && amount == null) {
+            return false;
+        }
+        if (minAmount != null && amount.compareTo(minAmount) < 0) {
+            return false;
+        }
+        if (maxAmount != null && amount.compareTo(maxAmount) > 0) {
+            return false;
+        }
+        Instant timestamp = transaction.getTimestamp();
+        if (from != null && timestamp.isBefore(from)) {
+            return false;
+        }
+        return to == null || timestamp.isBefore(to);
+    }
+
+    /**
+     * Whether the query filters on anything at all.
+     */
+    public boolean isRestricted() {
+        return type != null || category != null || minAmount != null || maxAmount != null || from != null || to != null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.transaction.management.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a {@link Transaction}, safe to share between threads and callers.
+ */
+public record TransactionSnapshot(
+        UUID id,
+        BigDecimal amount,
+        TransactionType type,
+        String description,
+        String category,
+        Instant timestamp,
+        Long version) {
+
+    public static TransactionSnapshot of(Transaction transaction) {
+        return new TransactionSnapshot(
+                transaction.getId(),
+                transaction.getAmount(),
+                transaction.getType(),
+                transaction.getDescription(),
+                transaction.getCategory(),
+                transaction.getTimestamp(),
+                transaction.getVersion());
+    }
+
+    public Transaction toTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(amount);
+        transaction.setType(type);
+        transaction.setDescription(description);
+        transaction.setCategory(category);
+        transaction.setTimestamp(timestamp);
+        transaction.setVersion(version);
+        return transaction;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.transaction.management.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Schema(description = "Aggregates of the transactions of one type and category in one time bucket")
+public record TransactionStats(
+        @Schema(description = "Inclusive start of the time bucket", example = "2024-01-01T00:00:00Z")
+        Instant start,
+        @Schema(description = "Transaction type", example = "WITHDRAWAL")
+        TransactionType type,
+        @Schema(description = "Transaction category", example = "Groceries")
+        String category,
+        @Schema(description = "Number of transactions", example = "12")
+        long count,
+        @Schema(description = "Sum of the amounts", example = "542.10")
+        BigDecimal sum,
+        @Schema(description = "Smallest amount", example = "3.50")
+        BigDecimal min,
+        @Schema(description = "Largest amount", example = "120.00")
+        BigDecimal max) {
+}
@@ -0,0 +1,141 @@
+package com.example.transaction.management.persistence;
+
+import com.example.transaction.management.model.Transaction;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed files holding the transactions of partitions dropped by retention, one file per partition.
+ *
+ * <p>An archive file is named after the UTC start of its partition, as in
+ * {@code partition-2024-01-15T00Z.bin.gz}, and holds {@code [magic][version][start][end]}, followed by
+ * {@code [length][record]} for every transaction in {@link TransactionCodec} format, and ends with
+ * {@code [-1][record count]}; gzip checksums the content. It is written to a temporary file, forced to disk
+ * and renamed into place. A partition archived again, as after a restart replays writes the log still holds,
+ * gets a new file with a numbered suffix rather than replacing the first, so archival is at least once.
+ */
+public class PartitionArchive {
+    private static final int MAGIC = 0x54584152;
+    private static final int VERSION = 1;
+    private static final int END_OF_RECORDS = -1;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+
+    public PartitionArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes {@code transactions}, the content of the partition covering {@code [start, end)}, to a new archive
+     * file and returns its path.
+     */
+    public Path write(Instant start, Instant end, Iterator<Transaction> transactions) throws IOException {
+        String name = "partition-" + NAME_FORMAT.format(start);
+        Path temporary = Files.createTempFile(directory, name, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_BYTES));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(start.getEpochSecond());
+                out.writeLong(end.getEpochSecond());
+                long count = 0;
+                while (transactions.hasNext()) {
+                    byte[] record = TransactionCodec.encode(transactions.next());
+                    out.writeInt(record.length);
+                    out.write(record);
+                    count++;
+                }
+                out.writeInt(END_OF_RECORDS);
+                out.writeLong(count);
+                out.flush();
+                gzip.finish();
+                // Durable before the partition is dropped, or a checkpoint deletes the only other copy
+                channel.force(true);
+            }
+            for (int suffix = 0; ; suffix++) {
+                Path target = directory.resolve(name + (suffix == 0 ? "" : "-" + suffix) + ".bin.gz");
+                try {
+                    // The name is claimed first, since an atomic rename would silently replace an earlier archive
+                    Files.createFile(target);
+                } catch (FileAlreadyExistsException e) {
+                    // Archived before; keep both
+                    continue;
+                }
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                return target;
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Passes every transaction of the archive {@code file} to {@code consumer} and returns how many there were.
+     *
+     * @throws IOException if the file is not a complete archive
+     */
+    public static long read(Path file, Consumer<Transaction> consumer) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(
+                     new GZIPInputStream(in, BUFFER_BYTES), BUFFER_BYTES))) {
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                throw corrupt(file);
+            }
+            data.readLong();
+            data.readLong();
+            long count = 0;
+            for (int length = data.readInt(); length != END_OF_RECORDS; length = data.readInt()) {
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    throw corrupt(file);
+                }
+                try {
+                    consumer.accept(TransactionCodec.decode(ByteBuffer.wrap(data.readNBytes(length))));
+                } catch (IllegalArgumentException e) {
+                    throw corrupt(file);
+                }
+                count++;
+            }
+            if (data.readLong() != count) {
+                throw corrupt(file);
+            }
+            return count;
+        } catch (EOFException e) {
+            throw corrupt(file);
+        }
+    }
+
+    private static IOException corrupt(Path file) {
+        return new IOException("Archive " + file + " is corrupt");
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.transaction.management.persistence;
+
+import com.example.transaction.management.model.Transaction;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Point-in-time copies of the repository, each tagged with the write-ahead log LSN it covers.
+ *
+ * <p>A snapshot file is {@code [magic][version][LSN]}, followed by {@code [length][record]} for every
+ * transaction in {@link TransactionCodec} format, and ends with {@code [-1][record count][CRC32C of the
+ * records]}. It is written to a temporary file and renamed into place, so a crash never leaves a partial
+ * snapshot behind. Loading maps the file into memory in windows of up to 1GB and decodes records straight
+ * from the mapping.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x5458534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int END_OF_RECORDS = -1;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final long WINDOW_BYTES = 1L << 30;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Passes every transaction of the newest snapshot to {@code consumer} and returns the LSN it covers,
+     * or 0 when there is no snapshot yet.
+     *
+     * @throws IOException if the snapshot cannot be read or fails its checksum; transactions already passed to
+     *                     {@code consumer} must then be discarded
+     */
+    public long load(Consumer<Transaction> consumer) throws IOException {
+        List<Long> lsns = snapshotLsns();
+        if (lsns.isEmpty()) {
+            return 0;
+        }
+        long lsn = lsns.get(lsns.size() - 1);
+        Path file = snapshotFile(lsn);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw corrupt(file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != lsn) {
+                throw corrupt(file);
+            }
+            long end = size - TRAILER_BYTES;
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, end, TRAILER_BYTES);
+            if (trailer.getInt() != END_OF_RECORDS) {
+                throw corrupt(file);
+            }
+            long expectedCount = trailer.getLong();
+            int expectedChecksum = trailer.getInt();
+
+            CRC32C crc = new CRC32C();
+            long count = 0;
+            long position = HEADER_BYTES;
+            while (position < end) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(WINDOW_BYTES, end - position));
+                int limit = window.limit();
+                int consumed = 0;
+                // A record that crosses the end of the window is read again at the start of the next one
+                while (consumed + Integer.BYTES <= limit) {
+                    int length = window.getInt(consumed);
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        throw corrupt(file);
+                    }
+                    if (consumed + Integer.BYTES + length > limit) {
+                        break;
+                    }
+                    try {
+                        consumer.accept(TransactionCodec.decode(window.slice(consumed + Integer.BYTES, length)));
+                    } catch (IllegalArgumentException e) {
+                        throw corrupt(file);
+                    }
+                    consumed += Integer.BYTES + length;
+                    count++;
+                }
+                if (consumed == 0) {
+                    throw corrupt(file);
+                }
+                crc.update(window.slice(0, consumed));
+                position += consumed;
+            }
+            if (count != expectedCount || (int) crc.getValue() != expectedChecksum) {
+                throw corrupt(file);
+            }
+        }
+        return lsn;
+    }
+
+    /**
+     * Writes {@code transactions} as the snapshot covering the log up to {@code lsn} and deletes older snapshots.
+     */
+    public void write(long lsn, Iterator<Transaction> transactions) throws IOException {
+        Path target = snapshotFile(lsn);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), WRITE_BUFFER_BYTES));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+
+            CRC32C crc = new CRC32C();
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            long count = 0;
+            while (transactions.hasNext()) {
+                byte[] record = TransactionCodec.encode(transactions.next());
+                length.clear();
+                length.putInt(record.length).flip();
+                crc.update(length);
+                crc.update(record);
+                out.writeInt(record.length);
+                out.write(record);
+                count++;
+            }
+            out.writeInt(END_OF_RECORDS);
+            out.writeLong(count);
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (long older : snapshotLsns()) {
+            if (older < lsn) {
+                Files.deleteIfExists(snapshotFile(older));
+            }
+        }
+    }
+
+    private Path snapshotFile(long lsn) {
+        return directory.resolve(String.format("snapshot-%020d.bin", lsn));
+    }
+
+    private List<Long> snapshotLsns() throws IOException {
+        List<Long> lsns = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = SNAPSHOT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    lsns.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        lsns.sort(null);
+        return lsns;
+    }
+
+    private static IOException corrupt(Path file) {
+        return new IOException("Snapshot " + file + " is corrupt");
+    }
+}
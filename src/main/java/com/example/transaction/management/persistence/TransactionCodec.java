@@ -0,0 +1,112 @@
+package com.example.transaction.management.persistence;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Fixed-order binary layout of a {@link Transaction}, shared by the write-ahead log and snapshots.
+ *
+ * <pre>
+ * id            16 bytes  (most, least significant bits)
+ * timestamp     12 bytes  (epoch seconds, nanos)
+ * type           1 byte   (ordinal, -1 for null)
+ * amount scale   4 bytes
+ * amount         2 bytes length (-1 for null) + unscaled two's-complement bytes
+ * description    4 bytes length (-1 for null) + UTF-8 bytes
+ * category       4 bytes length (-1 for null) + UTF-8 bytes
+ * version        8 bytes
+ * </pre>
+ *
+ * <p>Records written before versions were kept end after the category and decode as version 1.
+ */
+public final class TransactionCodec {
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final int FIXED_BYTES = 2 * Long.BYTES + Long.BYTES + Integer.BYTES + 1 + Integer.BYTES
+            + Short.BYTES + 2 * Integer.BYTES + Long.BYTES;
+
+    private TransactionCodec() {
+    }
+
+    public static byte[] encode(Transaction transaction) {
+        byte[] unscaled = transaction.getAmount() == null ? null : transaction.getAmount().unscaledValue().toByteArray();
+        byte[] description = utf8(transaction.getDescription());
+        byte[] category = utf8(transaction.getCategory());
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_BYTES + length(unscaled) + length(description) + length(category));
+        buffer.putLong(transaction.getId().getMostSignificantBits());
+        buffer.putLong(transaction.getId().getLeastSignificantBits());
+        buffer.putLong(transaction.getTimestamp().getEpochSecond());
+        buffer.putInt(transaction.getTimestamp().getNano());
+        buffer.put(transaction.getType() == null ? -1 : (byte) transaction.getType().ordinal());
+        buffer.putInt(transaction.getAmount() == null ? 0 : transaction.getAmount().scale());
+        buffer.putShort(unscaled == null ? -1 : (short) unscaled.length);
+        putBytes(buffer, unscaled);
+        buffer.putInt(description == null ? -1 : description.length);
+        putBytes(buffer, description);
+        buffer.putInt(category == null ? -1 : category.length);
+        putBytes(buffer, category);
+        buffer.putLong(transaction.getVersion() == null ? 1 : transaction.getVersion());
+        return buffer.array();
+    }
+
+    /**
+     * Reads one transaction starting at the buffer's position and advances past it. The buffer must end with
+     * the record, since a record without a version is recognized by its end.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static Transaction decode(ByteBuffer buffer) {
+        try {
+            Transaction transaction = new Transaction();
+            transaction.setId(new UUID(buffer.getLong(), buffer.getLong()));
+            transaction.setTimestamp(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()));
+            byte type = buffer.get();
+            transaction.setType(type < 0 ? null : TYPES[type]);
+            int scale = buffer.getInt();
+            byte[] unscaled = getBytes(buffer, buffer.getShort());
+            transaction.setAmount(unscaled == null ? null : new BigDecimal(new BigInteger(unscaled), scale));
+            transaction.setDescription(string(getBytes(buffer, buffer.getInt())));
+            transaction.setCategory(string(getBytes(buffer, buffer.getInt())));
+            transaction.setVersion(buffer.hasRemaining() ? buffer.getLong() : 1);
+            return transaction;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Corrupt transaction encoding", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer, int length) {
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,488 @@
+package com.example.transaction.management.persistence;
+
+import com.example.transaction.management.model.Transaction;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary log of repository writes with group commit.
+ *
+ * <p>Writers copy their record into an in-memory buffer and get back its log sequence number (the offset just
+ * past the record, counted across all segments). A single flusher thread swaps the buffer out, writes everything appended since the
+ * last swap in one call and, depending on the {@link FsyncPolicy}, forces it to disk. Under
+ * {@link FsyncPolicy#ALWAYS} callers wait in {@link #sync(long)} until their record is on disk, so concurrent
+ * writers share one fsync; with the other policies appending costs a buffer copy.
+ *
+ * <p>Each record is framed as {@code [payload length][CRC32C][op][payload]}. {@link #recover(long, Replayer)}
+ * replays every intact record and truncates a torn or corrupt tail left behind by a crash.
+ *
+ * <p>The log is split into segment files named after the LSN of their first record. {@link #rotate()} starts a
+ * new segment, so that once a snapshot covers everything before it the older segments can be deleted with
+ * {@link #deleteSegmentsBefore(long)} and recovery only replays the tail.
+ */
+public class WriteAheadLog implements Closeable {
+    public enum FsyncPolicy {
+        /** Fsync every group before acknowledging its writes. */
+        ALWAYS,
+        /** Fsync at most once per configured interval; a crash can lose the last interval of writes. */
+        INTERVAL,
+        /** Leave flushing to the operating system. */
+        NEVER
+    }
+
+    /**
+     * Receives the records of the log, in order, during recovery.
+     */
+    public interface Replayer {
+        void saved(Transaction transaction);
+
+        void deleted(UUID id);
+    }
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + 1;
+    private static final int MAX_PAYLOAD_BYTES = 64 * 1024 * 1024;
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+    // Single-file log written before segments were introduced; adopted as the first segment
+    private static final String LEGACY_FILE = "transactions.wal";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    // Guarded by lock
+    private ByteBuffer active;
+    private ByteBuffer spare;
+    // A record larger than the buffers, written on its own so that they keep their configured size
+    private ByteBuffer oversized;
+    private long appendedLsn;
+    private long writtenLsn;
+    private long syncedLsn;
+    private boolean closed;
+    private boolean rotateRequested;
+    private long segmentStart;
+    private IOException failure;
+    private Thread flusher;
+
+    // Segment currently appended to; only touched by recover() and then by the flusher
+    private FileChannel channel;
+
+    public WriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval, int bufferBytes) throws IOException {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.active = ByteBuffer.allocateDirect(bufferBytes);
+        this.spare = ByteBuffer.allocateDirect(bufferBytes);
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Replays every record from {@code fromLsn} on into {@code replayer}, drops any torn tail and starts
+     * accepting appends. {@code fromLsn} is 0 or an LSN returned by {@link #rotate()}.
+     * Must be called exactly once, before the first append.
+     */
+    public void recover(long fromLsn, Replayer replayer) throws IOException {
+        lock.lock();
+        try {
+            if (flusher != null) {
+                throw new IllegalStateException("Write-ahead log already recovered");
+            }
+            adoptLegacyFile();
+            long position = fromLsn;
+            List<Long> starts = segmentStarts();
+            for (int i = 0; i < starts.size(); i++) {
+                long start = starts.get(i);
+                boolean last = i == starts.size() - 1;
+                if (start < fromLsn) {
+                    // Covered by the snapshot, left behind by a crash before it could be deleted
+                    continue;
+                }
+                if (start != position) {
+                    throw new IOException("Write-ahead log segment missing between LSN " + position + " and " + start);
+                }
+                FileChannel segment = FileChannel.open(segmentFile(start), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                long valid = replay(segment, replayer);
+                position = start + valid;
+                if (!last) {
+                    if (valid < segment.size()) {
+                        segment.close();
+                        throw new IOException("Write-ahead log segment " + segmentFile(start) + " is corrupt at LSN " + position);
+                    }
+                    segment.close();
+                    continue;
+                }
+                if (valid < segment.size()) {
+                    segment.truncate(valid);
+                }
+                segment.position(valid);
+                channel = segment;
+                segmentStart = start;
+            }
+            if (channel == null) {
+                channel = openSegment(position);
+                segmentStart = position;
+            }
+            appendedLsn = position;
+            writtenLsn = position;
+            syncedLsn = position;
+            flusher = new Thread(this::flushLoop, "transaction-wal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendSave(byte[] encodedTransaction) {
+        return append(SAVE, encodedTransaction);
+    }
+
+    public long appendDelete(UUID id) {
+        byte[] payload = ByteBuffer.allocate(2 * Long.BYTES)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+        return append(DELETE, payload);
+    }
+
+    /**
+     * Waits until the record ending at {@code lsn} is as durable as the fsync policy promises to the caller:
+     * on disk for {@link FsyncPolicy#ALWAYS}, handed to the flusher otherwise.
+     */
+    public void sync(long lsn) {
+        lock.lock();
+        try {
+            checkFailure();
+            if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+                return;
+            }
+            while (syncedLsn < lsn) {
+                flushed.awaitUninterruptibly();
+                checkFailure();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment once everything appended so far is on disk, and directs later appends to a
+     * new one. Returns the LSN the new segment starts at: every record before it is durable.
+     */
+    public long rotate() {
+        lock.lock();
+        try {
+            checkOpen();
+            checkFailure();
+            rotateRequested = true;
+            pending.signal();
+            while (rotateRequested) {
+                flushed.awaitUninterruptibly();
+                checkFailure();
+            }
+            return segmentStart;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold records before {@code lsn}, an LSN returned by {@link #rotate()}.
+     */
+    public void deleteSegmentsBefore(long lsn) throws IOException {
+        long current;
+        lock.lock();
+        try {
+            current = segmentStart;
+        } finally {
+            lock.unlock();
+        }
+        for (long start : segmentStarts()) {
+            if (start < lsn && start < current) {
+                Files.deleteIfExists(segmentFile(start));
+            }
+        }
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flushes and fsyncs everything appended so far, then stops the flusher.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread running;
+        lock.lock();
+        try {
+            closed = true;
+            pending.signal();
+            running = flusher;
+        } finally {
+            lock.unlock();
+        }
+        if (running != null) {
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private long append(byte op, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(op);
+        crc.update(payload);
+        int size = HEADER_BYTES + payload.length;
+        lock.lock();
+        try {
+            checkOpen();
+            checkFailure();
+            // Backpressure: wait for the flusher to drain the buffer when this record does not fit, and for an
+            // oversized record to be taken so that records are written in LSN order
+            while ((active.remaining() < size && active.position() > 0) || oversized != null) {
+                pending.signal();
+                flushed.awaitUninterruptibly();
+                checkFailure();
+            }
+            ByteBuffer buffer = active;
+            if (active.capacity() < size) {
+                // Direct, as a heap buffer would leave a temporary direct copy of its size cached by the flusher
+                buffer = ByteBuffer.allocateDirect(size);
+                oversized = buffer;
+            }
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(op).put(payload);
+            appendedLsn += size;
+            pending.signal();
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        long lastSync = System.nanoTime();
+        while (true) {
+            ByteBuffer batch;
+            long target;
+            boolean closing;
+            boolean rotating;
+            lock.lock();
+            try {
+                while (active.position() == 0 && oversized == null && !closed && !rotateRequested) {
+                    if (fsyncPolicy == FsyncPolicy.INTERVAL && writtenLsn > syncedLsn) {
+                        long remaining = fsyncIntervalNanos - (System.nanoTime() - lastSync);
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        awaitPending(remaining);
+                    } else {
+                        awaitPending(TimeUnit.SECONDS.toNanos(1));
+                    }
+                }
+                if (oversized != null) {
+                    // Appends waited for it, so the buffer is still empty
+                    batch = oversized;
+                    oversized = null;
+                } else {
+                    batch = active;
+                    active = spare;
+                    spare = batch;
+                }
+                target = appendedLsn;
+                closing = closed;
+                rotating = rotateRequested;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                batch.clear();
+                long now = System.nanoTime();
+                boolean sync = closing
+                        || rotating
+                        || fsyncPolicy == FsyncPolicy.ALWAYS
+                        || (fsyncPolicy == FsyncPolicy.INTERVAL && now - lastSync >= fsyncIntervalNanos);
+                if (sync) {
+                    channel.force(false);
+                    lastSync = now;
+                }
+                // Nothing to rotate when the current segment is still empty
+                boolean rotated = rotating && !closing && target > segmentStart;
+                if (rotated) {
+                    channel.close();
+                    channel = openSegment(target);
+                }
+                lock.lock();
+                try {
+                    writtenLsn = target;
+                    if (sync) {
+                        syncedLsn = target;
+                    }
+                    if (rotated) {
+                        segmentStart = target;
+                    }
+                    if (rotating) {
+                        rotateRequested = false;
+                    }
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            if (closing) {
+                return;
+            }
+        }
+    }
+
+    private void awaitPending(long nanos) {
+        try {
+            pending.awaitNanos(nanos);
+        } catch (InterruptedException e) {
+            // Only close() stops the flusher
+        }
+    }
+
+    private void checkOpen() {
+        if (flusher == null || closed) {
+            throw new IllegalStateException("Write-ahead log is not open for appends");
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log in " + directory + " failed", failure);
+        }
+    }
+
+    private Path segmentFile(long start) {
+        return directory.resolve(String.format("wal-%020d.log", start));
+    }
+
+    private FileChannel openSegment(long start) throws IOException {
+        return FileChannel.open(segmentFile(start), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private List<Long> segmentStarts() throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    starts.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        starts.sort(null);
+        return starts;
+    }
+
+    private void adoptLegacyFile() throws IOException {
+        Path legacy = directory.resolve(LEGACY_FILE);
+        if (Files.exists(legacy) && segmentStarts().isEmpty()) {
+            Files.move(legacy, segmentFile(0));
+        }
+    }
+
+    // Returns the length of the intact prefix of the segment
+    private long replay(FileChannel segment, Replayer replayer) throws IOException {
+        long valid = 0;
+        segment.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(segment), READ_BUFFER_BYTES));
+        while (true) {
+            int length;
+            int checksum;
+            byte op;
+            byte[] payload;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                op = in.readByte();
+                if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+            } catch (EOFException e) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(op);
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum || !apply(op, payload, replayer)) {
+                break;
+            }
+            valid += HEADER_BYTES + length;
+        }
+        return valid;
+    }
+
+    private boolean apply(byte op, byte[] payload, Replayer replayer) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (op == SAVE) {
+            Transaction transaction;
+            try {
+                transaction = TransactionCodec.decode(buffer);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            replayer.saved(transaction);
+            return true;
+        }
+        if (op == DELETE && payload.length == 2 * Long.BYTES) {
+            replayer.deleted(new UUID(buffer.getLong(), buffer.getLong()));
+            return true;
+        }
+        return false;
+    }
+}
@@ -1,44 +1,685 @@
 package com.example.transaction.management.repository;
 
+import com.example.transaction.management.model.StatsInterval;
 import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.PartitionArchive;
+import com.example.transaction.management.persistence.SnapshotStore;
+import com.example.transaction.management.persistence.TransactionCodec;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Repository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
+/**
+ * Keeps transactions in memory, partitioned by the UTC hour or day of their timestamp. Each partition has its own
+ * ordered indexes and aggregates, so that retention drops a partition by unlinking it, whatever its size. Reads
+ * walk the partitions newest first and see one store.
+ */
 @Repository
+@ConditionalOnExpression("'${transaction.repository.type:memory}' == 'memory' and ${transaction.repository.shards:1} == 1")
 public class InMemoryTransactionRepository implements TransactionRepository {
-    private final Map<UUID, Transaction> transactions = new ConcurrentHashMap<>();
+    public static final StatsInterval DEFAULT_PARTITION = StatsInterval.DAY;
+
+    // Newest first; ties on timestamp are broken by id so every key is unique
+    private static final Comparator<IndexKey> NEWEST_FIRST = Comparator
+            .comparing(IndexKey::timestamp, Comparator.reverseOrder())
+            .thenComparing(IndexKey::id);
+
+    // Sorts after every real id with the same timestamp, for range bounds
+    private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    // Power of two, so a stripe can be picked with a mask
+    private static final int WRITE_LOCK_STRIPES = 256;
+
+    // Returned instead of an LSN by a conditional write whose version did not match
+    private static final long VERSION_MISMATCH = -1;
+
+    // Entries of dropped partitions count as absent until they are removed from here
+    private final Map<UUID, Entry> transactions = new ConcurrentHashMap<>();
+    // Keyed by start in epoch seconds, newest first
+    private final ConcurrentNavigableMap<Long, Partition> partitions = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+    private final long partitionSeconds;
+    // The partition last written to, which most writes go to again
+    private volatile Partition recent;
+    // Serializes retention; a lock rather than a monitor, since archiving blocks on file I/O
+    private final ReentrantLock retentionLock = new ReentrantLock();
+    // Null unless persistence is enabled
+    private final WriteAheadLog wal;
+    private final SnapshotStore snapshots;
+    // Logged writes hold the read lock from log append to index update; a checkpoint takes the write lock to
+    // rotate the log, so no write can be in the old segment without being visible to the snapshot
+    private final ReentrantReadWriteLock checkpointBarrier = new ReentrantReadWriteLock();
+    // Logged writes to one id are serialized by its stripe, so the log order matches the order they were
+    // applied in. The append may block on a full log buffer, which inside the map's synchronized compute
+    // would pin the carrier of a virtual thread; a ReentrantLock does not.
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
+    // Serializes checkpoints; a lock rather than a monitor, since a checkpoint blocks on file I/O
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    // LSN covered by the newest snapshot; guarded by checkpointLock
+    private long snapshotLsn;
+
+    public InMemoryTransactionRepository() {
+        this(DEFAULT_PARTITION);
+    }
+
+    public InMemoryTransactionRepository(StatsInterval partition) {
+        this((WriteAheadLog) null, null, partition);
+    }
+
+    @Autowired
+    public InMemoryTransactionRepository(ObjectProvider<WriteAheadLog> wal, ObjectProvider<SnapshotStore> snapshots,
+                                         @Value("${transaction.retention.partition:DAY}") StatsInterval partition) {
+        this(wal.getIfAvailable(), snapshots.getIfAvailable(), partition);
+    }
+
+    /**
+     * Rebuilds the store from {@code wal} and logs every later write to it.
+     */
+    public InMemoryTransactionRepository(WriteAheadLog wal) {
+        this(wal, null);
+    }
+
+    /**
+     * Rebuilds the store from the newest snapshot in {@code snapshots} plus the tail of {@code wal} after it,
+     * and logs every later write to {@code wal}.
+     */
+    public InMemoryTransactionRepository(WriteAheadLog wal, SnapshotStore snapshots) {
+        this(wal, snapshots, DEFAULT_PARTITION);
+    }
+
+    /**
+     * Like {@link #InMemoryTransactionRepository(WriteAheadLog, SnapshotStore)}, with transactions partitioned by
+     * {@code partition}; either may be {@code null} to keep the store in memory only.
+     */
+    public InMemoryTransactionRepository(WriteAheadLog wal, SnapshotStore snapshots, StatsInterval partition) {
+        this.partitionSeconds = partition.getSeconds();
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+        this.wal = wal;
+        this.snapshots = wal == null ? null : snapshots;
+        if (wal != null) {
+            try {
+                if (this.snapshots != null) {
+                    snapshotLsn = this.snapshots.load(this::restore);
+                }
+                wal.recover(snapshotLsn, new WriteAheadLog.Replayer() {
+                    @Override
+                    public void saved(Transaction transaction) {
+                        restore(transaction);
+                    }
+
+                    @Override
+                    public void deleted(UUID id) {
+                        remove(id, false, null);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to recover transactions from " + wal.getDirectory(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the store and deletes the log segments it makes redundant, so that the next startup
+     * only replays writes made after this call. Writes are held back only while the log is rotated; the
+     * snapshot itself is taken from the live index. Does nothing when nothing was written since the last
+     * snapshot. Returns the LSN the snapshot covers.
+     */
+    public long checkpoint() {
+        return checkpoint(false);
+    }
+
+    // Forced after retention, which drops transactions from the snapshot without writing to the log
+    private long checkpoint(boolean force) {
+        if (snapshots == null) {
+            throw new IllegalStateException("Snapshots are not enabled");
+        }
+        checkpointLock.lock();
+        try {
+            long lsn;
+            checkpointBarrier.writeLock().lock();
+            try {
+                lsn = wal.rotate();
+            } finally {
+                checkpointBarrier.writeLock().unlock();
+            }
+            if (lsn == snapshotLsn && !force) {
+                return lsn;
+            }
+            // Entries changed while the index is walked may be captured in either state, or twice; the
+            // log from lsn on holds every such change and is replayed over the snapshot
+            try {
+                snapshots.write(lsn, iterate(null, null));
+                wal.deleteSegmentsBefore(lsn);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write a snapshot to " + wal.getDirectory(), e);
+            }
+            snapshotLsn = lsn;
+            return lsn;
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
 
     @Override
     public Transaction save(Transaction transaction) {
-        if (transaction.getId() == null) {
-            transaction.setId(UUID.randomUUID());
+        long lsn = prepareAndStore(transaction, null);
+        if (wal != null) {
+            wal.sync(lsn);
         }
-        if (transaction.getTimestamp() == null) {
-            transaction.setTimestamp(java.time.Instant.now());
-        }
-        transactions.put(transaction.getId(), transaction);
         return transaction;
     }
 
+    @Override
+    public boolean saveIfVersion(Transaction transaction, long expectedVersion) {
+        long lsn = prepareAndStore(transaction, expectedVersion);
+        if (lsn == VERSION_MISMATCH) {
+            return false;
+        }
+        if (wal != null) {
+            wal.sync(lsn);
+        }
+        return true;
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // One sync for the whole batch, so it shares a single group commit
+        long lsn = 0;
+        for (Transaction transaction : transactions) {
+            lsn = Math.max(lsn, prepareAndStore(transaction, null));
+        }
+        if (wal != null) {
+            wal.sync(lsn);
+        }
+        return transactions;
+    }
+
     @Override
     public Optional<Transaction> findById(UUID id) {
-        return Optional.ofNullable(transactions.get(id));
+        Entry entry = live(transactions.get(id));
+        return entry == null ? Optional.empty() : Optional.of(entry.transaction());
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (Partition partition : partitions.values()) {
+            count += partition.size.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        // Partitions that end before the offset are skipped by their size, so only the one the page starts in
+        // is walked to it
+        long skip = (long) page * size;
+        List<Transaction> result = new ArrayList<>(Math.min(size, 1024));
+        for (Partition partition : partitions.values()) {
+            long partitionSize = partition.size.sum();
+            if (skip > 0 && skip >= partitionSize) {
+                skip -= partitionSize;
+                continue;
+            }
+            Iterator<Transaction> transactions = partition.byTimestamp.values().iterator();
+            for (; skip > 0 && transactions.hasNext(); skip--) {
+                transactions.next();
+            }
+            while (result.size() < size && transactions.hasNext()) {
+                result.add(transactions.next());
+            }
+            if (result.size() == size) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Transaction> findAfter(TransactionCursor cursor, int size) {
+        List<Transaction> result = new ArrayList<>(Math.min(size, 1024));
+        Iterator<Transaction> remaining = scan(partition -> partition.byTimestamp, null, null, cursor);
+        while (result.size() < size && remaining.hasNext()) {
+            result.add(remaining.next());
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Transaction> iterate(Instant from, Instant to) {
+        return scan(partition -> partition.byTimestamp, from, to, null);
     }
 
     @Override
-    public List<Transaction> findAll(int page, int size) {        
-        List<Transaction> snapshot = new ArrayList<>(transactions.values());
-        return snapshot.stream()
-                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed())
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+    public List<Transaction> query(TransactionQuery query, TransactionCursor cursor, int size) {
+        // Walk the narrowest index the query pins down; a category usually selects fewer
+        // transactions than one of the three types. Every index is restricted to the time range.
+        Function<Partition, ConcurrentNavigableMap<IndexKey, Transaction>> index;
+        if (query.category() != null) {
+            index = partition -> partition.byCategory.get(query.category());
+        } else if (query.type() != null) {
+            index = partition -> partition.byType.get(query.type());
+        } else {
+            index = partition -> partition.byTimestamp;
+        }
+        List<Transaction> matches = new ArrayList<>(Math.min(size, 1024));
+        Iterator<Transaction> candidates = scan(index, query.from(), query.to(), cursor);
+        while (matches.size() < size && candidates.hasNext()) {
+            Transaction candidate = candidates.next();
+            if (query.matches(candidate)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public List<TransactionStats> stats(StatsInterval interval, TransactionType type, String category,
+                                        Instant from, Instant to) {
+        Map<StatsAccumulator.Key, StatsAccumulator> buckets = new HashMap<>();
+        for (Partition partition : partitionsBetween(from == null ? null : interval.floor(from),
+                to == null ? null : interval.ceil(to)).values()) {
+            partition.aggregates.collect(interval, type, category, from, to, buckets);
+        }
+        return StatsAccumulator.toList(buckets);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A partition is dropped by unlinking it, which takes constant time; its transactions are then removed
+     * from the id map, which is what lets them be collected. It is unlinked before it is archived, so a write
+     * racing the drop either is in the partition when it is archived, or goes to a new partition for the same
+     * interval and is kept until the next run; it may be both. A partition that fails to archive is moved back
+     * into the store. When snapshots are enabled, a checkpoint follows, so that the dropped transactions leave
+     * the snapshot and the log; otherwise, replaying the log at startup restores them until retention drops them
+     * again.
+     */
+    @Override
+    public long dropBefore(Instant cutoff, PartitionArchive archive) throws IOException {
+        retentionLock.lock();
+        try {
+            long dropped = 0;
+            try {
+                // Oldest first; every partition that starts before the one holding cutoff ends at or before it
+                for (Partition partition : partitions.tailMap(partitionStart(cutoff), false).descendingMap().values()) {
+                    partition.dropped = true;
+                    partitions.remove(partition.start, partition);
+                    if (archive != null) {
+                        try {
+                            archive.write(Instant.ofEpochSecond(partition.start),
+                                    Instant.ofEpochSecond(partition.start + partitionSeconds),
+                                    partition.byTimestamp.values().iterator());
+                        } catch (IOException | RuntimeException e) {
+                            relink(partition);
+                            throw e;
+                        }
+                    }
+                    dropped += sweep(partition);
+                }
+            } finally {
+                if (dropped > 0 && snapshots != null) {
+                    checkpoint(true);
+                }
+            }
+            return dropped;
+        } finally {
+            retentionLock.unlock();
+        }
     }
 
     @Override
     public void deleteById(UUID id) {
-        transactions.remove(id);
+        long lsn = remove(id, wal != null, null);
+        if (wal != null) {
+            wal.sync(lsn);
+        }
+    }
+
+    @Override
+    public boolean deleteIfVersion(UUID id, long expectedVersion) {
+        long lsn = remove(id, wal != null, expectedVersion);
+        if (lsn == VERSION_MISMATCH) {
+            return false;
+        }
+        if (wal != null) {
+            wal.sync(lsn);
+        }
+        return true;
+    }
+
+    @Override
+    public void deleteAllById(Collection<UUID> ids) {
+        long lsn = 0;
+        for (UUID id : ids) {
+            lsn = Math.max(lsn, remove(id, wal != null, null));
+        }
+        if (wal != null) {
+            wal.sync(lsn);
+        }
+    }
+
+    // Lazily walks the range of the index picked by 'index' in each partition that may hold part of it, newest
+    // partition first. Partitions without such an index, as for a category they never saw, are passed over.
+    private Iterator<Transaction> scan(Function<Partition, ConcurrentNavigableMap<IndexKey, Transaction>> index,
+                                       Instant from, Instant to, TransactionCursor cursor) {
+        Instant newest = to;
+        if (cursor != null && (newest == null || cursor.timestamp().isBefore(newest))) {
+            newest = cursor.timestamp();
+        }
+        Iterator<Partition> remaining = partitionsBetween(from, newest).values().iterator();
+        return new Iterator<>() {
+            private Iterator<Transaction> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && remaining.hasNext()) {
+                    ConcurrentNavigableMap<IndexKey, Transaction> candidates = index.apply(remaining.next());
+                    if (candidates != null) {
+                        current = range(candidates, from, to, cursor).values().iterator();
+                    }
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    // Partitions that may hold timestamps from 'from' up to 'to', either bound inclusive
+    private NavigableMap<Long, Partition> partitionsBetween(Instant from, Instant to) {
+        if (from != null && to != null) {
+            long newest = partitionStart(to);
+            long oldest = partitionStart(from);
+            return newest < oldest ? Collections.emptyNavigableMap() : partitions.subMap(newest, true, oldest, true);
+        }
+        if (to != null) {
+            return partitions.tailMap(partitionStart(to), true);
+        }
+        return from != null ? partitions.headMap(partitionStart(from), true) : partitions;
+    }
+
+    private long partitionStart(Instant timestamp) {
+        return Math.floorDiv(timestamp.getEpochSecond(), partitionSeconds) * partitionSeconds;
+    }
+
+    private Partition partitionFor(Instant timestamp) {
+        long start = partitionStart(timestamp);
+        Partition partition = recent;
+        if (partition == null || partition.start != start || partition.dropped) {
+            partition = partitions.computeIfAbsent(start, Partition::new);
+            if (partition.dropped) {
+                // Retention is about to unlink it; its interval starts over in a new partition
+                partition = partitions.compute(start,
+                        (key, current) -> current == null || current.dropped ? new Partition(key) : current);
+            }
+            recent = partition;
+        }
+        return partition;
+    }
+
+    // Removes the transactions of a dropped partition from the id map and returns how many there were. A write
+    // that indexed into the partition before it was dropped is in byTimestamp by now, and holds its id's entry
+    // until it has moved to a new partition or is visible here.
+    private long sweep(Partition partition) {
+        long[] removed = {0};
+        for (IndexKey key : partition.byTimestamp.keySet()) {
+            transactions.computeIfPresent(key.id(), (id, entry) -> {
+                if (entry.partition() != partition) {
+                    return entry;
+                }
+                removed[0]++;
+                return null;
+            });
+        }
+        return removed[0];
+    }
+
+    // Moves the transactions of a dropped partition back into the live partition for its interval
+    private void relink(Partition partition) {
+        for (IndexKey key : partition.byTimestamp.keySet()) {
+            transactions.computeIfPresent(key.id(), (id, entry) -> entry.partition() == partition
+                    ? replace(null, entry.key(), entry.transaction())
+                    : entry);
+        }
+    }
+
+    // Newest-first order: the newest timestamp below 'to' (or after the cursor) starts the range, 'from' ends it
+    private ConcurrentNavigableMap<IndexKey, Transaction> range(ConcurrentNavigableMap<IndexKey, Transaction> index,
+                                                                Instant from, Instant to, TransactionCursor cursor) {
+        IndexKey start = to == null ? null : new IndexKey(to, MAX_ID);
+        if (cursor != null) {
+            IndexKey after = new IndexKey(cursor.timestamp(), cursor.id());
+            if (start == null || NEWEST_FIRST.compare(after, start) > 0) {
+                start = after;
+            }
+        }
+        IndexKey end = from == null ? null : new IndexKey(from, MAX_ID);
+        if (start != null && end != null) {
+            return NEWEST_FIRST.compare(start, end) > 0
+                    ? new ConcurrentSkipListMap<>(NEWEST_FIRST)
+                    : index.subMap(start, false, end, true);
+        }
+        if (start != null) {
+            return index.tailMap(start, false);
+        }
+        return end != null ? index.headMap(end, true) : index;
+    }
+
+    private long prepareAndStore(Transaction transaction, Long expectedVersion) {
+        if (transaction.getId() == null) {
+            transaction.setId(UUID.randomUUID());
+        }
+        if (transaction.getTimestamp() == null) {
+            transaction.setTimestamp(Instant.now());
+        }
+        return store(transaction, expectedVersion);
+    }
+
+    // Applies a save with the next version of its id and, when persistence is enabled, appends it to the log
+    // under the id's write lock first. Unless expectedVersion is null, the save only happens if the stored
+    // transaction is at that version. Returns the record's LSN, 0 when nothing was logged, or VERSION_MISMATCH.
+    private long store(Transaction transaction, Long expectedVersion) {
+        // The index key is captured at write time so that later mutation of the
+        // caller's instance cannot strand an entry in the ordered index.
+        IndexKey key = new IndexKey(transaction.getTimestamp(), transaction.getId());
+        if (wal == null) {
+            Entry stored = transactions.compute(transaction.getId(), (id, current) -> {
+                Entry previous = live(current);
+                if (!matches(previous, expectedVersion)) {
+                    return current;
+                }
+                transaction.setVersion(nextVersion(previous));
+                return replace(previous, key, transaction);
+            });
+            // Only an entry made by this call holds this call's key
+            return stored != null && stored.key() == key ? 0 : VERSION_MISMATCH;
+        }
+        ReentrantLock lock = writeLockFor(transaction.getId());
+        checkpointBarrier.readLock().lock();
+        lock.lock();
+        try {
+            // Every logged write to the id holds its lock, so the stored version cannot change before the save
+            Entry previous = live(transactions.get(transaction.getId()));
+            if (!matches(previous, expectedVersion)) {
+                return VERSION_MISMATCH;
+            }
+            transaction.setVersion(nextVersion(previous));
+            long lsn = wal.appendSave(TransactionCodec.encode(transaction));
+            transactions.compute(transaction.getId(), (id, current) -> replace(live(current), key, transaction));
+            return lsn;
+        } finally {
+            lock.unlock();
+            checkpointBarrier.readLock().unlock();
+        }
+    }
+
+    // Applies a save read back from a snapshot or the log, keeping its version
+    private void restore(Transaction transaction) {
+        IndexKey key = new IndexKey(transaction.getTimestamp(), transaction.getId());
+        transactions.compute(transaction.getId(), (id, previous) -> replace(live(previous), key, transaction));
+    }
+
+    // Same contract as store, for deletes
+    private long remove(UUID id, boolean log, Long expectedVersion) {
+        if (!log) {
+            boolean[] removed = {false};
+            transactions.computeIfPresent(id, (key, current) -> {
+                Entry previous = live(current);
+                if (previous == null) {
+                    return null;
+                }
+                if (!matches(previous, expectedVersion)) {
+                    return previous;
+                }
+                unindex(previous);
+                removed[0] = true;
+                return null;
+            });
+            return removed[0] || expectedVersion == null ? 0 : VERSION_MISMATCH;
+        }
+        ReentrantLock lock = writeLockFor(id);
+        checkpointBarrier.readLock().lock();
+        lock.lock();
+        try {
+            Entry previous = live(transactions.get(id));
+            if (!matches(previous, expectedVersion)) {
+                return VERSION_MISMATCH;
+            }
+            // Deletes of unknown ids are not logged
+            if (previous == null) {
+                return 0;
+            }
+            long lsn = wal.appendDelete(id);
+            transactions.computeIfPresent(id, (key, current) -> {
+                unindex(current);
+                return null;
+            });
+            return lsn;
+        } finally {
+            lock.unlock();
+            checkpointBarrier.readLock().unlock();
+        }
+    }
+
+    private Entry replace(Entry previous, IndexKey key, Transaction transaction) {
+        if (previous != null) {
+            unindex(previous);
+        }
+        while (true) {
+            Entry entry = new Entry(partitionFor(key.timestamp()), key, transaction.getType(), transaction.getCategory(), transaction.getAmount(),
+                    transaction.getVersion(), transaction);
+            index(entry);
+            // Retention marks a partition dropped before it archives or sweeps it, so an entry indexed while the
+            // flag was still clear is seen by both; one indexed after is moved to the interval's new partition
+            if (!entry.partition().dropped) {
+                return entry;
+            }
+            unindex(entry);
+        }
+    }
+
+    private static Entry live(Entry entry) {
+        return entry == null || entry.partition().dropped ? null : entry;
+    }
+
+    private static boolean matches(Entry stored, Long expectedVersion) {
+        return expectedVersion == null || stored != null && stored.version() == expectedVersion;
+    }
+
+    private static long nextVersion(Entry previous) {
+        return previous == null ? 1 : previous.version() + 1;
+    }
+
+    private ReentrantLock writeLockFor(UUID id) {
+        int hash = id.hashCode();
+        hash ^= hash >>> 16;
+        return writeLocks[hash & (writeLocks.length - 1)];
+    }
+
+    private static void index(Entry entry) {
+        Partition partition = entry.partition();
+        partition.byTimestamp.put(entry.key(), entry.transaction());
+        if (entry.type() != null) {
+            partition.byType.get(entry.type()).put(entry.key(), entry.transaction());
+        }
+        if (entry.category() != null) {
+            partition.byCategory.computeIfAbsent(entry.category(), category -> new ConcurrentSkipListMap<>(NEWEST_FIRST))
+                    .put(entry.key(), entry.transaction());
+        }
+        partition.aggregates.add(entry.key().id(), entry.key().timestamp(), entry.type(), entry.category(), entry.amount());
+        partition.size.increment();
+    }
+
+    private static void unindex(Entry entry) {
+        Partition partition = entry.partition();
+        partition.byTimestamp.remove(entry.key());
+        if (entry.type() != null) {
+            partition.byType.get(entry.type()).remove(entry.key());
+        }
+        if (entry.category() != null) {
+            partition.byCategory.get(entry.category()).remove(entry.key());
+        }
+        partition.aggregates.retract(entry.key().id(), entry.key().timestamp(), entry.type(), entry.category(), entry.amount());
+        partition.size.decrement();
+    }
+
+    // The transactions timestamped in one partition interval. The secondary indexes are in the same order as
+    // byTimestamp: one posting map per type and per category. Category postings are kept once created, so that
+    // adding to one never races with its removal. The aggregates are updated with the indexes, so writes to one
+    // id reach them in order.
+    private static final class Partition {
+        private final long start;
+        private final ConcurrentNavigableMap<IndexKey, Transaction> byTimestamp = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+        private final Map<TransactionType, ConcurrentNavigableMap<IndexKey, Transaction>> byType = new EnumMap<>(TransactionType.class);
+        private final ConcurrentMap<String, ConcurrentNavigableMap<IndexKey, Transaction>> byCategory = new ConcurrentHashMap<>();
+        private final TransactionAggregates aggregates = new TransactionAggregates();
+        private final LongAdder size = new LongAdder();
+        // Set by retention before the partition is unlinked; its entries count as deleted from then on
+        private volatile boolean dropped;
+
+        Partition(long start) {
+            this.start = start;
+            for (TransactionType type : TransactionType.values()) {
+                byType.put(type, new ConcurrentSkipListMap<>(NEWEST_FIRST));
+            }
+        }
+    }
+
+    private record IndexKey(Instant timestamp, UUID id) {
+    }
+
+    // Type, category and amount are captured like the key, so the entry can always be found in their indexes
+    // and retracted from the aggregates it was added to; the version is captured so it can be compared. The
+    // partition is the one the key was indexed in.
+    private record Entry(Partition partition, IndexKey key, TransactionType type, String category,
+                         BigDecimal amount, long version, Transaction transaction) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,288 @@
+package com.example.transaction.management.repository;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.PartitionArchive;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Partitions transactions across independent shard repositories by a hash of their id. Point reads and writes
+ * go to the one shard that owns the id, so writes to different shards never contend on the same map, lock
+ * or index. Listings are a k-way merge of the shards' newest-first orders, and statistics add up the buckets
+ * of every shard.
+ *
+ * <p>Any {@link TransactionRepository} can serve as a shard. Offset pages merge every row before the page,
+ * so deep pages cost more than on a single store whose index can seek to an offset; cursor pages and queries
+ * only merge one page from each shard. Selected with {@code transaction.repository.shards} greater than 1.
+ */
+public class ShardedTransactionRepository implements TransactionRepository {
+    // Newest first, ties broken by id: the order of every shard's listings
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+            .comparing(Transaction::getTimestamp, Comparator.reverseOrder())
+            .thenComparing(Transaction::getId);
+
+    // 2^64 divided by the golden ratio; multiplying by it spreads any bits of the id into the top of the product
+    private static final long FIBONACCI_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final TransactionRepository[] shards;
+
+    public ShardedTransactionRepository(List<? extends TransactionRepository> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = shards.toArray(new TransactionRepository[0]);
+    }
+
+    /**
+     * Number of shards.
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        return shardFor(assignId(transaction)).save(transaction);
+    }
+
+    @Override
+    public boolean saveIfVersion(Transaction transaction, long expectedVersion) {
+        return shardFor(assignId(transaction)).saveIfVersion(transaction, expectedVersion);
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        // One saveAll per shard, so shards that batch their writes still get a single batch
+        List<List<Transaction>> groups = group(transactions, ShardedTransactionRepository::assignId);
+        boolean stored = false;
+        for (int i = 0; i < shards.length; i++) {
+            if (!groups.get(i).isEmpty()) {
+                try {
+                    shards[i].saveAll(groups.get(i));
+                } catch (IllegalArgumentException e) {
+                    throw TransactionRepository.partlySaved(!stored, e);
+                }
+                stored = true;
+            }
+        }
+        return transactions;
+    }
+
+    @Override
+    public Optional<Transaction> findById(UUID id) {
+        return shardFor(id).findById(id);
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (TransactionRepository shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        // Each shard is read a page at a time through its cursor seek, which materializes no more rows than the
+        // merge consumes; shard iterators may read ahead in larger batches
+        List<Iterator<Transaction>> sources = new ArrayList<>(shards.length);
+        for (TransactionRepository shard : shards) {
+            sources.add(new PagingIterator(shard, size));
+        }
+        Iterator<Transaction> merged = new MergingIterator(sources);
+        for (long skip = (long) page * size; skip > 0 && merged.hasNext(); skip--) {
+            merged.next();
+        }
+        return take(merged, size);
+    }
+
+    @Override
+    public List<Transaction> findAfter(TransactionCursor cursor, int size) {
+        List<Iterator<Transaction>> pages = new ArrayList<>(shards.length);
+        for (TransactionRepository shard : shards) {
+            pages.add(shard.findAfter(cursor, size).iterator());
+        }
+        return take(new MergingIterator(pages), size);
+    }
+
+    @Override
+    public Iterator<Transaction> iterate(Instant from, Instant to) {
+        List<Iterator<Transaction>> sources = new ArrayList<>(shards.length);
+        for (TransactionRepository shard : shards) {
+            sources.add(shard.iterate(from, to));
+        }
+        return new MergingIterator(sources);
+    }
+
+    @Override
+    public List<Transaction> query(TransactionQuery query, TransactionCursor cursor, int size) {
+        List<Iterator<Transaction>> pages = new ArrayList<>(shards.length);
+        for (TransactionRepository shard : shards) {
+            pages.add(shard.query(query, cursor, size).iterator());
+        }
+        return take(new MergingIterator(pages), size);
+    }
+
+    @Override
+    public List<TransactionStats> stats(StatsInterval interval, TransactionType type, String category,
+                                        Instant from, Instant to) {
+        // Buckets are aligned to the interval on every shard, so the same bucket has the same key everywhere
+        Map<StatsAccumulator.Key, StatsAccumulator> buckets = new HashMap<>();
+        for (TransactionRepository shard : shards) {
+            for (TransactionStats stats : shard.stats(interval, type, category, from, to)) {
+                buckets.computeIfAbsent(
+                        new StatsAccumulator.Key(stats.start().getEpochSecond(), stats.type(), stats.category()),
+                        key -> new StatsAccumulator()).merge(stats.count(), stats.sum(), stats.min(), stats.max());
+            }
+        }
+        return StatsAccumulator.toList(buckets);
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        shardFor(id).deleteById(id);
+    }
+
+    @Override
+    public boolean deleteIfVersion(UUID id, long expectedVersion) {
+        return shardFor(id).deleteIfVersion(id, expectedVersion);
+    }
+
+    @Override
+    public void deleteAllById(Collection<UUID> ids) {
+        List<List<UUID>> groups = group(ids, id -> id);
+        for (int i = 0; i < shards.length; i++) {
+            if (!groups.get(i).isEmpty()) {
+                shards[i].deleteAllById(groups.get(i));
+            }
+        }
+    }
+
+    @Override
+    public long dropBefore(Instant cutoff, PartitionArchive archive) throws IOException {
+        // Every shard archives its own part of a partition, in a file of its own
+        long dropped = 0;
+        for (TransactionRepository shard : shards) {
+            dropped += shard.dropBefore(cutoff, archive);
+        }
+        return dropped;
+    }
+
+    // Shards pick a lock stripe or hash bucket from the low bits of the id's hash, and every id in one shard
+    // would share them if the shard were picked from the same bits; the top bits of the product are used instead
+    private int shardIndex(UUID id) {
+        long hash = (id.getMostSignificantBits() ^ id.getLeastSignificantBits()) * FIBONACCI_MULTIPLIER;
+        return (int) (((hash >>> 32) * shards.length) >>> 32);
+    }
+
+    private TransactionRepository shardFor(UUID id) {
+        return shards[shardIndex(id)];
+    }
+
+    // The id decides the shard, so it is assigned here rather than by the shard
+    private static UUID assignId(Transaction transaction) {
+        if (transaction.getId() == null) {
+            transaction.setId(UUID.randomUUID());
+        }
+        return transaction.getId();
+    }
+
+    private <T> List<List<T>> group(Collection<T> items, Function<T, UUID> id) {
+        List<List<T>> groups = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            groups.get(shardIndex(id.apply(item))).add(item);
+        }
+        return groups;
+    }
+
+    private static List<Transaction> take(Iterator<Transaction> transactions, int size) {
+        List<Transaction> page = new ArrayList<>(Math.min(size, 1024));
+        while (page.size() < size && transactions.hasNext()) {
+            page.add(transactions.next());
+        }
+        return page;
+    }
+
+    /**
+     * Merges iterators that are each newest first into one newest-first iterator, holding the next transaction
+     * of every source in a heap. Only pulls from a source when its previous transaction was returned, so it is
+     * as lazy and as weakly consistent as the sources.
+     */
+    private static final class MergingIterator implements Iterator<Transaction> {
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<Iterator<Transaction>> sources) {
+            heads = new PriorityQueue<>(Math.max(sources.size(), 1),
+                    (left, right) -> NEWEST_FIRST.compare(left.next(), right.next()));
+            for (Iterator<Transaction> source : sources) {
+                if (source.hasNext()) {
+                    heads.add(new Head(source.next(), source));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest().hasNext()) {
+                heads.add(new Head(head.rest().next(), head.rest()));
+            }
+            return head.next();
+        }
+    }
+
+    /**
+     * Walks one repository newest first through {@link TransactionRepository#findAfter} pages of a fixed size.
+     */
+    private static final class PagingIterator implements Iterator<Transaction> {
+        private final TransactionRepository repository;
+        private final int pageSize;
+        private List<Transaction> page;
+        private int position;
+
+        PagingIterator(TransactionRepository repository, int pageSize) {
+            this.repository = repository;
+            this.pageSize = Math.max(pageSize, 1);
+            this.page = repository.findAfter(null, this.pageSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position == page.size() && page.size() == pageSize) {
+                page = repository.findAfter(TransactionCursor.of(page.get(position - 1)), pageSize);
+                position = 0;
+            }
+            return position < page.size();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(position++);
+        }
+    }
+
+    private record Head(Transaction next, Iterator<Transaction> rest) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.transaction.management.repository;
+
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running count, sum, min and max of the amounts in one statistics bucket. Transactions without an amount are
+ * counted but do not contribute to the other aggregates. Not thread safe.
+ */
+final class StatsAccumulator {
+    // Newest bucket first, like every other listing; then by type and category, missing values last
+    private static final Comparator<Map.Entry<Key, StatsAccumulator>> ORDER = Comparator
+            .comparing((Map.Entry<Key, StatsAccumulator> entry) -> entry.getKey().start(), Comparator.reverseOrder())
+            .thenComparing(entry -> entry.getKey().type(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(entry -> entry.getKey().category(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private long count;
+    private BigDecimal sum = BigDecimal.ZERO;
+    private BigDecimal min;
+    private BigDecimal max;
+
+    void add(BigDecimal amount) {
+        merge(1, amount == null ? BigDecimal.ZERO : amount, amount, amount);
+    }
+
+    void merge(long count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+        this.count += count;
+        this.sum = this.sum.add(sum);
+        if (min != null && (this.min == null || min.compareTo(this.min) < 0)) {
+            this.min = min;
+        }
+        if (max != null && (this.max == null || max.compareTo(this.max) > 0)) {
+            this.max = max;
+        }
+    }
+
+    /**
+     * Lists the non-empty buckets, newest first.
+     */
+    static List<TransactionStats> toList(Map<Key, StatsAccumulator> buckets) {
+        List<TransactionStats> stats = new ArrayList<>(buckets.size());
+        buckets.entrySet().stream()
+                .filter(entry -> entry.getValue().count > 0)
+                .sorted(ORDER)
+                .forEach(entry -> {
+                    Key key = entry.getKey();
+                    StatsAccumulator bucket = entry.getValue();
+                    stats.add(new TransactionStats(Instant.ofEpochSecond(key.start()), key.type(), key.category(),
+                            bucket.count, bucket.sum, bucket.min, bucket.max));
+                });
+        return stats;
+    }
+
+    /**
+     * Identifies a bucket by the epoch second it starts at, and the type and category it covers.
+     */
+    record Key(long start, TransactionType type, String category) {
+    }
+}
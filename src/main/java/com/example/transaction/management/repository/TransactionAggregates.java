@@ -0,0 +1,135 @@
+package com.example.transaction.management.repository;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.TransactionType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Count, sum, min and max of the amounts per hour, type and category, maintained on every write so that
+ * statistics are read in time proportional to the number of buckets rather than the number of transactions.
+ *
+ * <p>Like a {@link java.util.concurrent.atomic.LongAdder}, each bucket is split into cells that are summed on
+ * read. A transaction always lands in the cell picked by its id: writers of different ids rarely share a cell,
+ * and retracting a transaction always finds its amount in the cell it was added to. Each cell keeps its amounts
+ * in a sorted multiset, so min and max stay exact when the current extreme is retracted.
+ *
+ * <p>Reads are weakly consistent: an update may be seen half applied, with the old amount retracted and the new
+ * one not yet added. Buckets are kept once created, even when every transaction in them was deleted.
+ */
+final class TransactionAggregates {
+    private static final long HOUR_SECONDS = StatsInterval.HOUR.getSeconds();
+    // A power of two at least the number of processors, so a cell can be picked with a mask
+    private static final int CELLS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final ConcurrentNavigableMap<Long, ConcurrentMap<Group, Bucket>> byHour = new ConcurrentSkipListMap<>();
+
+    void add(UUID id, Instant timestamp, TransactionType type, String category, BigDecimal amount) {
+        byHour.computeIfAbsent(hourOf(timestamp), hour -> new ConcurrentHashMap<>())
+                .computeIfAbsent(new Group(type, category), group -> new Bucket())
+                .cell(id)
+                .add(amount);
+    }
+
+    /**
+     * Removes a transaction previously passed to {@link #add} with the same arguments.
+     */
+    void retract(UUID id, Instant timestamp, TransactionType type, String category, BigDecimal amount) {
+        byHour.get(hourOf(timestamp)).get(new Group(type, category)).cell(id).retract(amount);
+    }
+
+    /**
+     * Merges the statistics for the buckets of {@code interval} that overlap {@code [from, to)} into
+     * {@code buckets}. {@link InMemoryTransactionRepository#stats} adds up those of every partition this way.
+     */
+    void collect(StatsInterval interval, TransactionType type, String category, Instant from, Instant to,
+                 Map<StatsAccumulator.Key, StatsAccumulator> buckets) {
+        long fromHour = from == null ? Long.MIN_VALUE : hourOf(interval.floor(from));
+        long toHour = to == null ? Long.MAX_VALUE : hourOf(interval.ceil(to));
+        if (fromHour >= toHour) {
+            return;
+        }
+        byHour.subMap(fromHour, toHour).forEach((hour, groups) -> {
+            long start = Math.floorDiv(hour * HOUR_SECONDS, interval.getSeconds()) * interval.getSeconds();
+            groups.forEach((group, bucket) -> {
+                if ((type == null || type == group.type()) && (category == null || category.equals(group.category()))) {
+                    bucket.mergeInto(buckets.computeIfAbsent(
+                            new StatsAccumulator.Key(start, group.type(), group.category()),
+                            key -> new StatsAccumulator()));
+                }
+            });
+        });
+    }
+
+    private static long hourOf(Instant timestamp) {
+        return Math.floorDiv(timestamp.getEpochSecond(), HOUR_SECONDS);
+    }
+
+    private record Group(TransactionType type, String category) {
+    }
+
+    private static final class Bucket {
+        private final AtomicReferenceArray<Cell> cells = new AtomicReferenceArray<>(CELLS);
+
+        Cell cell(UUID id) {
+            int hash = id.hashCode();
+            hash ^= hash >>> 16;
+            int index = hash & (CELLS - 1);
+            Cell cell = cells.get(index);
+            if (cell == null) {
+                cells.compareAndSet(index, null, new Cell());
+                cell = cells.get(index);
+            }
+            return cell;
+        }
+
+        void mergeInto(StatsAccumulator accumulator) {
+            for (int i = 0; i < CELLS; i++) {
+                Cell cell = cells.get(i);
+                if (cell != null) {
+                    cell.mergeInto(accumulator);
+                }
+            }
+        }
+    }
+
+    // Guarded by its monitor, held only for a few arithmetic steps, so a virtual thread is never parked on it
+    private static final class Cell {
+        private long count;
+        private BigDecimal sum = BigDecimal.ZERO;
+        // Occurrences of each amount, ordered by value
+        private final TreeMap<BigDecimal, Integer> amounts = new TreeMap<>();
+
+        synchronized void add(BigDecimal amount) {
+            count++;
+            if (amount != null) {
+                sum = sum.add(amount);
+                amounts.merge(amount, 1, Integer::sum);
+            }
+        }
+
+        synchronized void retract(BigDecimal amount) {
+            count--;
+            if (amount != null) {
+                sum = sum.subtract(amount);
+                amounts.computeIfPresent(amount, (value, occurrences) -> occurrences == 1 ? null : occurrences - 1);
+            }
+        }
+
+        synchronized void mergeInto(StatsAccumulator accumulator) {
+            if (count > 0) {
+                accumulator.merge(count, sum,
+                        amounts.isEmpty() ? null : amounts.firstKey(),
+                        amounts.isEmpty() ? null : amounts.lastKey());
+            }
+        }
+    }
+}
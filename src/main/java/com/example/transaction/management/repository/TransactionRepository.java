@@ -1,13 +1,160 @@
 package com.example.transaction.management.repository;
 
 import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.PartitionArchive;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface TransactionRepository {
+    /**
+     * Stores {@code transaction}, replacing any with the same id, and sets its version to one more than that
+     * of the one it replaced, or to 1.
+     */
     Transaction save(Transaction transaction);
+
+    /**
+     * Saves {@code transaction} like {@link #save} if the stored transaction with its id is at
+     * {@code expectedVersion}, checking and replacing it in one atomic step. Returns {@code false}, storing
+     * nothing, if there is no such transaction or it is at another version.
+     */
+    boolean saveIfVersion(Transaction transaction, long expectedVersion);
+
     Optional<Transaction> findById(UUID id);
     List<Transaction> findAll(int page, int size);
+    List<Transaction> findAfter(TransactionCursor cursor, int size);
     void deleteById(UUID id);
-} 
\ No newline at end of file
+
+    /**
+     * Deletes the transaction with {@code id} if it is at {@code expectedVersion}, atomically. Returns
+     * {@code false}, deleting nothing, if there is no such transaction or it is at another version.
+     */
+    boolean deleteIfVersion(UUID id, long expectedVersion);
+
+    /**
+     * Number of stored transactions.
+     */
+    long count();
+
+    /**
+     * Lazily iterates transactions newest first, without materializing them. The iterator is weakly
+     * consistent: it reflects some but not necessarily all writes made while it is in use.
+     *
+     * @param from inclusive lower bound on the timestamp, or {@code null} for no bound
+     * @param to   exclusive upper bound on the timestamp, or {@code null} for no bound
+     */
+    Iterator<Transaction> iterate(Instant from, Instant to);
+
+    /**
+     * Returns up to {@code size} transactions matching {@code query}, newest first, starting after
+     * {@code cursor} (or from the newest when {@code null}).
+     *
+     * <p>This default walks the query's time range and filters every transaction in it; implementations with
+     * secondary indexes should only visit candidates.
+     */
+    default List<Transaction> query(TransactionQuery query, TransactionCursor cursor, int size) {
+        Instant to = query.to();
+        if (cursor != null) {
+            // Everything after the cursor is older than it or shares its timestamp
+            Instant bound = cursor.timestamp().plusNanos(1);
+            to = to == null || bound.isBefore(to) ? bound : to;
+        }
+        List<Transaction> matches = new ArrayList<>(Math.min(size, 1024));
+        Iterator<Transaction> candidates = iterate(query.from(), to);
+        while (matches.size() < size && candidates.hasNext()) {
+            Transaction candidate = candidates.next();
+            if (cursor != null && candidate.getTimestamp().equals(cursor.timestamp())
+                    && candidate.getId().compareTo(cursor.id()) <= 0) {
+                continue;
+            }
+            if (query.matches(candidate)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the count, sum, min and max of the amounts per bucket of {@code interval}, transaction type and
+     * category, newest bucket first. Only non-empty buckets are listed.
+     *
+     * <p>Every bucket that overlaps {@code [from, to)} is covered in full, as if {@code from} were rounded down
+     * and {@code to} rounded up to bucket boundaries. {@code null} bounds and filters match anything.
+     *
+     * <p>This default reads every transaction in the range; implementations that maintain aggregates should
+     * only read buckets.
+     */
+    default List<TransactionStats> stats(StatsInterval interval, TransactionType type, String category,
+                                         Instant from, Instant to) {
+        Map<StatsAccumulator.Key, StatsAccumulator> buckets = new HashMap<>();
+        Iterator<Transaction> transactions = iterate(from == null ? null : interval.floor(from),
+                to == null ? null : interval.ceil(to));
+        while (transactions.hasNext()) {
+            Transaction transaction = transactions.next();
+            if ((type == null || type == transaction.getType())
+                    && (category == null || category.equals(transaction.getCategory()))) {
+                long start = interval.floor(transaction.getTimestamp()).getEpochSecond();
+                buckets.computeIfAbsent(
+                        new StatsAccumulator.Key(start, transaction.getType(), transaction.getCategory()),
+                        key -> new StatsAccumulator()).add(transaction.getAmount());
+            }
+        }
+        return StatsAccumulator.toList(buckets);
+    }
+
+    /**
+     * Drops every transaction of the time partitions that end at or before {@code cutoff}, whole partitions at a
+     * time, and returns how many transactions were dropped. Each partition is written to {@code archive} before
+     * it is dropped, unless that is {@code null}. Partitions are visited oldest first, and one that fails to
+     * archive is kept along with every newer one.
+     *
+     * @throws UnsupportedOperationException if this repository does not partition transactions by time
+     */
+    default long dropBefore(Instant cutoff, PartitionArchive archive) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not partition transactions by time");
+    }
+
+    /**
+     * Saves every transaction as {@link #save} would. {@link IllegalArgumentException} means that one of them
+     * cannot be stored and that none was; after any other exception, some of them may have been stored.
+     */
+    default List<Transaction> saveAll(List<Transaction> transactions) {
+        List<Transaction> saved = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            try {
+                saved.add(save(transaction));
+            } catch (IllegalArgumentException e) {
+                throw partlySaved(saved.isEmpty(), e);
+            }
+        }
+        return saved;
+    }
+
+    default void deleteAllById(Collection<UUID> ids) {
+        for (UUID id : ids) {
+            deleteById(id);
+        }
+    }
+
+    /**
+     * Returns {@code rejection} to rethrow from {@link #saveAll} if nothing was stored yet, and otherwise an
+     * {@link IllegalStateException} caused by it, since part of the batch is already stored.
+     */
+    static RuntimeException partlySaved(boolean nothingStored, IllegalArgumentException rejection) {
+        return nothingStored
+                ? rejection
+                : new IllegalStateException("Batch was partly stored before an item was rejected", rejection);
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.transaction.management.repository.columnar;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.TransactionRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Transaction store that keeps every field in a primitive column instead of one object graph per row:
+ * ids as two longs, amounts as an unscaled long plus a scale byte, timestamps as epoch nanoseconds, the type
+ * as a byte, versions as a long, and descriptions and categories as codes into reference-counted dictionaries.
+ * A row costs roughly 70 bytes plus its distinct strings, and the heap holds a few hundred large arrays instead of
+ * several objects per row, which keeps GC cheap at tens of millions of rows.
+ *
+ * <p>Reads return new {@link Transaction} instances built from the columns, so stored rows cannot be
+ * changed through them. Timestamps are kept to the nanosecond and must fall between the years 1677 and
+ * 2262. Amounts that do not fit a long with a scale between -126 and 127 are kept as {@link BigDecimal}
+ * on the side. A read/write lock guards the store: reads run in parallel, writes one at a time.
+ *
+ * <p>Selected with {@code transaction.repository.type=columnar}, and used for every shard when
+ * {@code transaction.repository.shards} is greater than 1. Write-ahead log persistence is only
+ * supported by {@code InMemoryTransactionRepository}.
+ */
+@Repository
+@ConditionalOnExpression("'${transaction.repository.type:memory}' == 'columnar' and ${transaction.repository.shards:1} == 1")
+public class ColumnarTransactionRepository implements TransactionRepository {
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final byte NULL_TYPE = -1;
+    // Scale markers for amounts not held in the unscaled column
+    private static final byte NULL_AMOUNT = Byte.MIN_VALUE;
+    private static final byte WIDE_AMOUNT = Byte.MIN_VALUE + 1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // Rows materialized per lock acquisition while iterating
+    private static final int ITERATE_BATCH = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Columns.LongColumn mostBits = new Columns.LongColumn();
+    private final Columns.LongColumn leastBits = new Columns.LongColumn();
+    private final Columns.LongColumn epochNanos = new Columns.LongColumn();
+    private final Columns.LongColumn unscaledAmounts = new Columns.LongColumn();
+    private final Columns.ByteColumn scales = new Columns.ByteColumn();
+    private final Columns.ByteColumn types = new Columns.ByteColumn();
+    private final Columns.IntColumn descriptionCodes = new Columns.IntColumn();
+    private final Columns.IntColumn categoryCodes = new Columns.IntColumn();
+    private final Columns.LongColumn versions = new Columns.LongColumn();
+    private final Map<Integer, BigDecimal> wideAmounts = new HashMap<>();
+    private final StringDictionary descriptions = new StringDictionary();
+    private final StringDictionary categories = new StringDictionary();
+    private final IdIndex ids = new IdIndex(mostBits, leastBits);
+    private final TimeIndex byTimestamp = new TimeIndex(epochNanos, mostBits, leastBits);
+    // Rows freed by deletes, reused before the columns grow
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int rowCount;
+
+    public ColumnarTransactionRepository() {
+    }
+
+    @Autowired
+    public ColumnarTransactionRepository(ObjectProvider<WriteAheadLog> wal) {
+        if (wal.getIfAvailable() != null) {
+            throw new IllegalStateException(
+                    "transaction.persistence.enabled requires transaction.repository.type=memory");
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        Row row = prepare(transaction);
+        lock.writeLock().lock();
+        try {
+            store(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return transaction;
+    }
+
+    @Override
+    public boolean saveIfVersion(Transaction transaction, long expectedVersion) {
+        Row row = prepare(transaction);
+        lock.writeLock().lock();
+        try {
+            if (!hasVersion(row.id(), expectedVersion)) {
+                return false;
+            }
+            store(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> transactions) {
+        Row[] rows = new Row[transactions.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = prepare(transactions.get(i));
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                store(rows[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return transactions;
+    }
+
+    @Override
+    public Optional<Transaction> findById(UUID id) {
+        lock.readLock().lock();
+        try {
+            int row = ids.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            return row == IdIndex.ABSENT ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findAll(int page, int size) {
+        lock.readLock().lock();
+        try {
+            int[] rows = new int[Math.min(size, ids.size())];
+            return materialize(rows, byTimestamp.rowsAt((long) page * size, rows.length, rows));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findAfter(TransactionCursor cursor, int size) {
+        lock.readLock().lock();
+        try {
+            int[] rows = new int[Math.min(size, ids.size())];
+            int count = cursor == null
+                    ? byTimestamp.rowsAt(0, rows.length, rows)
+                    : byTimestamp.rowsAfter(clampedNanos(cursor.timestamp()), cursor.id().getMostSignificantBits(),
+                            cursor.id().getLeastSignificantBits(), false, rows.length, rows);
+            return materialize(rows, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Transaction> iterate(Instant from, Instant to) {
+        return new RangeIterator(from == null ? Long.MIN_VALUE : clampedNanos(from),
+                to == null ? Long.MAX_VALUE : clampedNanos(to), to == null);
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteIfVersion(UUID id, long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            if (!hasVersion(id, expectedVersion)) {
+                return false;
+            }
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void deleteAllById(Collection<UUID> ids) {
+        lock.writeLock().lock();
+        try {
+            for (UUID id : ids) {
+                remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Validates and encodes a transaction before the write lock is taken
+    private Row prepare(Transaction transaction) {
+        if (transaction.getId() == null) {
+            transaction.setId(UUID.randomUUID());
+        }
+        if (transaction.getTimestamp() == null) {
+            transaction.setTimestamp(Instant.now());
+        }
+        long nanos;
+        try {
+            nanos = Math.addExact(Math.multiplyExact(transaction.getTimestamp().getEpochSecond(), NANOS_PER_SECOND),
+                    transaction.getTimestamp().getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Timestamp out of the supported range: " + transaction.getTimestamp());
+        }
+        BigDecimal amount = transaction.getAmount();
+        byte scale;
+        long unscaled = 0;
+        if (amount == null) {
+            scale = NULL_AMOUNT;
+        } else if (amount.scale() > WIDE_AMOUNT && amount.scale() <= Byte.MAX_VALUE
+                && amount.unscaledValue().bitLength() < Long.SIZE) {
+            scale = (byte) amount.scale();
+            unscaled = amount.unscaledValue().longValue();
+        } else {
+            scale = WIDE_AMOUNT;
+        }
+        TransactionType type = transaction.getType();
+        return new Row(transaction.getId(), nanos, unscaled, scale, scale == WIDE_AMOUNT ? amount : null,
+                type == null ? NULL_TYPE : (byte) type.ordinal(),
+                transaction.getDescription(), transaction.getCategory(), transaction);
+    }
+
+    // Caller holds the write lock
+    private boolean hasVersion(UUID id, long expectedVersion) {
+        int row = ids.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        return row != IdIndex.ABSENT && versions.get(row) == expectedVersion;
+    }
+
+    private void store(Row values) {
+        long most = values.id().getMostSignificantBits();
+        long least = values.id().getLeastSignificantBits();
+        int row = ids.get(most, least);
+        boolean added = row == IdIndex.ABSENT;
+        int previousDescription = StringDictionary.NULL_CODE;
+        int previousCategory = StringDictionary.NULL_CODE;
+        long version = 1;
+        if (added) {
+            row = allocateRow();
+            mostBits.set(row, most);
+            leastBits.set(row, least);
+        } else {
+            version = versions.get(row) + 1;
+            byTimestamp.remove(row);
+            if (scales.get(row) == WIDE_AMOUNT) {
+                wideAmounts.remove(row);
+            }
+            previousDescription = descriptionCodes.get(row);
+            previousCategory = categoryCodes.get(row);
+        }
+        epochNanos.set(row, values.epochNanos());
+        unscaledAmounts.set(row, values.unscaledAmount());
+        scales.set(row, values.scale());
+        if (values.scale() == WIDE_AMOUNT) {
+            wideAmounts.put(row, values.wideAmount());
+        }
+        types.set(row, values.type());
+        // New codes are taken before the old ones are released, so an unchanged string keeps its code
+        descriptionCodes.set(row, descriptions.acquire(values.description()));
+        categoryCodes.set(row, categories.acquire(values.category()));
+        descriptions.release(previousDescription);
+        categories.release(previousCategory);
+        versions.set(row, version);
+        values.transaction().setVersion(version);
+        if (added) {
+            ids.add(row);
+        }
+        byTimestamp.add(row);
+    }
+
+    private void remove(UUID id) {
+        int row = ids.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (row == IdIndex.ABSENT) {
+            return;
+        }
+        byTimestamp.remove(row);
+        ids.remove(row);
+        if (scales.get(row) == WIDE_AMOUNT) {
+            wideAmounts.remove(row);
+        }
+        descriptions.release(descriptionCodes.get(row));
+        categories.release(categoryCodes.get(row));
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    private int allocateRow() {
+        return freeCount > 0 ? freeRows[--freeCount] : rowCount++;
+    }
+
+    private List<Transaction> materialize(int[] rows, int count) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(materialize(rows[i]));
+        }
+        return transactions;
+    }
+
+    private Transaction materialize(int row) {
+        Transaction transaction = new Transaction();
+        transaction.setId(new UUID(mostBits.get(row), leastBits.get(row)));
+        long nanos = epochNanos.get(row);
+        transaction.setTimestamp(Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                Math.floorMod(nanos, NANOS_PER_SECOND)));
+        byte scale = scales.get(row);
+        if (scale == WIDE_AMOUNT) {
+            transaction.setAmount(wideAmounts.get(row));
+        } else if (scale != NULL_AMOUNT) {
+            transaction.setAmount(BigDecimal.valueOf(unscaledAmounts.get(row), scale));
+        }
+        byte type = types.get(row);
+        transaction.setType(type == NULL_TYPE ? null : TYPES[type]);
+        transaction.setDescription(descriptions.get(descriptionCodes.get(row)));
+        transaction.setCategory(categories.get(categoryCodes.get(row)));
+        transaction.setVersion(versions.get(row));
+        return transaction;
+    }
+
+    // Range and cursor bounds outside the storable range sort before or after every row
+    private static long clampedNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+        } catch (ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    // Keeps the transaction to hand it the version it is stored at
+    private record Row(UUID id, long epochNanos, long unscaledAmount, byte scale, BigDecimal wideAmount, byte type,
+                       String description, String category, Transaction transaction) {
+    }
+
+    /**
+     * Walks [from, to) newest first in batches, taking the read lock once per batch and resuming after the
+     * last row returned, so concurrent writes are seen or not but never break the walk.
+     */
+    private final class RangeIterator implements Iterator<Transaction> {
+        private final long fromNanos;
+        private final int[] rows = new int[ITERATE_BATCH];
+        private List<Transaction> batch = List.of();
+        private int next;
+        private boolean exhausted;
+        // Key to resume after; starts just past 'to'
+        private long lastNanos;
+        private long lastMost = Long.MAX_VALUE;
+        private long lastLeast = Long.MAX_VALUE;
+        private boolean fromStart;
+
+        private RangeIterator(long fromNanos, long toNanos, boolean fromStart) {
+            this.fromNanos = fromNanos;
+            this.lastNanos = toNanos;
+            this.fromStart = fromStart;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == batch.size() && !exhausted) {
+                fetch();
+            }
+            return next < batch.size();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.get(next++);
+        }
+
+        private void fetch() {
+            lock.readLock().lock();
+            try {
+                int count = fromStart
+                        ? byTimestamp.rowsAt(0, rows.length, rows)
+                        : byTimestamp.rowsAfter(lastNanos, lastMost, lastLeast, false, rows.length, rows);
+                fromStart = false;
+                List<Transaction> fetched = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int row = rows[i];
+                    if (epochNanos.get(row) < fromNanos) {
+                        exhausted = true;
+                        break;
+                    }
+                    fetched.add(materialize(row));
+                    lastNanos = epochNanos.get(row);
+                    lastMost = mostBits.get(row);
+                    lastLeast = leastBits.get(row);
+                }
+                if (count < rows.length) {
+                    exhausted = true;
+                }
+                batch = fetched;
+                next = 0;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
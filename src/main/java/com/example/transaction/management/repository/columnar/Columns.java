@@ -0,0 +1,77 @@
+package com.example.transaction.management.repository.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive columns indexed by row. Storage is split into fixed-size chunks so that growing a column
+ * allocates one more chunk instead of copying every row, and no single array has to hold tens of millions of
+ * values. Not thread-safe; callers synchronize.
+ */
+final class Columns {
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+    private Columns() {
+    }
+
+    static final class LongColumn {
+        private long[][] chunks = new long[0][];
+
+        long get(int row) {
+            return chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        void set(int row, long value) {
+            int chunk = row >>> CHUNK_BITS;
+            if (chunk >= chunks.length) {
+                int allocated = chunks.length;
+                chunks = Arrays.copyOf(chunks, chunk + 1);
+                for (int i = allocated; i <= chunk; i++) {
+                    chunks[i] = new long[CHUNK_ROWS];
+                }
+            }
+            chunks[chunk][row & CHUNK_MASK] = value;
+        }
+    }
+
+    static final class IntColumn {
+        private int[][] chunks = new int[0][];
+
+        int get(int row) {
+            return chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        void set(int row, int value) {
+            int chunk = row >>> CHUNK_BITS;
+            if (chunk >= chunks.length) {
+                int allocated = chunks.length;
+                chunks = Arrays.copyOf(chunks, chunk + 1);
+                for (int i = allocated; i <= chunk; i++) {
+                    chunks[i] = new int[CHUNK_ROWS];
+                }
+            }
+            chunks[chunk][row & CHUNK_MASK] = value;
+        }
+    }
+
+    static final class ByteColumn {
+        private byte[][] chunks = new byte[0][];
+
+        byte get(int row) {
+            return chunks[row >>> CHUNK_BITS][row & CHUNK_MASK];
+        }
+
+        void set(int row, byte value) {
+            int chunk = row >>> CHUNK_BITS;
+            if (chunk >= chunks.length) {
+                int allocated = chunks.length;
+                chunks = Arrays.copyOf(chunks, chunk + 1);
+                for (int i = allocated; i <= chunk; i++) {
+                    chunks[i] = new byte[CHUNK_ROWS];
+                }
+            }
+            chunks[chunk][row & CHUNK_MASK] = value;
+        }
+    }
+}
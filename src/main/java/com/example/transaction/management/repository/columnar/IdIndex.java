@@ -0,0 +1,107 @@
+package com.example.transaction.management.repository.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from transaction id to row. Slots hold only the row number; the id itself is compared
+ * against the id columns, so the index costs about eight bytes per row at its maximum load of one half.
+ * Not thread-safe; callers synchronize.
+ */
+final class IdIndex {
+    static final int ABSENT = -1;
+
+    private final Columns.LongColumn mostBits;
+    private final Columns.LongColumn leastBits;
+    private int[] slots = newSlots(16);
+    private int size;
+
+    IdIndex(Columns.LongColumn mostBits, Columns.LongColumn leastBits) {
+        this.mostBits = mostBits;
+        this.leastBits = leastBits;
+    }
+
+    int get(long most, long least) {
+        int mask = slots.length - 1;
+        int slot = home(most, least, mask);
+        while (true) {
+            int row = slots[slot];
+            if (row == ABSENT || (mostBits.get(row) == most && leastBits.get(row) == least)) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds {@code row}, whose id must already be in the id columns and not yet in the index.
+     */
+    void add(int row) {
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        insert(slots, row);
+        size++;
+    }
+
+    /**
+     * Removes {@code row}, whose id must still be in the id columns.
+     */
+    void remove(int row) {
+        int mask = slots.length - 1;
+        int hole = home(mostBits.get(row), leastBits.get(row), mask);
+        while (slots[hole] != row) {
+            hole = (hole + 1) & mask;
+        }
+        // Backward-shift deletion keeps every remaining row reachable from its home slot without tombstones
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int moved = slots[slot];
+            if (moved == ABSENT) {
+                break;
+            }
+            int home = home(mostBits.get(moved), leastBits.get(moved), mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = moved;
+                hole = slot;
+            }
+        }
+        slots[hole] = ABSENT;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(int[] table, int row) {
+        int mask = table.length - 1;
+        int slot = home(mostBits.get(row), leastBits.get(row), mask);
+        while (table[slot] != ABSENT) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = newSlots(capacity);
+        for (int row : slots) {
+            if (row != ABSENT) {
+                insert(rehashed, row);
+            }
+        }
+        slots = rehashed;
+    }
+
+    // Ids supplied by clients need not be random, so the bits are mixed before masking
+    private static int home(long most, long least, int mask) {
+        long hash = (most ^ Long.rotateLeft(least, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, ABSENT);
+        return slots;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.transaction.management.repository.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Reference-counted string interning: rows store a small int code instead of their own {@code String}, and
+ * a code is recycled once the last row using it is overwritten or deleted. Lookup is an open-addressing table
+ * of codes, so an entry costs its string plus a few ints rather than a hash map node. Not thread-safe;
+ * callers synchronize.
+ */
+final class StringDictionary {
+    /** Code stored for a null string. */
+    static final int NULL_CODE = -1;
+
+    private static final int EMPTY = -1;
+
+    private String[] values = new String[16];
+    private int[] references = new int[16];
+    // Codes released by their last row, reused before values grows
+    private int[] freeCodes = new int[16];
+    private int freeCount;
+    private int nextCode;
+    private int[] slots = newSlots(32);
+    private int size;
+
+    /**
+     * Returns the code of {@code value}, adding it if needed, and counts one more reference to it.
+     */
+    int acquire(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        int mask = slots.length - 1;
+        int slot = home(value, mask);
+        while (slots[slot] != EMPTY) {
+            int code = slots[slot];
+            if (values[code].equals(value)) {
+                references[code]++;
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int code = newCode();
+        values[code] = value;
+        references[code] = 1;
+        slots[slot] = code;
+        if (++size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return code;
+    }
+
+    String get(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    /**
+     * Drops one reference to {@code code} and forgets its string when none remain.
+     */
+    void release(int code) {
+        if (code == NULL_CODE || --references[code] > 0) {
+            return;
+        }
+        int mask = slots.length - 1;
+        int slot = home(values[code], mask);
+        while (slots[slot] != code) {
+            slot = (slot + 1) & mask;
+        }
+        deleteSlot(slot);
+        values[code] = null;
+        size--;
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCount * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int newCode() {
+        if (freeCount > 0) {
+            return freeCodes[--freeCount];
+        }
+        if (nextCode == values.length) {
+            values = Arrays.copyOf(values, nextCode * 2);
+            references = Arrays.copyOf(references, nextCode * 2);
+        }
+        return nextCode++;
+    }
+
+    // Backward-shift deletion keeps every remaining code reachable from its home slot without tombstones
+    private void deleteSlot(int hole) {
+        int mask = slots.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int code = slots[slot];
+            if (code == EMPTY) {
+                break;
+            }
+            int home = home(values[code], mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = code;
+                hole = slot;
+            }
+        }
+        slots[hole] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = newSlots(capacity);
+        int mask = capacity - 1;
+        for (int code : slots) {
+            if (code != EMPTY) {
+                int slot = home(values[code], mask);
+                while (rehashed[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                rehashed[slot] = code;
+            }
+        }
+        slots = rehashed;
+    }
+
+    private static int home(String value, int mask) {
+        int hash = value.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.transaction.management.repository.columnar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows ordered newest first, ties broken by id, as a list of sorted blocks of row numbers. Each block holds
+ * up to {@value #BLOCK_ROWS} rows, so the index costs little more than four bytes per row; a lookup is a
+ * binary search over the blocks and then within one, and an insert or removal moves at most one block's rows.
+ * Keys are compared through the timestamp and id columns. Not thread-safe; callers synchronize.
+ */
+final class TimeIndex {
+    private static final int BLOCK_ROWS = 1024;
+
+    private final Columns.LongColumn epochNanos;
+    private final Columns.LongColumn mostBits;
+    private final Columns.LongColumn leastBits;
+    private final List<Block> blocks = new ArrayList<>();
+
+    TimeIndex(Columns.LongColumn epochNanos, Columns.LongColumn mostBits, Columns.LongColumn leastBits) {
+        this.epochNanos = epochNanos;
+        this.mostBits = mostBits;
+        this.leastBits = leastBits;
+    }
+
+    /**
+     * Adds {@code row}, whose timestamp and id must already be in the columns.
+     */
+    void add(int row) {
+        long nanos = epochNanos.get(row);
+        long most = mostBits.get(row);
+        long least = leastBits.get(row);
+        if (blocks.isEmpty()) {
+            Block first = new Block();
+            first.rows[0] = row;
+            first.size = 1;
+            blocks.add(first);
+            return;
+        }
+        int blockIndex = blockFor(nanos, most, least, false);
+        if (blockIndex == blocks.size()) {
+            blockIndex--;
+        }
+        Block block = blocks.get(blockIndex);
+        int position = block.search(nanos, most, least, false);
+        System.arraycopy(block.rows, position, block.rows, position + 1, block.size - position);
+        block.rows[position] = row;
+        block.size++;
+        if (block.size == BLOCK_ROWS) {
+            Block upper = new Block();
+            upper.size = BLOCK_ROWS / 2;
+            System.arraycopy(block.rows, BLOCK_ROWS / 2, upper.rows, 0, upper.size);
+            block.size = BLOCK_ROWS / 2;
+            blocks.add(blockIndex + 1, upper);
+        }
+    }
+
+    /**
+     * Removes {@code row}, whose timestamp and id must still be in the columns.
+     */
+    void remove(int row) {
+        long nanos = epochNanos.get(row);
+        long most = mostBits.get(row);
+        long least = leastBits.get(row);
+        int blockIndex = blockFor(nanos, most, least, false);
+        Block block = blocks.get(blockIndex);
+        int position = block.search(nanos, most, least, false);
+        System.arraycopy(block.rows, position + 1, block.rows, position, block.size - position - 1);
+        block.size--;
+        if (block.size == 0) {
+            blocks.remove(blockIndex);
+        }
+    }
+
+    /**
+     * Copies up to {@code limit} rows, starting {@code offset} rows from the newest, into {@code out}.
+     * Returns the number copied.
+     */
+    int rowsAt(long offset, int limit, int[] out) {
+        int blockIndex = 0;
+        while (blockIndex < blocks.size() && offset >= blocks.get(blockIndex).size) {
+            offset -= blocks.get(blockIndex).size;
+            blockIndex++;
+        }
+        return copy(blockIndex, (int) offset, limit, out);
+    }
+
+    /**
+     * Copies up to {@code limit} rows that sort after the key (timestamp, id) into {@code out}, including a row
+     * equal to the key when {@code inclusive}. Returns the number copied.
+     */
+    int rowsAfter(long nanos, long most, long least, boolean inclusive, int limit, int[] out) {
+        int blockIndex = blockFor(nanos, most, least, !inclusive);
+        if (blockIndex == blocks.size()) {
+            return 0;
+        }
+        return copy(blockIndex, blocks.get(blockIndex).search(nanos, most, least, !inclusive), limit, out);
+    }
+
+    private int copy(int blockIndex, int position, int limit, int[] out) {
+        int copied = 0;
+        while (copied < limit && blockIndex < blocks.size()) {
+            Block block = blocks.get(blockIndex);
+            int count = Math.min(limit - copied, block.size - position);
+            System.arraycopy(block.rows, position, out, copied, count);
+            copied += count;
+            blockIndex++;
+            position = 0;
+        }
+        return copied;
+    }
+
+    // First block whose last row sorts at or after the key (strictly after when 'after'), or blocks.size()
+    private int blockFor(long nanos, long most, long least, boolean after) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks.get(middle);
+            int comparison = compare(nanos, most, least, block.rows[block.size - 1]);
+            if (comparison < 0 || (comparison == 0 && !after)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // Newest first: a later timestamp sorts earlier; ties are ordered like UUID.compareTo
+    private int compare(long nanos, long most, long least, int row) {
+        int comparison = Long.compare(epochNanos.get(row), nanos);
+        if (comparison != 0) {
+            return comparison;
+        }
+        comparison = Long.compare(most, mostBits.get(row));
+        return comparison != 0 ? comparison : Long.compare(least, leastBits.get(row));
+    }
+
+    private final class Block {
+        private final int[] rows = new int[BLOCK_ROWS];
+        private int size;
+
+        // First position whose row sorts at or after the key (strictly after when 'after')
+        private int search(long nanos, long most, long least, boolean after) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(nanos, most, least, rows[middle]);
+                if (comparison < 0 || (comparison == 0 && !after)) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.transaction.management.service;
+
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.Transaction;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded queue of validated creates that one dedicated writer thread commits in micro-batches, so that the
+ * repository work of a batch, above all its write-ahead log sync, is paid once instead of once per request.
+ *
+ * <p>The writer takes whatever is queued, up to {@code batchSize}, and waits at most {@code linger} for more
+ * when the batch is not full; with a zero linger, batches only grow while the previous one is being committed.
+ * A full queue rejects the create with {@link TransactionErrorType#WRITE_QUEUE_FULL} instead of blocking the
+ * caller. A batch the repository rejects before storing any of it is retried item by item, so one bad item only
+ * fails its own create. Any other failure may leave part of the batch stored, so it fails every create of the
+ * batch rather than saving some twice, as a synchronous create fails when its log write does.
+ *
+ * <p>Producers share the JDK's bounded array queue; with a single consumer that drains whole batches, its one
+ * lock is taken once per batch on the consumer side.
+ */
+public class BatchingWriter implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    // Queued by close after every other create; the writer stops once it reaches it
+    private static final Pending STOP = new Pending(null, null);
+
+    /**
+     * Stores one batch of creates, in queue order. Throws {@link IllegalArgumentException} without having stored
+     * any of them if one cannot be stored; after any other exception, some of them may have been stored.
+     */
+    @FunctionalInterface
+    public interface Committer {
+        void commit(List<Transaction> batch);
+    }
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    // Creates are queued under the read lock and STOP under the write lock, so nothing is queued after STOP
+    private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+    // Guarded by closing
+    private boolean closed;
+    private Thread writer;
+
+    public BatchingWriter(int queueCapacity, int batchSize, Duration linger) {
+        if (queueCapacity <= 0 || batchSize <= 0 || linger.isNegative()) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive and linger not negative");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+    }
+
+    /**
+     * Starts the writer thread, which commits every batch through {@code committer}.
+     */
+    synchronized void start(Committer committer) {
+        if (writer != null) {
+            throw new IllegalStateException("Writer already started");
+        }
+        writer = new Thread(() -> run(committer), "transaction-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues {@code transaction} for the next batch. The returned future completes with it once it is stored, on
+     * the writer thread, or with the exception its commit failed with.
+     *
+     * @throws TransactionException  {@link TransactionErrorType#WRITE_QUEUE_FULL} if the queue is full
+     * @throws IllegalStateException if the writer was closed
+     */
+    CompletableFuture<Transaction> submit(Transaction transaction) {
+        Pending pending = new Pending(transaction, new CompletableFuture<>());
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Writer is closed");
+            }
+            if (!queue.offer(pending)) {
+                throw TransactionException.of(TransactionErrorType.WRITE_QUEUE_FULL);
+            }
+        } finally {
+            closing.readLock().unlock();
+        }
+        return pending.result();
+    }
+
+    /**
+     * Number of creates waiting for a batch.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting creates and waits until every create queued before is committed.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        Thread stopped;
+        closing.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // The writer keeps draining, so this waits at most for one batch
+            queue.put(STOP);
+        } finally {
+            closing.writeLock().unlock();
+        }
+        synchronized (this) {
+            stopped = writer;
+        }
+        if (stopped != null) {
+            stopped.join();
+        }
+    }
+
+    private void run(Committer committer) {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                stopping = collect(batch);
+            } catch (InterruptedException e) {
+                // Nothing interrupts the writer but a shutdown of the JVM; commit what was taken and go on
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                commit(committer, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Fills the batch with the next queued creates; returns true once STOP was taken
+    private boolean collect(List<Pending> batch) throws InterruptedException {
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize && batch.get(batch.size() - 1) != STOP) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        // Nothing is queued after STOP, so it can only be last
+        if (batch.get(batch.size() - 1) == STOP) {
+            batch.remove(batch.size() - 1);
+            return true;
+        }
+        return false;
+    }
+
+    private static void commit(Committer committer, List<Pending> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            transactions.add(pending.transaction());
+        }
+        try {
+            committer.commit(transactions);
+        } catch (IllegalArgumentException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // Nothing was stored, so each item can be retried on its own
+            for (Pending pending : batch) {
+                commit(committer, List.of(pending));
+            }
+            return;
+        } catch (RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+            return;
+        }
+        for (Pending pending : batch) {
+            pending.result().complete(pending.transaction());
+        }
+    }
+
+    private record Pending(Transaction transaction, CompletableFuture<Transaction> result) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.transaction.management.service;
+
+import com.example.transaction.management.model.ChangeType;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionChange;
+import com.example.transaction.management.model.TransactionSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer of the most recent committed changes, numbered in commit order, that change-stream consumers read
+ * at their own pace.
+ *
+ * <p>A writer takes the next sequence number from a counter and stores its change in the slot that number maps
+ * to, overwriting the change one lap older; it never waits for a reader. The service publishes under the lock of
+ * the changed id, so the changes of one id are numbered in the order they were applied. A reader asks for the
+ * changes after the last sequence number it has seen. Once the ring has moved past that number, or the number
+ * was never handed out, as after a restart, the reader is told to resync instead. Transactions removed in bulk by
+ * retention get no change each; a marker in their place tells every reader that reaches it to resync.
+ */
+@Component
+public class ChangeFeed {
+    public static final int DEFAULT_CAPACITY = 16_384;
+    private static final int MAX_CAPACITY = 1 << 24;
+
+    /**
+     * Changes read from the feed, in sequence order, or a request to resync when {@code resync} is set, in which
+     * case {@code changes} is empty. A reader that resyncs reloads what it needs and resumes after
+     * {@code latestSequence}; changes it reloads may be sent again and are recognized by their version.
+     */
+    public record Page(List<TransactionChange> changes, boolean resync, long latestSequence) {
+    }
+
+    // Null when disabled
+    private final AtomicReferenceArray<TransactionChange> slots;
+    private final int mask;
+    // Last sequence number handed out; the change with that number may still be being stored
+    private final AtomicLong sequence = new AtomicLong();
+    // Readers parked until the next change is stored; the first writer to store one takes them out and wakes them
+    private final Set<Thread> waiting = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ChangeFeed(@Value("${transaction.changes.capacity:" + DEFAULT_CAPACITY + "}") int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        // Rounded up to a power of two so a slot can be picked with a mask
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    private ChangeFeed() {
+        this.slots = null;
+        this.mask = 0;
+    }
+
+    /**
+     * A feed that numbers changes but keeps none, for services that nobody streams changes from.
+     */
+    public static ChangeFeed disabled() {
+        return new ChangeFeed();
+    }
+
+    /**
+     * Number of changes held before the oldest is overwritten.
+     */
+    public int capacity() {
+        return slots == null ? 0 : slots.length();
+    }
+
+    /**
+     * Sequence number of the latest change, 0 before the first. It moves with every committed write, so an
+     * unchanged number means unchanged data, also when the feed is disabled.
+     */
+    public long latestSequence() {
+        return sequence.get();
+    }
+
+    void created(Transaction transaction) {
+        publish(ChangeType.CREATED, transaction);
+    }
+
+    void updated(Transaction transaction) {
+        publish(ChangeType.UPDATED, transaction);
+    }
+
+    void deleted(UUID id, Long version) {
+        if (slots == null) {
+            sequence.incrementAndGet();
+        } else {
+            store(new TransactionChange(sequence.incrementAndGet(), ChangeType.DELETED, id, version, null));
+        }
+    }
+
+    // Numbered like a change, so that the sequence still moves with every write
+    void expired() {
+        if (slots == null) {
+            sequence.incrementAndGet();
+        } else {
+            store(new TransactionChange(sequence.incrementAndGet(), null, null, null, null));
+        }
+    }
+
+    /**
+     * Returns up to {@code max} changes after sequence number {@code after}, waiting up to {@code wait} for the
+     * first when there is none yet; the page is empty if none came. Asks for a resync if the changes right after
+     * {@code after} were overwritten or removed by retention, or {@code after} was never handed out.
+     */
+    public Page read(long after, int max, Duration wait) throws InterruptedException {
+        Page page = poll(after, max);
+        if (!page.changes().isEmpty() || page.resync()) {
+            return page;
+        }
+        long deadline = System.nanoTime() + wait.toNanos();
+        Thread reader = Thread.currentThread();
+        try {
+            while (true) {
+                // Polled after registering, so a change stored in between unparks this reader
+                waiting.add(reader);
+                page = poll(after, max);
+                long remaining = deadline - System.nanoTime();
+                if (!page.changes().isEmpty() || page.resync() || remaining <= 0) {
+                    return page;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiting.remove(reader);
+        }
+    }
+
+    private void publish(ChangeType type, Transaction transaction) {
+        if (slots == null) {
+            sequence.incrementAndGet();
+        } else {
+            store(new TransactionChange(sequence.incrementAndGet(), type, transaction.getId(),
+                    transaction.getVersion(), TransactionSnapshot.of(transaction)));
+        }
+    }
+
+    private void store(TransactionChange change) {
+        int slot = (int) change.sequence() & mask;
+        // A writer delayed by a whole lap must not replace the newer change already in its slot
+        TransactionChange previous = slots.get(slot);
+        while ((previous == null || previous.sequence() < change.sequence())
+                && !slots.compareAndSet(slot, previous, change)) {
+            previous = slots.get(slot);
+        }
+        if (!waiting.isEmpty()) {
+            for (Thread reader : waiting) {
+                if (waiting.remove(reader)) {
+                    LockSupport.unpark(reader);
+                }
+            }
+        }
+    }
+
+    private Page poll(long after, int max) {
+        long latest = sequence.get();
+        if (after < 0 || after > latest) {
+            return new Page(List.of(), true, latest);
+        }
+        if (after == latest) {
+            return new Page(List.of(), false, latest);
+        }
+        if (slots == null || latest - after > slots.length()) {
+            return new Page(List.of(), true, latest);
+        }
+        List<TransactionChange> changes = new ArrayList<>((int) Math.min(max, latest - after));
+        for (long next = after + 1; next <= latest && changes.size() < max; next++) {
+            TransactionChange change = slots.get((int) next & mask);
+            if (change == null || change.sequence() < next) {
+                // Numbered but not stored yet; later changes wait for it so none is skipped
+                break;
+            }
+            if (change.sequence() > next || change.type() == null) {
+                // Overwritten while being read, or a retention marker; what was read so far is still in order
+                return changes.isEmpty() ? new Page(List.of(), true, latest) : new Page(changes, false, latest);
+            }
+            changes.add(change);
+        }
+        return new Page(changes, false, latest);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.transaction.management.service;
+
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of creates by their client-chosen idempotency key, so that a retried create returns
+ * the transaction made by the first attempt instead of a duplicate.
+ *
+ * <p>The first request with a key claims it by publishing a pending result with a single
+ * {@code putIfAbsent}; a new key therefore costs a lock-free lookup and an insert, and no request waits on
+ * another unless it repeats a key whose create is still in flight. Failed creates release their key so the
+ * request can be retried. Entries are bounded in number and expire a fixed time after they were written
+ * (Caffeine, W-TinyLFU eviction); a retry arriving after its key was dropped creates a new transaction.
+ */
+public class IdempotencyStore {
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, CompletableFuture<TransactionSnapshot>> results;
+
+    public IdempotencyStore(long maximumSize, Duration ttl) {
+        this(maximumSize, ttl, Ticker.systemTicker());
+    }
+
+    /**
+     * Expires entries by the time {@code ticker} reads rather than the system's.
+     */
+    public IdempotencyStore(long maximumSize, Duration ttl, Ticker ticker) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the transaction created for {@code key}, calling {@code create} only if the key is new. A repeat
+     * must describe the same transaction as the original; the id and timestamp it carries are ignored.
+     *
+     * @throws TransactionException if the key is malformed or was used for a different transaction, or
+     *                              whatever {@code create} threw for the original request
+     */
+    public Transaction execute(String key, Transaction request, Supplier<Transaction> create) {
+        validateKey(key);
+        CompletableFuture<TransactionSnapshot> original = results.getIfPresent(key);
+        if (original == null) {
+            CompletableFuture<TransactionSnapshot> claim = new CompletableFuture<>();
+            original = results.asMap().putIfAbsent(key, claim);
+            if (original == null) {
+                return createOnce(key, claim, create);
+            }
+        }
+        TransactionSnapshot snapshot = await(original);
+        if (!describesSame(snapshot, request)) {
+            throw TransactionException.of(TransactionErrorType.IDEMPOTENCY_KEY_REUSED);
+        }
+        return snapshot.toTransaction();
+    }
+
+    private Transaction createOnce(String key, CompletableFuture<TransactionSnapshot> claim,
+                                   Supplier<Transaction> create) {
+        Transaction created;
+        try {
+            created = create.get();
+        } catch (RuntimeException e) {
+            results.asMap().remove(key, claim);
+            claim.completeExceptionally(e);
+            throw e;
+        }
+        claim.complete(TransactionSnapshot.of(created));
+        return created;
+    }
+
+    private static TransactionSnapshot await(CompletableFuture<TransactionSnapshot> original) {
+        try {
+            return original.join();
+        } catch (CompletionException e) {
+            // Repeats fail the way the original did
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static boolean describesSame(TransactionSnapshot original, Transaction request) {
+        return request.getAmount() != null && original.amount().compareTo(request.getAmount()) == 0
+                && original.type() == request.getType()
+                && Objects.equals(original.description(), request.getDescription())
+                && Objects.equals(original.category(), request.getCategory());
+    }
+
+    // Printable ASCII, as for any header value a client would generate
+    private static void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw TransactionException.of(TransactionErrorType.INVALID_IDEMPOTENCY_KEY);
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                throw TransactionException.of(TransactionErrorType.INVALID_IDEMPOTENCY_KEY);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.transaction.management.service;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.stereotype.Component;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through, write-through cache of transactions by id.
+ *
+ * <p>Entries are immutable {@link TransactionSnapshot}s, so neither the repository's instances nor the ones
+ * handed to callers are ever shared through the cache. Lookups of unknown ids are remembered as
+ * {@link #MISSING} for a short time (see {@code transaction.cache.negative-ttl}) and are overwritten by the
+ * write-through put of a later create.
+ *
+ * <p>Loads go through {@link Cache#get(Object, java.util.concurrent.Callable)}, which is atomic per key for
+ * Caffeine: a put issued while a load for the same id is in flight waits for the load and then replaces its
+ * result, so a load that raced with a create can never leave a stale {@link #MISSING} behind.
+ *
+ * <p>{@link #invalidateAll()} cannot remove a load that is still in flight, so loaded entries remember the
+ * generation of the cache they were loaded in. A load that started before the cache was last cleared may have
+ * read something the clear was meant to forget; it is evicted and loaded again the first time it is read.
+ */
+@Component
+public class TransactionCache {
+    public static final String CACHE_NAME = "transactions";
+
+    /**
+     * Negative entry for an id the repository did not contain when it was loaded.
+     */
+    public static final Object MISSING = new Object() {
+        @Override
+        public String toString() {
+            return "MISSING";
+        }
+    };
+
+    private final Cache cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public TransactionCache(CacheManager cacheManager) {
+        this(cacheManager.getCache(CACHE_NAME));
+    }
+
+    public TransactionCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public static TransactionCache disabled() {
+        return new TransactionCache(new NoOpCache(CACHE_NAME));
+    }
+
+    public Optional<Transaction> get(UUID id, Supplier<Optional<Transaction>> loader) {
+        Object cached = cache.get(id, () -> load(loader));
+        while (cached instanceof Loaded loaded) {
+            if (loaded.generation() == generation.get()) {
+                cached = loaded.value();
+            } else {
+                cache.evict(id);
+                cached = cache.get(id, () -> load(loader));
+            }
+        }
+        return cached instanceof TransactionSnapshot snapshot
+                ? Optional.of(snapshot.toTransaction())
+                : Optional.empty();
+    }
+
+    public void put(Transaction transaction) {
+        cache.put(transaction.getId(), TransactionSnapshot.of(transaction));
+    }
+
+    public void putMissing(UUID id) {
+        cache.put(id, MISSING);
+    }
+
+    /**
+     * Clears the cache. Whatever the caller removed from the repository before this is no longer served, not even
+     * by a load that read it before the removal and is still in flight.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidate();
+    }
+
+    // The generation is read before the repository so that a load overlapping a clear is never taken as newer
+    private Loaded load(Supplier<Optional<Transaction>> loader) {
+        long loadedIn = generation.get();
+        return new Loaded(loader.get().<Object>map(TransactionSnapshot::of).orElse(MISSING), loadedIn);
+    }
+
+    private record Loaded(Object value, long generation) {
+    }
+}
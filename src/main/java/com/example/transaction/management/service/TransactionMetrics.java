@@ -0,0 +1,118 @@
+package com.example.transaction.management.service;
+
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Meters of the service's hot path: a timer per operation, the time spent waiting for and holding the per-id
+ * locks, and a counter of rejected requests and batch items per {@link TransactionErrorType}.
+ *
+ * <p>Every meter is registered up front, so recording is a clock read plus an add into the timer's histogram,
+ * without a registry lookup or a tag allocation per call.
+ */
+@Component
+public class TransactionMetrics {
+    public static final String OPERATION_TIMER = "transaction.operation";
+    public static final String LOCK_WAIT_TIMER = "transaction.lock.wait";
+    public static final String LOCK_HOLD_TIMER = "transaction.lock.hold";
+    public static final String ERROR_COUNTER = "transaction.errors";
+
+    // Operations on the in-memory store take microseconds; timer histograms would start at 1 ms by default
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(1_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    public enum Operation {
+        CREATE, GET, LIST, QUERY,
+        // Opening the iterator; the export itself is streamed by the caller
+        EXPORT,
+        STATS, UPDATE, DELETE, CREATE_BATCH, UPDATE_BATCH, DELETE_BATCH, EXPIRE;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Timer[] operations = new Timer[Operation.values().length];
+    private final Counter[] errors = new Counter[TransactionErrorType.values().length];
+    private final Timer lockWait;
+    private final Timer lockHold;
+
+    @Autowired
+    public TransactionMetrics(MeterRegistry registry) {
+        for (Operation operation : Operation.values()) {
+            operations[operation.ordinal()] = timer(OPERATION_TIMER, "Time spent in a transaction service operation")
+                    .tag("operation", operation.tag())
+                    .register(registry);
+        }
+        for (TransactionErrorType type : TransactionErrorType.values()) {
+            errors[type.ordinal()] = Counter.builder(ERROR_COUNTER)
+                    .description("Requests and batch items rejected by the transaction service")
+                    .tag("type", type.name())
+                    .register(registry);
+        }
+        lockWait = timer(LOCK_WAIT_TIMER, "Time spent waiting for a per-id service lock").register(registry);
+        lockHold = timer(LOCK_HOLD_TIMER, "Time a per-id service lock was held").register(registry);
+    }
+
+    /**
+     * Metrics that are recorded nowhere, for services built outside of Spring.
+     */
+    public static TransactionMetrics disabled() {
+        return new TransactionMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Records an operation that started at {@code startNanos}, as returned by {@link System#nanoTime()}.
+     */
+    public void record(Operation operation, long startNanos) {
+        operations[operation.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void error(TransactionErrorType type) {
+        errors[type.ordinal()].increment();
+    }
+
+    /**
+     * Counts the error of {@code e} and returns it, for {@code throw metrics.failed(e)}.
+     */
+    public TransactionException failed(TransactionException e) {
+        error(e.getErrorType());
+        return e;
+    }
+
+    /**
+     * Acquires {@code lock}, recording how long that took, and returns the time it was acquired at for
+     * {@link #unlock}.
+     */
+    public long lock(ReentrantLock lock) {
+        long start = System.nanoTime();
+        lock.lock();
+        long acquired = System.nanoTime();
+        lockWait.record(acquired - start, TimeUnit.NANOSECONDS);
+        return acquired;
+    }
+
+    public void unlock(ReentrantLock lock, long acquiredNanos) {
+        long held = System.nanoTime() - acquiredNanos;
+        lock.unlock();
+        lockHold.record(held, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer.Builder timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+}
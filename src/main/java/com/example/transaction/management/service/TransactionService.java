@@ -1,104 +1,821 @@
 package com.example.transaction.management.service;
 
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.ChangeType;
+import com.example.transaction.management.model.StatsInterval;
 import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.PartitionArchive;
 import com.example.transaction.management.repository.TransactionRepository;
 import com.example.transaction.management.exception.TransactionException;
 import com.example.transaction.management.exception.TransactionErrorType;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import com.example.transaction.management.service.TransactionMetrics.Operation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 @Validated
 public class TransactionService {
     private static final int MAX_PAGE_SIZE = 50;
+    private static final int DEFAULT_LOCK_STRIPES = 64;
+    private static final int MAX_LOCK_STRIPES = 1 << 16;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 10_000;
     private final TransactionRepository repository;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final TransactionCache cache;
+    private final TransactionMetrics metrics;
+    private final IdempotencyStore idempotency;
+    private final ChangeFeed changes;
+    // Updates and deletes of the same id are serialized; unrelated ids only
+    // contend when they hash to the same stripe.
+    private final ReentrantLock[] locks;
+    private final int maxBatchSize;
+    // Null unless creates are committed asynchronously
+    private final BatchingWriter writer;
 
     public TransactionService(TransactionRepository repository) {
+        this(repository, DEFAULT_LOCK_STRIPES);
+    }
+
+    public TransactionService(TransactionRepository repository, int lockStripes) {
+        this(repository, TransactionCache.disabled(), lockStripes);
+    }
+
+    public TransactionService(TransactionRepository repository, TransactionCache cache, int lockStripes) {
+        this(repository, cache, TransactionMetrics.disabled(), lockStripes, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public TransactionService(TransactionRepository repository, TransactionCache cache, TransactionMetrics metrics,
+                              int lockStripes, int maxBatchSize) {
+        this(repository, cache, metrics,
+                new IdempotencyStore(IdempotencyStore.DEFAULT_MAXIMUM_SIZE, IdempotencyStore.DEFAULT_TTL),
+                lockStripes, maxBatchSize);
+    }
+
+    public TransactionService(TransactionRepository repository, TransactionCache cache, TransactionMetrics metrics,
+                              IdempotencyStore idempotency, int lockStripes, int maxBatchSize) {
+        this(repository, cache, metrics, idempotency, (BatchingWriter) null, lockStripes, maxBatchSize);
+    }
+
+    public TransactionService(TransactionRepository repository, TransactionCache cache, TransactionMetrics metrics,
+                              IdempotencyStore idempotency, BatchingWriter writer, int lockStripes, int maxBatchSize) {
+        this(repository, cache, metrics, idempotency, ChangeFeed.disabled(), writer, lockStripes, maxBatchSize);
+    }
+
+    @Autowired
+    public TransactionService(TransactionRepository repository, TransactionCache cache, TransactionMetrics metrics,
+                              IdempotencyStore idempotency, ChangeFeed changes, ObjectProvider<BatchingWriter> writer,
+                              @Value("${transaction.service.lock-stripes:" + DEFAULT_LOCK_STRIPES + "}") int lockStripes,
+                              @Value("${transaction.batch.max-size:" + DEFAULT_MAX_BATCH_SIZE + "}") int maxBatchSize) {
+        this(repository, cache, metrics, idempotency, changes, writer.getIfAvailable(), lockStripes, maxBatchSize);
+    }
+
+    /**
+     * Commits creates through {@code writer} in micro-batches, or one by one on the caller's thread when it is
+     * {@code null}. The writer is started here. Every committed change is published to {@code changes}.
+     */
+    public TransactionService(TransactionRepository repository, TransactionCache cache, TransactionMetrics metrics,
+                              IdempotencyStore idempotency, ChangeFeed changes, BatchingWriter writer,
+                              int lockStripes, int maxBatchSize) {
+        if (lockStripes <= 0 || lockStripes > MAX_LOCK_STRIPES) {
+            throw new IllegalArgumentException("lockStripes must be between 1 and " + MAX_LOCK_STRIPES + ": " + lockStripes);
+        }
         this.repository = repository;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.idempotency = idempotency;
+        this.changes = changes;
+        this.maxBatchSize = maxBatchSize;
+        // Rounded up to a power of two so a stripe can be picked with a mask
+        int stripes = 1;
+        while (stripes < lockStripes) {
+            stripes <<= 1;
+        }
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.writer = writer;
+        if (writer != null) {
+            writer.start(this::commitCreates);
+        }
+    }
+
+    /**
+     * Commits every queued create and stops the writer. Runs before the repository is closed, which the writer
+     * bean alone would not guarantee.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Whether creates are queued and committed in micro-batches by a writer thread, see
+     * {@link #createTransactionAsync}.
+     */
+    public boolean writesAsynchronously() {
+        return writer != null;
     }
 
     public Transaction createTransaction(@Valid Transaction transaction) {
-        validateTransaction(transaction);
-        return repository.save(transaction);
+        if (writer != null) {
+            return await(createTransactionAsync(transaction));
+        }
+        long start = System.nanoTime();
+        try {
+            validateTransaction(transaction);
+            if (transaction.getId() == null) {
+                transaction.setId(UUID.randomUUID());
+            }
+            // Cache writes and changes happen under the id's lock so they are applied in repository order
+            ReentrantLock lock = lockFor(transaction.getId());
+            long acquired = metrics.lock(lock);
+            try {
+                Transaction saved = repository.save(transaction);
+                cache.put(saved);
+                changes.created(saved);
+                return saved;
+            } finally {
+                metrics.unlock(lock, acquired);
+            }
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.CREATE, start);
+        }
+    }
+
+    /**
+     * Validates the transaction on the caller's thread and queues it for the writer, which stores it with the
+     * other creates of its micro-batch. The future completes once it is stored. Without a writer, the create
+     * runs before this returns.
+     *
+     * @throws TransactionException if the transaction is invalid, or {@link TransactionErrorType#WRITE_QUEUE_FULL}
+     *                              if too many creates are queued already
+     */
+    public CompletableFuture<Transaction> createTransactionAsync(@Valid Transaction transaction) {
+        if (writer == null) {
+            return CompletableFuture.completedFuture(createTransaction(transaction));
+        }
+        long start = System.nanoTime();
+        try {
+            validateTransaction(transaction);
+            if (transaction.getId() == null) {
+                transaction.setId(UUID.randomUUID());
+            }
+            return writer.submit(transaction).whenComplete((created, failure) -> {
+                if (failure instanceof TransactionException e) {
+                    metrics.error(e.getErrorType());
+                }
+                metrics.record(Operation.CREATE, start);
+            });
+        } catch (TransactionException e) {
+            metrics.record(Operation.CREATE, start);
+            throw metrics.failed(e);
+        }
+    }
+
+    /**
+     * Creates the transaction unless a create with the same {@code idempotencyKey} was seen recently, in which
+     * case the transaction made then is returned. Without a key this is {@link #createTransaction(Transaction)}.
+     */
+    public Transaction createTransaction(@Valid Transaction transaction, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createTransaction(transaction);
+        }
+        try {
+            return idempotency.execute(idempotencyKey, transaction, () -> createTransaction(transaction));
+        } catch (TransactionException e) {
+            // Failures of the create itself were counted by it
+            if (e.getErrorType() == TransactionErrorType.INVALID_IDEMPOTENCY_KEY
+                    || e.getErrorType() == TransactionErrorType.IDEMPOTENCY_KEY_REUSED) {
+                metrics.error(e.getErrorType());
+            }
+            throw e;
+        }
     }
 
-    @Cacheable(value = "transactions", key = "#id")
     public Optional<Transaction> getTransaction(UUID id) {
-        return repository.findById(id);
+        long start = System.nanoTime();
+        try {
+            return cache.get(id, () -> repository.findById(id));
+        } finally {
+            metrics.record(Operation.GET, start);
+        }
     }
 
     public List<Transaction> getAllTransactions(int page, int size) {
-        validatePagination(page, size);
-        return repository.findAll(page, size);
+        long start = System.nanoTime();
+        try {
+            validatePagination(page, size);
+            return repository.findAll(page, size);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    public List<Transaction> getTransactionsAfter(String cursor, int size) {
+        long start = System.nanoTime();
+        try {
+            validatePagination(0, size);
+            return repository.findAfter(decodeCursor(cursor), size);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * Returns one page of the transactions matching {@code query}, newest first. Deep pages are found by
+     * walking the matches before them; {@link #queryTransactionsAfter} does not.
+     */
+    public List<Transaction> queryTransactions(TransactionQuery query, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            validatePagination(page, size);
+            validateQuery(query);
+            long end = (long) (page + 1) * size;
+            if (end > Integer.MAX_VALUE) {
+                throw TransactionException.of(TransactionErrorType.INVALID_PAGINATION);
+            }
+            List<Transaction> matches = repository.query(query, null, (int) end);
+            int first = Math.min(page * size, matches.size());
+            return matches.subList(first, matches.size());
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+    }
+
+    public List<Transaction> queryTransactionsAfter(TransactionQuery query, String cursor, int size) {
+        long start = System.nanoTime();
+        try {
+            validatePagination(0, size);
+            validateQuery(query);
+            return repository.query(query, decodeCursor(cursor), size);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.QUERY, start);
+        }
+    }
+
+    /**
+     * Iterates over all transactions in the time range, newest first, for streaming exports.
+     */
+    public Iterator<Transaction> exportTransactions(Instant from, Instant to) {
+        long start = System.nanoTime();
+        try {
+            validateTimeRange(from, to);
+            return repository.iterate(from, to);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.EXPORT, start);
+        }
+    }
+
+    /**
+     * Returns the count, sum, min and max of the amounts per {@code interval} bucket, type and category, newest
+     * bucket first. Buckets that overlap the time range are covered in full.
+     */
+    public List<TransactionStats> getStats(StatsInterval interval, TransactionType type, String category,
+                                           Instant from, Instant to) {
+        long start = System.nanoTime();
+        try {
+            validateTimeRange(from, to);
+            return repository.stats(interval, type, category, from, to);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.STATS, start);
+        }
+    }
+
+    /**
+     * Sequence number of the latest committed change, 0 before the first.
+     */
+    public long latestChangeSequence() {
+        return changes.latestSequence();
     }
 
-    @CacheEvict(value = "transactions", key = "#id")
+    /**
+     * Returns up to {@code max} committed changes after sequence number {@code after}, in commit order, waiting up
+     * to {@code wait} for the first. See {@link ChangeFeed#read} for when the page asks for a resync instead.
+     */
+    public ChangeFeed.Page getChanges(long after, int max, Duration wait) throws InterruptedException {
+        return changes.read(after, max, wait);
+    }
+
+    /**
+     * Replaces the transaction if it is at the version the given one carries, as a batch update does, or at any
+     * version when it carries none.
+     *
+     * @throws TransactionException {@link TransactionErrorType#VERSION_CONFLICT} if the transaction is at
+     *                              another version
+     */
     public Transaction updateTransaction(UUID id, Transaction transaction) {
-        validateTransaction(transaction);
+        return updateTransaction(id, transaction, transaction.getVersion());
+    }
+
+    /**
+     * Replaces the transaction if it is at {@code expectedVersion}, or at any version when that is {@code null}.
+     * The saved transaction carries its new version.
+     *
+     * @throws TransactionException {@link TransactionErrorType#VERSION_CONFLICT} if the transaction is at
+     *                              another version
+     */
+    public Transaction updateTransaction(UUID id, Transaction transaction, Long expectedVersion) {
+        return updateTransaction(id, transaction, expectedVersion == null ? null : new long[] {expectedVersion});
+    }
+
+    /**
+     * Replaces the transaction if it is at one of {@code expectedVersions}, as named by an If-Match list, or at
+     * any version when that is {@code null}.
+     *
+     * @throws TransactionException {@link TransactionErrorType#VERSION_CONFLICT} if the transaction is at
+     *                              another version
+     */
+    public Transaction updateTransaction(UUID id, Transaction transaction, long[] expectedVersions) {
+        long start = System.nanoTime();
         try {
-            lock.lock();
-            if (!repository.findById(id).isPresent()) {
-                throw new TransactionException(TransactionErrorType.TRANSACTION_NOT_FOUND);
+            validateTransaction(transaction);
+            ReentrantLock lock = lockFor(id);
+            long acquired = metrics.lock(lock);
+            try {
+                transaction.setId(id);
+                if (expectedVersions == null) {
+                    if (!repository.findById(id).isPresent()) {
+                        throw TransactionException.of(TransactionErrorType.TRANSACTION_NOT_FOUND);
+                    }
+                    repository.save(transaction);
+                } else if (!repository.saveIfVersion(transaction, matchingVersion(id, expectedVersions))) {
+                    throw notApplied(id);
+                }
+                cache.put(transaction);
+                changes.updated(transaction);
+                return transaction;
+            } finally {
+                metrics.unlock(lock, acquired);
             }
-            transaction.setId(id);
-            return repository.save(transaction);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
         } finally {
-            lock.unlock();
+            metrics.record(Operation.UPDATE, start);
         }
     }
 
-    @CacheEvict(value = "transactions", key = "#id")
     public void deleteTransaction(UUID id) {
+        deleteTransaction(id, (long[]) null);
+    }
+
+    /**
+     * Deletes the transaction if it is at {@code expectedVersion}, or at any version when that is {@code null}.
+     *
+     * @throws TransactionException {@link TransactionErrorType#VERSION_CONFLICT} if the transaction is at
+     *                              another version
+     */
+    public void deleteTransaction(UUID id, Long expectedVersion) {
+        deleteTransaction(id, expectedVersion == null ? null : new long[] {expectedVersion});
+    }
+
+    /**
+     * Deletes the transaction if it is at one of {@code expectedVersions}, as named by an If-Match list, or at
+     * any version when that is {@code null}.
+     *
+     * @throws TransactionException {@link TransactionErrorType#VERSION_CONFLICT} if the transaction is at
+     *                              another version
+     */
+    public void deleteTransaction(UUID id, long[] expectedVersions) {
+        long start = System.nanoTime();
         try {
-            lock.lock();
-            if (!repository.findById(id).isPresent()) {
-                throw new TransactionException(TransactionErrorType.TRANSACTION_NOT_FOUND);
+            ReentrantLock lock = lockFor(id);
+            long acquired = metrics.lock(lock);
+            try {
+                Long deletedVersion;
+                if (expectedVersions == null) {
+                    Transaction stored = repository.findById(id)
+                            .orElseThrow(() -> TransactionException.of(TransactionErrorType.TRANSACTION_NOT_FOUND));
+                    deletedVersion = stored.getVersion();
+                    repository.deleteById(id);
+                } else {
+                    deletedVersion = matchingVersion(id, expectedVersions);
+                    if (!repository.deleteIfVersion(id, deletedVersion)) {
+                        throw notApplied(id);
+                    }
+                }
+                cache.putMissing(id);
+                changes.deleted(id, deletedVersion);
+            } finally {
+                metrics.unlock(lock, acquired);
             }
-            repository.deleteById(id);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
         } finally {
-            lock.unlock();
+            metrics.record(Operation.DELETE, start);
+        }
+    }
+
+    /**
+     * Drops the transactions of every repository partition that ends at or before {@code cutoff}, writing each
+     * partition to {@code archive} first unless that is {@code null}, and returns how many were dropped. See
+     * {@link TransactionRepository#dropBefore}.
+     *
+     * <p>The cache is cleared rather than told about every dropped id, which would cost as much as deleting them
+     * one by one, and change feed readers are told to resync. Writes put into the cache under their id's lock, so
+     * the cache is cleared with every lock held: a write that reached a dropped partition cannot re-cache it later.
+     */
+    public long expireTransactions(Instant cutoff, PartitionArchive archive) throws IOException {
+        long start = System.nanoTime();
+        long dropped = 0;
+        boolean completed = false;
+        try {
+            dropped = repository.dropBefore(cutoff, archive);
+            completed = true;
+            return dropped;
+        } finally {
+            // Partitions dropped before a failure are gone as well
+            if (dropped > 0 || !completed) {
+                invalidateCache();
+                changes.expired();
+            }
+            metrics.record(Operation.EXPIRE, start);
+        }
+    }
+
+    /**
+     * Creates every valid item of the batch. Items are validated in a single pass and written with one
+     * {@link TransactionRepository#saveAll} call per lock stripe; invalid items are reported individually.
+     */
+    public List<BatchItemResult> createTransactions(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        try {
+            validateBatch(transactions);
+            BatchItemResult[] results = new BatchItemResult[transactions.size()];
+            Map<ReentrantLock, List<Integer>> byStripe = new LinkedHashMap<>();
+            Set<UUID> seen = new HashSet<>();
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                try {
+                    validateBatchItem(transaction);
+                    validateTransaction(transaction);
+                    if (transaction.getId() == null) {
+                        transaction.setId(UUID.randomUUID());
+                    } else {
+                        validateFirstOccurrence(seen, transaction.getId());
+                    }
+                    byStripe.computeIfAbsent(lockFor(transaction.getId()), lock -> new ArrayList<>()).add(i);
+                } catch (TransactionException e) {
+                    results[i] = failed(i, transaction == null ? null : transaction.getId(), e.getErrorType());
+                }
+            }
+            byStripe.forEach((lock, indexes) -> {
+                long acquired = metrics.lock(lock);
+                try {
+                    saveGroup(indexes, transactions, results, ChangeType.CREATED);
+                } finally {
+                    metrics.unlock(lock, acquired);
+                }
+            });
+            return Arrays.asList(results);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.CREATE_BATCH, start);
+        }
+    }
+
+    /**
+     * Updates every item of the batch that carries the id of an existing transaction. An item that also carries
+     * a version is only applied if the transaction is still at that version.
+     */
+    public List<BatchItemResult> updateTransactions(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        try {
+            validateBatch(transactions);
+            BatchItemResult[] results = new BatchItemResult[transactions.size()];
+            Map<ReentrantLock, List<Integer>> byStripe = new LinkedHashMap<>();
+            Set<UUID> seen = new HashSet<>();
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                try {
+                    validateBatchItem(transaction);
+                    if (transaction.getId() == null) {
+                        throw TransactionException.of(TransactionErrorType.TRANSACTION_NOT_FOUND);
+                    }
+                    validateTransaction(transaction);
+                    validateFirstOccurrence(seen, transaction.getId());
+                    byStripe.computeIfAbsent(lockFor(transaction.getId()), lock -> new ArrayList<>()).add(i);
+                } catch (TransactionException e) {
+                    results[i] = failed(i, transaction == null ? null : transaction.getId(), e.getErrorType());
+                }
+            }
+            byStripe.forEach((lock, indexes) -> {
+                long acquired = metrics.lock(lock);
+                try {
+                    // Other writes to these ids wait for the stripe's lock, and no id is in the group twice, so the
+                    // versions checked here still hold when the group is saved
+                    List<Integer> existing = new ArrayList<>(indexes.size());
+                    for (int index : indexes) {
+                        Transaction transaction = transactions.get(index);
+                        Optional<Transaction> stored = repository.findById(transaction.getId());
+                        if (stored.isEmpty()) {
+                            results[index] = failed(index, transaction.getId(), TransactionErrorType.TRANSACTION_NOT_FOUND);
+                        } else if (transaction.getVersion() != null
+                                && !transaction.getVersion().equals(stored.get().getVersion())) {
+                            results[index] = failed(index, transaction.getId(), TransactionErrorType.VERSION_CONFLICT);
+                        } else {
+                            existing.add(index);
+                        }
+                    }
+                    saveGroup(existing, transactions, results, ChangeType.UPDATED);
+                } finally {
+                    metrics.unlock(lock, acquired);
+                }
+            });
+            return Arrays.asList(results);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.UPDATE_BATCH, start);
+        }
+    }
+
+    /**
+     * Deletes every existing transaction in the batch, with one {@link TransactionRepository#deleteAllById}
+     * call per lock stripe.
+     */
+    public List<BatchItemResult> deleteTransactions(List<UUID> ids) {
+        long start = System.nanoTime();
+        try {
+            validateBatch(ids);
+            BatchItemResult[] results = new BatchItemResult[ids.size()];
+            Map<ReentrantLock, List<Integer>> byStripe = new LinkedHashMap<>();
+            Set<UUID> seen = new HashSet<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) == null || !seen.add(ids.get(i))) {
+                    results[i] = failed(i, ids.get(i), TransactionErrorType.INVALID_BATCH);
+                } else {
+                    byStripe.computeIfAbsent(lockFor(ids.get(i)), lock -> new ArrayList<>()).add(i);
+                }
+            }
+            byStripe.forEach((lock, indexes) -> {
+                long acquired = metrics.lock(lock);
+                try {
+                    List<UUID> existing = new ArrayList<>(indexes.size());
+                    List<Long> versions = new ArrayList<>(indexes.size());
+                    for (int index : indexes) {
+                        UUID id = ids.get(index);
+                        Optional<Transaction> stored = repository.findById(id);
+                        if (stored.isPresent()) {
+                            existing.add(id);
+                            versions.add(stored.get().getVersion());
+                            results[index] = BatchItemResult.succeeded(index, id);
+                        } else {
+                            results[index] = failed(index, id, TransactionErrorType.TRANSACTION_NOT_FOUND);
+                        }
+                    }
+                    repository.deleteAllById(existing);
+                    for (int k = 0; k < existing.size(); k++) {
+                        cache.putMissing(existing.get(k));
+                        changes.deleted(existing.get(k), versions.get(k));
+                    }
+                } finally {
+                    metrics.unlock(lock, acquired);
+                }
+            });
+            return Arrays.asList(results);
+        } catch (TransactionException e) {
+            throw metrics.failed(e);
+        } finally {
+            metrics.record(Operation.DELETE_BATCH, start);
+        }
+    }
+
+    // Commits one micro-batch on the writer thread. Every stripe the batch touches is locked around a single
+    // saveAll, so the batch shares one log sync and the cache and change feed still see each id's writes in
+    // repository order.
+    // Stripes are taken in index order, and every other path holds at most one, so this cannot deadlock.
+    private void commitCreates(List<Transaction> batch) {
+        BitSet stripes = new BitSet(locks.length);
+        for (Transaction transaction : batch) {
+            stripes.set(stripeOf(transaction.getId()));
+        }
+        int[] held = stripes.stream().toArray();
+        long[] acquired = new long[held.length];
+        int locked = 0;
+        try {
+            for (; locked < held.length; locked++) {
+                acquired[locked] = metrics.lock(locks[held[locked]]);
+            }
+            repository.saveAll(batch);
+            for (Transaction transaction : batch) {
+                cache.put(transaction);
+                changes.created(transaction);
+            }
+        } finally {
+            while (locked > 0) {
+                locked--;
+                metrics.unlock(locks[held[locked]], acquired[locked]);
+            }
+        }
+    }
+
+    // Saves the given items of one stripe; the caller holds the stripe's lock
+    private void saveGroup(List<Integer> indexes, List<Transaction> transactions, BatchItemResult[] results,
+                           ChangeType change) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        List<Transaction> group = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            group.add(transactions.get(index));
+        }
+        List<Transaction> saved = repository.saveAll(group);
+        for (int k = 0; k < saved.size(); k++) {
+            cache.put(saved.get(k));
+            if (change == ChangeType.CREATED) {
+                changes.created(saved.get(k));
+            } else {
+                changes.updated(saved.get(k));
+            }
+            results[indexes.get(k)] = BatchItemResult.succeeded(indexes.get(k), saved.get(k));
+        }
+    }
+
+    // Clears the cache while holding every stripe, in the same order batches take them
+    private void invalidateCache() {
+        int locked = 0;
+        try {
+            for (; locked < locks.length; locked++) {
+                locks[locked].lock();
+            }
+            cache.invalidateAll();
+        } finally {
+            while (locked > 0) {
+                locks[--locked].unlock();
+            }
+        }
+    }
+
+    // The one of versions the transaction is at; when it is at none of them, a version no transaction has, which
+    // fails the conditional write. A single version is taken as is. The caller holds the id's lock.
+    private long matchingVersion(UUID id, long[] versions) {
+        if (versions.length == 1) {
+            return versions[0];
+        }
+        Optional<Transaction> stored = repository.findById(id);
+        for (long version : versions) {
+            if (stored.isPresent() && version == stored.get().getVersion()) {
+                return version;
+            }
+        }
+        return 0;
+    }
+
+    // Tells why a conditional write to id was not applied; the caller holds the id's lock
+    private TransactionException notApplied(UUID id) {
+        return TransactionException.of(repository.findById(id).isPresent()
+                ? TransactionErrorType.VERSION_CONFLICT
+                : TransactionErrorType.TRANSACTION_NOT_FOUND);
+    }
+
+    private BatchItemResult failed(int index, UUID id, TransactionErrorType errorType) {
+        metrics.error(errorType);
+        return BatchItemResult.failed(index, id, errorType);
+    }
+
+    private ReentrantLock lockFor(UUID id) {
+        return locks[stripeOf(id)];
+    }
+
+    private int stripeOf(UUID id) {
+        int hash = id.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (locks.length - 1);
+    }
+
+    // Rethrows the failure of a create committed by the writer as it would have been thrown in place
+    private static Transaction await(CompletableFuture<Transaction> created) {
+        try {
+            return created.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
     private void validateTransaction(Transaction transaction) {
         if (transaction.getAmount() == null) {
-            throw new TransactionException(TransactionErrorType.INVALID_AMOUNT);
+            throw TransactionException.of(TransactionErrorType.INVALID_AMOUNT);
         }
         if (transaction.getAmount().compareTo(BigDecimal.ZERO) < 0) {
-            throw new TransactionException(TransactionErrorType.NEGATIVE_AMOUNT);
+            throw TransactionException.of(TransactionErrorType.NEGATIVE_AMOUNT);
         }
         if (transaction.getAmount().compareTo(BigDecimal.ZERO) == 0) {
-            throw new TransactionException(TransactionErrorType.ZERO_AMOUNT);
+            throw TransactionException.of(TransactionErrorType.ZERO_AMOUNT);
         }
         if (transaction.getType() == null) {
-            throw new TransactionException(TransactionErrorType.INVALID_TYPE);
+            throw TransactionException.of(TransactionErrorType.INVALID_TYPE);
         }
         if (transaction.getDescription() == null || transaction.getDescription().trim().isEmpty()) {
-            throw new TransactionException(TransactionErrorType.MISSING_DESCRIPTION);
+            throw TransactionException.of(TransactionErrorType.MISSING_DESCRIPTION);
         }
         if (transaction.getCategory() == null || transaction.getCategory().trim().isEmpty()) {
-            throw new TransactionException(TransactionErrorType.MISSING_CATEGORY);
+            throw TransactionException.of(TransactionErrorType.MISSING_CATEGORY);
+        }
+    }
+
+    // The request checks below are static so the reactive service, built from src/reactive, shares them
+    static TransactionCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new TransactionException(TransactionErrorType.INVALID_CURSOR, e);
+        }
+    }
+
+    private void validateBatch(List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > maxBatchSize) {
+            throw TransactionException.of(TransactionErrorType.INVALID_BATCH);
+        }
+    }
+
+    private void validateBatchItem(Transaction transaction) {
+        if (transaction == null) {
+            throw TransactionException.of(TransactionErrorType.INVALID_BATCH);
+        }
+    }
+
+    // A stripe's items are checked together and then written together, so a repeated id would be applied
+    // twice without either write seeing the other; repeats are rejected instead
+    private void validateFirstOccurrence(Set<UUID> seen, UUID id) {
+        if (!seen.add(id)) {
+            throw TransactionException.of(TransactionErrorType.INVALID_BATCH);
+        }
+    }
+
+    static void validateQuery(TransactionQuery query) {
+        validateTimeRange(query.from(), query.to());
+        if (query.minAmount() != null && query.maxAmount() != null
+                && query.minAmount().compareTo(query.maxAmount()) > 0) {
+            throw TransactionException.of(TransactionErrorType.INVALID_AMOUNT_RANGE);
+        }
+    }
+
+    static void validateTimeRange(Instant from, Instant to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw TransactionException.of(TransactionErrorType.INVALID_TIME_RANGE);
         }
     }
 
-    private void validatePagination(int page, int size) {
+    static void validatePagination(int page, int size) {
         if (page < 0) {
-            throw new TransactionException(TransactionErrorType.INVALID_PAGINATION);
+            throw TransactionException.of(TransactionErrorType.INVALID_PAGINATION);
         }
         if (size <= 0) {
-            throw new TransactionException(TransactionErrorType.INVALID_PAGINATION);
+            throw TransactionException.of(TransactionErrorType.INVALID_PAGINATION);
         }
         if (size > MAX_PAGE_SIZE) {
-            throw new TransactionException(TransactionErrorType.INVALID_PAGINATION);
+            throw TransactionException.of(TransactionErrorType.INVALID_PAGINATION);
         }
     }
 }
\ No newline at end of file
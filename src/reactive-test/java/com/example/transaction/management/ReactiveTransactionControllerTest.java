@@ -0,0 +1,329 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.config.ReactiveWireFormatConfig;
+import com.example.transaction.management.config.WireFormatConfig;
+import com.example.transaction.management.controller.ReactiveTransactionController;
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.ChangeType;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionChange;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.model.TransactionSnapshot;
+import com.example.transaction.management.service.ChangeFeed;
+import com.example.transaction.management.service.ReactiveTransactionService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveTransactionController.class)
+@Import(ReactiveWireFormatConfig.class)
+public class ReactiveTransactionControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @MockBean
+    private ReactiveTransactionService transactionService;
+
+    private Transaction testTransaction;
+    private UUID testId;
+
+    @BeforeEach
+    void setUp() {
+        testId = UUID.randomUUID();
+        testTransaction = new Transaction();
+        testTransaction.setId(testId);
+        testTransaction.setAmount(new BigDecimal("100.00"));
+        testTransaction.setType(TransactionType.DEPOSIT);
+        testTransaction.setDescription("Test deposit");
+        testTransaction.setCategory("Test");
+        testTransaction.setTimestamp(Instant.now());
+    }
+
+    @Test
+    @DisplayName("Should create a new transaction")
+    void testCreateTransaction() {
+        when(transactionService.createTransaction(any(Transaction.class))).thenReturn(Mono.just(testTransaction));
+
+        webTestClient.post().uri("/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testTransaction)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(testId.toString())
+                .jsonPath("$.amount").isEqualTo(100.00);
+    }
+
+    @Test
+    @DisplayName("Should return 404 for an unknown transaction")
+    void testGetTransactionNotFound() {
+        when(transactionService.getTransaction(testId)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/transactions/" + testId)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Should return 412 when an update without If-Match is at another version than its body")
+    void testUpdateTransactionBodyVersionConflict() {
+        testTransaction.setVersion(2L);
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class)))
+                .thenReturn(Mono.error(TransactionException.of(TransactionErrorType.VERSION_CONFLICT)));
+
+        webTestClient.put().uri("/transactions/" + testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testTransaction)
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody()
+                .jsonPath("$.errorType").isEqualTo("VERSION_CONFLICT");
+    }
+
+    @Test
+    @DisplayName("Should update at a version in If-Match and return 412 once it has changed")
+    void testUpdateTransactionIfMatch() {
+        testTransaction.setVersion(4L);
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class), aryEq(new long[] {3})))
+                .thenReturn(Mono.just(testTransaction));
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class), aryEq(new long[] {3, 4})))
+                .thenReturn(Mono.just(testTransaction));
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class), aryEq(new long[] {2})))
+                .thenReturn(Mono.error(TransactionException.of(TransactionErrorType.VERSION_CONFLICT)));
+
+        webTestClient.put().uri("/transactions/" + testId)
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testTransaction)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"4\"");
+
+        webTestClient.put().uri("/transactions/" + testId)
+                .header("If-Match", "\"3\", \"4\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testTransaction)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.put().uri("/transactions/" + testId)
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testTransaction)
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody()
+                .jsonPath("$.errorType").isEqualTo("VERSION_CONFLICT");
+    }
+
+    @Test
+    @DisplayName("Should return a page with the cursor of the next one")
+    void testGetAllTransactions() {
+        when(transactionService.getAllTransactions(0, 1)).thenReturn(Flux.just(testTransaction));
+
+        webTestClient.get().uri("/transactions?page=0&size=1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", TransactionCursor.of(testTransaction).encode())
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(testId.toString());
+    }
+
+    @Test
+    @DisplayName("Should stream a page as newline-delimited JSON")
+    void testStreamTransactions() {
+        Transaction older = new Transaction();
+        older.setId(UUID.randomUUID());
+        older.setTimestamp(Instant.EPOCH);
+        when(transactionService.getAllTransactions(0, 10)).thenReturn(Flux.just(testTransaction, older));
+
+        webTestClient.get().uri("/transactions")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .returnResult(Transaction.class)
+                .getResponseBody()
+                .map(Transaction::getId)
+                .collectList()
+                .doOnNext(ids -> assertEquals(List.of(testId, older.getId()), ids))
+                .block();
+    }
+
+    @Test
+    @DisplayName("Should stream exports as newline-delimited JSON")
+    void testExportTransactions() {
+        when(transactionService.exportTransactions(null, null)).thenReturn(Flux.just(testTransaction));
+
+        webTestClient.get().uri("/transactions/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Transaction.class).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should return 400 for validation errors and malformed parameters")
+    void testBadRequests() {
+        when(transactionService.getAllTransactions(-1, 10))
+                .thenReturn(Flux.error(new TransactionException(TransactionErrorType.INVALID_PAGINATION)));
+
+        webTestClient.get().uri("/transactions?page=-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errorType").isEqualTo("INVALID_PAGINATION");
+
+        webTestClient.get().uri("/transactions?type=REFUND")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid value for parameter 'type'");
+    }
+
+    @Test
+    @DisplayName("Should stream changes as server-sent events and end with a resync")
+    void testStreamChanges() {
+        TransactionChange created = new TransactionChange(
+                8, ChangeType.CREATED, testId, 1L, TransactionSnapshot.of(testTransaction));
+        when(transactionService.streamChanges(eq(7L), anyInt(), any())).thenReturn(Flux.just(
+                new ChangeFeed.Page(List.of(created), false, 8),
+                new ChangeFeed.Page(List.of(), false, 8),
+                new ChangeFeed.Page(List.of(), true, 20_000)));
+
+        List<ServerSentEvent<String>> events = webTestClient.get().uri("/transactions/changes?since=7")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(3, events.size());
+        assertEquals("8", events.get(0).id());
+        assertEquals("change", events.get(0).event());
+        assertTrue(events.get(0).data().contains(testId.toString()));
+        assertEquals("heartbeat", events.get(1).comment());
+        assertEquals("resync", events.get(2).event());
+        assertEquals("20000", events.get(2).data());
+    }
+
+    @Test
+    @DisplayName("Should serve a page and accept a batch as Smile when asked for it")
+    void testSmile() throws IOException {
+        MediaType smile = MediaType.parseMediaType(WireFormatConfig.SMILE_VALUE);
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        when(transactionService.getAllTransactions(0, 10)).thenReturn(Flux.just(testTransaction));
+        when(transactionService.createTransactions(any())).thenAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            return Mono.just(List.of(BatchItemResult.succeeded(0, batch.get(0))));
+        });
+
+        byte[] page = webTestClient.get().uri("/transactions")
+                .accept(smile)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(smile)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        byte[] results = webTestClient.post().uri("/transactions/batch")
+                .contentType(smile)
+                .accept(smile)
+                .bodyValue(smileMapper.writeValueAsBytes(List.of(testTransaction)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(smile)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        assertArrayEquals(smileMapper.writeValueAsBytes(List.of(testTransaction)), page);
+        List<BatchItemResult> decoded = smileMapper.readValue(results, new TypeReference<List<BatchItemResult>>() {
+        });
+        assertTrue(decoded.get(0).success());
+        assertEquals(testId, decoded.get(0).transaction().getId());
+        assertEquals(testTransaction.getTimestamp(), decoded.get(0).transaction().getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Should answer repeated polls with 304 while nothing has changed")
+    void testNotModified() {
+        testTransaction.setVersion(3L);
+        when(transactionService.getTransaction(testId)).thenReturn(Mono.just(testTransaction));
+        when(transactionService.latestChangeSequence()).thenReturn(5L);
+        when(transactionService.getAllTransactions(0, 10)).thenReturn(Flux.just(testTransaction));
+
+        webTestClient.get().uri("/transactions/" + testId)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        String eTag = webTestClient.get().uri("/transactions")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        webTestClient.get().uri("/transactions")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectBody().isEmpty();
+        verify(transactionService, times(1)).getAllTransactions(0, 10);
+
+        when(transactionService.latestChangeSequence()).thenReturn(6L);
+        when(transactionService.getStats(any(), any(), any(), any(), any())).thenReturn(Flux.empty());
+        String next = webTestClient.get().uri("/transactions/stats")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+        assertNotEquals(eTag, next);
+    }
+}
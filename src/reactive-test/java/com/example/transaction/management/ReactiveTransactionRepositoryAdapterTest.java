@@ -0,0 +1,80 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.ReactiveTransactionRepositoryAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveTransactionRepositoryAdapterTest {
+    // Base instant for generated timestamps
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    // Transactions in the store; far more than the subscriber requests
+    private static final int STORE_SIZE = 10_000;
+
+    @Test
+    @DisplayName("Should only read as many transactions as the subscriber requests")
+    void testStreamHonorsBackpressure() {
+        AtomicInteger read = new AtomicInteger();
+        InMemoryTransactionRepository store = new InMemoryTransactionRepository() {
+            @Override
+            public Iterator<Transaction> iterate(Instant from, Instant to) {
+                Iterator<Transaction> iterator = super.iterate(from, to);
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Transaction next() {
+                        read.incrementAndGet();
+                        return iterator.next();
+                    }
+                };
+            }
+        };
+        for (int i = 0; i < STORE_SIZE; i++) {
+            store.save(createTransaction(BASE_TIME.plusSeconds(i)));
+        }
+
+        List<Transaction> received = new ArrayList<>();
+        new ReactiveTransactionRepositoryAdapter(store).stream(null, null).subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(5);
+            }
+
+            @Override
+            protected void hookOnNext(Transaction transaction) {
+                received.add(transaction);
+            }
+        });
+
+        assertEquals(5, received.size());
+        assertEquals(BASE_TIME.plusSeconds(STORE_SIZE - 1), received.get(0).getTimestamp());
+        // One element of read-ahead at most, to find out whether the stream has ended
+        assertTrue(read.get() <= 6, "Read " + read.get() + " transactions for 5 requested");
+    }
+
+    private Transaction createTransaction(Instant timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test transaction");
+        transaction.setCategory("Test");
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
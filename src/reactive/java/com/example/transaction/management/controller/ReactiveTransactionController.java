@@ -0,0 +1,259 @@
+package com.example.transaction.management.controller;
+
+import com.example.transaction.management.config.WireFormatConfig;
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionChange;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.service.ChangeFeed;
+import com.example.transaction.management.service.ReactiveTransactionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * WebFlux equivalent of {@link TransactionController}, with the same paths, parameters and responses.
+ * A page of {@code GET /transactions} is collected before it is written so that the
+ * {@value #NEXT_CURSOR_HEADER} header can be set; requested as NDJSON it is streamed instead, without the
+ * header. Exports and change streams are always streamed, with backpressure from the connection.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/transactions")
+@Tag(name = "Transaction Management", description = "Transaction Management API, including create, query, update and delete transactions")
+public class ReactiveTransactionController {
+    static final String NEXT_CURSOR_HEADER = TransactionController.NEXT_CURSOR_HEADER;
+    static final String IDEMPOTENCY_KEY_HEADER = TransactionController.IDEMPOTENCY_KEY_HEADER;
+    static final String LAST_EVENT_ID_HEADER = TransactionController.LAST_EVENT_ID_HEADER;
+
+    private final ReactiveTransactionService service;
+    private final Duration heartbeat;
+    private final String storeEpoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    public ReactiveTransactionController(ReactiveTransactionService service,
+                                         @Value("${transaction.changes.heartbeat:15s}") Duration heartbeat) {
+        this.service = service;
+        this.heartbeat = heartbeat;
+    }
+
+    @Operation(summary = "Create New Transaction", description = "Create a new transaction record")
+    @PostMapping
+    public Mono<ResponseEntity<Transaction>> createTransaction(
+            @RequestBody Transaction transaction,
+            @Parameter(description = "Client-chosen key; a repeated create with the same key returns the transaction made by the first")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return (idempotencyKey == null
+                ? service.createTransaction(transaction)
+                : service.createTransaction(transaction, idempotencyKey))
+                .map(created -> TransactionController.withETag(ResponseEntity.ok(), created).body(created));
+    }
+
+    @Operation(summary = "Get Transaction Details", description = "Get transaction details by ID")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Transaction>> getTransaction(
+            @Parameter(description = "Transaction ID", required = true)
+            @PathVariable UUID id) {
+        return service.getTransaction(id)
+                .map(found -> TransactionController.withETag(ResponseEntity.ok(), found).body(found))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Get All Transactions", description = "Get transaction records, newest first, optionally filtered, with offset or cursor pagination")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, WireFormatConfig.SMILE_VALUE})
+    public Mono<ResponseEntity<List<Transaction>>> getAllTransactions(
+            @Parameter(description = "Page number (starting from 0), ignored when a cursor is given")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Number of records per page")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Opaque cursor taken from the " + NEXT_CURSOR_HEADER + " header of a previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Only transactions of this type")
+            @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Only transactions in this category (exact match)")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Inclusive lower bound on the amount")
+            @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "Inclusive upper bound on the amount")
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "Inclusive lower bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Exclusive upper bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            ServerWebExchange exchange) {
+        if (notModified(exchange)) {
+            return null;
+        }
+        TransactionQuery query = new TransactionQuery(type, category, minAmount, maxAmount, from, to);
+        return page(query, page, size, cursor).collectList().map(transactions -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (!transactions.isEmpty() && transactions.size() == size) {
+                Transaction last = transactions.get(transactions.size() - 1);
+                response.header(NEXT_CURSOR_HEADER, TransactionCursor.of(last).encode());
+            }
+            return response.body(transactions);
+        });
+    }
+
+    @Operation(summary = "Stream Transactions", description = "Same page as Get All Transactions, streamed as newline-delimited JSON without a next-page cursor")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Transaction> streamTransactions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return page(new TransactionQuery(type, category, minAmount, maxAmount, from, to), page, size, cursor);
+    }
+
+    @Operation(summary = "Export Transactions", description = "Stream all transactions, newest first, as newline-delimited JSON")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Transaction> exportTransactions(
+            @Parameter(description = "Inclusive lower bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Exclusive upper bound on the timestamp (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return service.exportTransactions(from, to);
+    }
+
+    @Operation(summary = "Stream Transaction Changes", description = "Stream every committed create, update and delete, in commit order, as server-sent events")
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges(
+            @Parameter(description = "Sequence number of the last change already seen; only later changes are sent. "
+                    + "Defaults to the " + LAST_EVENT_ID_HEADER + " header, then to the latest change")
+            @RequestParam(required = false) Long since,
+            @Parameter(description = "Set by reconnecting event-stream clients to the ID of the last event they received")
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return Flux.defer(() -> service.streamChanges(
+                        TransactionController.changesAfter(since, lastEventId, service::latestChangeSequence),
+                        TransactionController.CHANGE_BATCH_SIZE, heartbeat))
+                .concatMapIterable(ReactiveTransactionController::events);
+    }
+
+    @Operation(summary = "Get Transaction Statistics", description = "Get the count, sum, min and max of amounts per time bucket, type and category, newest bucket first")
+    @GetMapping("/stats")
+    public Flux<TransactionStats> getStats(
+            @Parameter(description = "Width of the time buckets, aligned to UTC")
+            @RequestParam(defaultValue = "HOUR") StatsInterval interval,
+            @Parameter(description = "Only transactions of this type")
+            @RequestParam(required = false) TransactionType type,
+            @Parameter(description = "Only transactions in this category (exact match)")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Start of the time range (ISO-8601), rounded down to a bucket boundary")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End of the time range (ISO-8601), rounded up to a bucket boundary")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            ServerWebExchange exchange) {
+        if (notModified(exchange)) {
+            return null;
+        }
+        return service.getStats(interval, type, category, from, to);
+    }
+
+    @Operation(summary = "Update Transaction", description = "Update transaction information by ID")
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Transaction>> updateTransaction(
+            @Parameter(description = "Transaction ID", required = true)
+            @PathVariable UUID id,
+            @RequestBody Transaction transaction,
+            @Parameter(description = "ETag the update is based on; it is rejected if the transaction has changed since")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return (ifMatch == null
+                ? service.updateTransaction(id, transaction)
+                : service.updateTransaction(id, transaction, TransactionController.expectedVersions(ifMatch)))
+                .map(updated -> TransactionController.withETag(ResponseEntity.ok(), updated).body(updated))
+                .onErrorResume(e -> e instanceof RuntimeException && !TransactionController.isVersionConflict(e),
+                        e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @Operation(summary = "Delete Transaction", description = "Delete transaction by ID")
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteTransaction(
+            @Parameter(description = "Transaction ID", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "ETag the delete is based on; it is rejected if the transaction has changed since")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return (ifMatch == null
+                ? service.deleteTransaction(id)
+                : service.deleteTransaction(id, TransactionController.expectedVersions(ifMatch)))
+                .then(Mono.just(ResponseEntity.ok().<Void>build()));
+    }
+
+    @Operation(summary = "Create Transactions in Batch", description = "Create many transactions in one request, reporting the outcome of each item")
+    @PostMapping("/batch")
+    public Mono<List<BatchItemResult>> createTransactions(@RequestBody List<Transaction> transactions) {
+        return service.createTransactions(transactions);
+    }
+
+    @Operation(summary = "Update Transactions in Batch", description = "Update many transactions, identified by their IDs, in one request")
+    @PutMapping("/batch")
+    public Mono<List<BatchItemResult>> updateTransactions(@RequestBody List<Transaction> transactions) {
+        return service.updateTransactions(transactions);
+    }
+
+    @Operation(summary = "Delete Transactions in Batch", description = "Delete many transactions by ID in one request")
+    @DeleteMapping("/batch")
+    public Mono<List<BatchItemResult>> deleteTransactions(@RequestBody List<UUID> ids) {
+        return service.deleteTransactions(ids);
+    }
+
+    private static List<ServerSentEvent<Object>> events(ChangeFeed.Page page) {
+        if (page.resync()) {
+            return List.of(ServerSentEvent.builder()
+                    .event(TransactionController.RESYNC_EVENT).data(page.latestSequence()).build());
+        }
+        if (page.changes().isEmpty()) {
+            return List.of(ServerSentEvent.builder().comment("heartbeat").build());
+        }
+        List<ServerSentEvent<Object>> events = new ArrayList<>(page.changes().size());
+        for (TransactionChange change : page.changes()) {
+            events.add(ServerSentEvent.builder()
+                    .id(Long.toString(change.sequence()))
+                    .event(TransactionController.CHANGE_EVENT)
+                    .data(change)
+                    .build());
+        }
+        return events;
+    }
+
+    private Flux<Transaction> page(TransactionQuery query, int page, int size, String cursor) {
+        if (query.isRestricted()) {
+            return cursor == null
+                    ? service.queryTransactions(query, page, size)
+                    : service.queryTransactionsAfter(query, cursor, size);
+        }
+        return cursor == null
+                ? service.getAllTransactions(page, size)
+                : service.getTransactionsAfter(cursor, size);
+    }
+
+    // As in TransactionController; a null return leaves the 304 as it is
+    private boolean notModified(ServerWebExchange exchange) {
+        return exchange.checkNotModified(TransactionController.storeETag(storeEpoch, service.latestChangeSequence()));
+    }
+}
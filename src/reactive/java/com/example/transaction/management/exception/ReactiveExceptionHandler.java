@@ -0,0 +1,38 @@
+package com.example.transaction.management.exception;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ServerWebInputException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps WebFlux's request binding failures to the responses {@link GlobalExceptionHandler} gives their
+ * Spring MVC counterparts; without it they would reach its catch-all handler as server errors.
+ */
+@ControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+    @ExceptionHandler(ServerWebInputException.class)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> handleInputException(ServerWebInputException ex) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("timestamp", LocalDateTime.now());
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Invalid Parameter");
+        MethodParameter parameter = ex.getMethodParameter();
+        error.put("message", parameter == null || parameter.getParameterName() == null
+                ? ex.getReason()
+                : "Invalid value for parameter '" + parameter.getParameterName() + "'");
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.transaction.management.repository;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link TransactionRepository}, with the same ordering and bounds. Nothing
+ * happens until subscription, and a {@link Flux} only reads as many transactions as are requested of it.
+ */
+public interface ReactiveTransactionRepository {
+    Mono<Transaction> save(Transaction transaction);
+    Mono<Transaction> findById(UUID id);
+    Flux<Transaction> findAll(int page, int size);
+    Flux<Transaction> findAfter(TransactionCursor cursor, int size);
+    Flux<Transaction> query(TransactionQuery query, TransactionCursor cursor, int size);
+    Mono<Void> deleteById(UUID id);
+
+    /**
+     * Streams transactions newest first, as {@link TransactionRepository#iterate} iterates them.
+     */
+    Flux<Transaction> stream(Instant from, Instant to);
+
+    Flux<TransactionStats> stats(StatsInterval interval, TransactionType type, String category,
+                                 Instant from, Instant to);
+}
@@ -0,0 +1,81 @@
+package com.example.transaction.management.repository;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Exposes the configured {@link TransactionRepository} reactively. Reads only touch memory and run on the
+ * subscribing thread. Writes may wait for the write-ahead log to fsync, so they are moved to a scheduler
+ * meant for blocking work.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionRepositoryAdapter implements ReactiveTransactionRepository {
+    private final TransactionRepository repository;
+    private final Scheduler writeScheduler;
+
+    @Autowired
+    public ReactiveTransactionRepositoryAdapter(TransactionRepository repository) {
+        this(repository, Schedulers.boundedElastic());
+    }
+
+    public ReactiveTransactionRepositoryAdapter(TransactionRepository repository, Scheduler writeScheduler) {
+        this.repository = repository;
+        this.writeScheduler = writeScheduler;
+    }
+
+    @Override
+    public Mono<Transaction> save(Transaction transaction) {
+        return Mono.fromCallable(() -> repository.save(transaction)).subscribeOn(writeScheduler);
+    }
+
+    @Override
+    public Mono<Transaction> findById(UUID id) {
+        return Mono.defer(() -> Mono.justOrEmpty(repository.findById(id)));
+    }
+
+    @Override
+    public Flux<Transaction> findAll(int page, int size) {
+        return Flux.defer(() -> Flux.fromIterable(repository.findAll(page, size)));
+    }
+
+    @Override
+    public Flux<Transaction> findAfter(TransactionCursor cursor, int size) {
+        return Flux.defer(() -> Flux.fromIterable(repository.findAfter(cursor, size)));
+    }
+
+    @Override
+    public Flux<Transaction> query(TransactionQuery query, TransactionCursor cursor, int size) {
+        return Flux.defer(() -> Flux.fromIterable(repository.query(query, cursor, size)));
+    }
+
+    @Override
+    public Mono<Void> deleteById(UUID id) {
+        return Mono.<Void>fromRunnable(() -> repository.deleteById(id)).subscribeOn(writeScheduler);
+    }
+
+    @Override
+    public Flux<Transaction> stream(Instant from, Instant to) {
+        // The iterator is created per subscription and advanced one element per request
+        return Flux.fromIterable(() -> repository.iterate(from, to));
+    }
+
+    @Override
+    public Flux<TransactionStats> stats(StatsInterval interval, TransactionType type, String category,
+                                        Instant from, Instant to) {
+        return Flux.defer(() -> Flux.fromIterable(repository.stats(interval, type, category, from, to)));
+    }
+}
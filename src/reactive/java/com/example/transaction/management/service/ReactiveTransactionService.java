@@ -0,0 +1,191 @@
+package com.example.transaction.management.service;
+
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.repository.ReactiveTransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive facade of {@link TransactionService}. Reads are validated the same way and served from the
+ * {@link ReactiveTransactionRepository}. Writes go through {@link TransactionService} so that they take the
+ * same per-id locks and write through the same cache; since those locks block, writes run on a scheduler
+ * meant for blocking work and never on the event loop. With asynchronous writes, a create is only validated and
+ * queued before its result is awaited without blocking. Change streams wait for the next change on a virtual
+ * thread each, so idle subscribers do not occupy the bounded scheduler.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTransactionService {
+    private final TransactionService service;
+    private final ReactiveTransactionRepository repository;
+    private final Scheduler writeScheduler;
+    private final ExecutorService changeReaders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Scheduler changeScheduler = Schedulers.fromExecutor(changeReaders);
+
+    @Autowired
+    public ReactiveTransactionService(TransactionService service, ReactiveTransactionRepository repository) {
+        this(service, repository, Schedulers.boundedElastic());
+    }
+
+    public ReactiveTransactionService(TransactionService service, ReactiveTransactionRepository repository,
+                                      Scheduler writeScheduler) {
+        this.service = service;
+        this.repository = repository;
+        this.writeScheduler = writeScheduler;
+    }
+
+    @PreDestroy
+    public void close() {
+        changeReaders.shutdown();
+    }
+
+    public Mono<Transaction> createTransaction(Transaction transaction) {
+        if (service.writesAsynchronously()) {
+            // Nothing blocks until the writer commits; the result is then moved off the writer thread
+            return Mono.defer(() -> Mono.fromFuture(service.createTransactionAsync(transaction)))
+                    .publishOn(writeScheduler);
+        }
+        return write(() -> service.createTransaction(transaction));
+    }
+
+    public Mono<Transaction> createTransaction(Transaction transaction, String idempotencyKey) {
+        return write(() -> service.createTransaction(transaction, idempotencyKey));
+    }
+
+    public Mono<Transaction> getTransaction(UUID id) {
+        return Mono.defer(() -> Mono.justOrEmpty(service.getTransaction(id)));
+    }
+
+    public Flux<Transaction> getAllTransactions(int page, int size) {
+        return Flux.defer(() -> {
+            TransactionService.validatePagination(page, size);
+            return repository.findAll(page, size);
+        });
+    }
+
+    public Flux<Transaction> getTransactionsAfter(String cursor, int size) {
+        return Flux.defer(() -> {
+            TransactionService.validatePagination(0, size);
+            return repository.findAfter(TransactionService.decodeCursor(cursor), size);
+        });
+    }
+
+    /**
+     * Returns one page of the transactions matching {@code query}, newest first, found by skipping the
+     * matches of the earlier pages.
+     */
+    public Flux<Transaction> queryTransactions(TransactionQuery query, int page, int size) {
+        return Flux.defer(() -> {
+            TransactionService.validatePagination(page, size);
+            TransactionService.validateQuery(query);
+            long end = (long) (page + 1) * size;
+            if (end > Integer.MAX_VALUE) {
+                throw TransactionException.of(TransactionErrorType.INVALID_PAGINATION);
+            }
+            return repository.query(query, null, (int) end).skip((long) page * size);
+        });
+    }
+
+    public Flux<Transaction> queryTransactionsAfter(TransactionQuery query, String cursor, int size) {
+        return Flux.defer(() -> {
+            TransactionService.validatePagination(0, size);
+            TransactionService.validateQuery(query);
+            return repository.query(query, TransactionService.decodeCursor(cursor), size);
+        });
+    }
+
+    /**
+     * Streams all transactions in the time range, newest first, at the pace the subscriber requests them.
+     */
+    public Flux<Transaction> exportTransactions(Instant from, Instant to) {
+        return Flux.defer(() -> {
+            TransactionService.validateTimeRange(from, to);
+            return repository.stream(from, to);
+        });
+    }
+
+    public Flux<TransactionStats> getStats(StatsInterval interval, TransactionType type, String category,
+                                           Instant from, Instant to) {
+        return Flux.defer(() -> {
+            TransactionService.validateTimeRange(from, to);
+            return repository.stats(interval, type, category, from, to);
+        });
+    }
+
+    public long latestChangeSequence() {
+        return service.latestChangeSequence();
+    }
+
+    /**
+     * Streams pages of the changes after sequence number {@code after}, one read of the feed per page requested.
+     * A page is empty when no change came within {@code wait}. The stream ends with the first page that asks
+     * for a resync; a subscriber that stops requesting pages ends up there once the feed has moved past it.
+     */
+    public Flux<ChangeFeed.Page> streamChanges(long after, int max, Duration wait) {
+        return Flux.defer(() -> {
+            AtomicLong position = new AtomicLong(after);
+            return Mono.fromCallable(() -> service.getChanges(position.get(), max, wait))
+                    .subscribeOn(changeScheduler)
+                    .doOnNext(page -> {
+                        if (!page.changes().isEmpty()) {
+                            position.set(page.changes().get(page.changes().size() - 1).sequence());
+                        }
+                    })
+                    .repeat()
+                    .takeUntil(ChangeFeed.Page::resync);
+        });
+    }
+
+    public Mono<Transaction> updateTransaction(UUID id, Transaction transaction) {
+        return write(() -> service.updateTransaction(id, transaction));
+    }
+
+    public Mono<Transaction> updateTransaction(UUID id, Transaction transaction, long[] expectedVersions) {
+        return write(() -> service.updateTransaction(id, transaction, expectedVersions));
+    }
+
+    public Mono<Void> deleteTransaction(UUID id) {
+        return Mono.<Void>fromRunnable(() -> service.deleteTransaction(id)).subscribeOn(writeScheduler);
+    }
+
+    public Mono<Void> deleteTransaction(UUID id, long[] expectedVersions) {
+        return Mono.<Void>fromRunnable(() -> service.deleteTransaction(id, expectedVersions)).subscribeOn(writeScheduler);
+    }
+
+    public Mono<List<BatchItemResult>> createTransactions(List<Transaction> transactions) {
+        return write(() -> service.createTransactions(transactions));
+    }
+
+    public Mono<List<BatchItemResult>> updateTransactions(List<Transaction> transactions) {
+        return write(() -> service.updateTransactions(transactions));
+    }
+
+    public Mono<List<BatchItemResult>> deleteTransactions(List<UUID> ids) {
+        return write(() -> service.deleteTransactions(ids));
+    }
+
+    private <T> Mono<T> write(Callable<T> operation) {
+        return Mono.fromCallable(operation).subscribeOn(writeScheduler);
+    }
+}
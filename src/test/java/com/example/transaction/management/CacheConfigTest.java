@@ -0,0 +1,78 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.config.CacheConfig;
+import com.example.transaction.management.config.TransactionCacheProperties;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionSnapshot;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.service.TransactionCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheConfigTest {
+    // Entry bound used by the size test
+    private static final long MAXIMUM_SIZE = 100;
+
+    // Byte bound used by the weight test
+    private static final long MAXIMUM_WEIGHT = 10_000;
+
+    // Entries inserted into each cache
+    private static final int INSERTED = 1_000;
+
+    @Test
+    @DisplayName("Should bound the cache by entry count and record evictions")
+    void testMaximumSize() {
+        Cache<Object, Object> cache = build(new TransactionCacheProperties(MAXIMUM_SIZE, 0, Duration.ofMinutes(10), Duration.ofSeconds(5), true));
+        fill(cache);
+
+        assertTrue(cache.estimatedSize() <= MAXIMUM_SIZE);
+        assertTrue(cache.stats().evictionCount() > 0);
+    }
+
+    @Test
+    @DisplayName("Should bound the cache by estimated entry weight when configured")
+    void testMaximumWeight() {
+        Cache<Object, Object> cache = build(new TransactionCacheProperties(MAXIMUM_SIZE, MAXIMUM_WEIGHT, Duration.ofMinutes(10), Duration.ofSeconds(5), true));
+        fill(cache);
+
+        long weight = cache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertTrue(weight <= MAXIMUM_WEIGHT);
+        assertTrue(cache.estimatedSize() < MAXIMUM_SIZE, "Weight bound should be tighter than the size bound here");
+    }
+
+    @Test
+    @DisplayName("Should expire negative entries after the negative TTL only")
+    void testNegativeEntriesExpireSooner() {
+        Cache<Object, Object> cache = build(new TransactionCacheProperties(MAXIMUM_SIZE, 0, Duration.ofMinutes(10), Duration.ofSeconds(5), true));
+        Transaction transaction = new Transaction();
+        UUID missingId = UUID.randomUUID();
+        cache.put(transaction.getId(), TransactionSnapshot.of(transaction));
+        cache.put(missingId, TransactionCache.MISSING);
+
+        Policy.VarExpiration<Object, Object> expiry = cache.policy().expireVariably().orElseThrow();
+        assertTrue(expiry.getExpiresAfter(transaction.getId()).orElseThrow().compareTo(Duration.ofMinutes(9)) > 0);
+        assertTrue(expiry.getExpiresAfter(missingId).orElseThrow().compareTo(Duration.ofSeconds(5)) <= 0);
+    }
+
+    private Cache<Object, Object> build(TransactionCacheProperties properties) {
+        return new CacheConfig().caffeineConfig(properties).executor(Runnable::run).build();
+    }
+
+    private void fill(Cache<Object, Object> cache) {
+        for (int i = 0; i < INSERTED; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAmount(new BigDecimal("100.00"));
+            transaction.setType(TransactionType.DEPOSIT);
+            transaction.setDescription("Test transaction " + i);
+            transaction.setCategory("Test");
+            cache.put(transaction.getId(), TransactionSnapshot.of(transaction));
+        }
+        cache.cleanUp();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.columnar.ColumnarTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static com.example.transaction.management.TransactionFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTransactionRepositoryTest {
+    // Base instant for generated timestamps
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    // Number of random operations replayed against both repositories
+    private static final int OPERATION_COUNT = 20_000;
+
+    // Categories shared by many rows, as in real data
+    private static final String[] CATEGORIES = {"Income", "Groceries", "Rent", "Travel", "Utilities", "Savings"};
+
+    // Number of threads reading and writing concurrently
+    private static final int THREAD_COUNT = 4;
+
+    private ColumnarTransactionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ColumnarTransactionRepository();
+    }
+
+    @Test
+    @DisplayName("Should return every field as it was saved")
+    void testRoundTripsAllFields() {
+        Transaction regular = createTransaction(BASE_TIME.plusNanos(123_456_789), "Salary", "Income");
+        regular.setAmount(new BigDecimal("1234.5678"));
+        Transaction wide = createTransaction(Instant.parse("1969-07-20T20:17:40.5Z"), "Moon", "Travel");
+        wide.setAmount(new BigDecimal("123456789012345678901234567890.12"));
+        Transaction negativeScale = createTransaction(BASE_TIME, "Rounded", "Savings");
+        negativeScale.setAmount(new BigDecimal("1E+3"));
+        Transaction empty = createTransaction(BASE_TIME, null, null);
+        empty.setAmount(null);
+        empty.setType(null);
+
+        for (Transaction transaction : List.of(regular, wide, negativeScale, empty)) {
+            repository.save(transaction);
+            Transaction stored = repository.findById(transaction.getId()).orElseThrow();
+            assertEquals(transaction.getId(), stored.getId());
+            assertEquals(transaction.getAmount(), stored.getAmount());
+            assertEquals(transaction.getType(), stored.getType());
+            assertEquals(transaction.getDescription(), stored.getDescription());
+            assertEquals(transaction.getCategory(), stored.getCategory());
+            assertEquals(transaction.getTimestamp(), stored.getTimestamp());
+        }
+    }
+
+    @Test
+    @DisplayName("Should not change stored rows when a returned instance is mutated")
+    void testReturnedInstancesAreCopies() {
+        Transaction saved = repository.save(createTransaction(BASE_TIME, "Original", "Income"));
+        repository.findById(saved.getId()).orElseThrow().setDescription("Changed");
+        saved.setDescription("Changed too");
+
+        assertEquals("Original", repository.findById(saved.getId()).orElseThrow().getDescription());
+    }
+
+    @Test
+    @DisplayName("Should version every save and apply conditional writes only at the expected version")
+    void testConditionalWrites() {
+        Transaction saved = repository.save(createTransaction(BASE_TIME, "Original", "Income"));
+        assertEquals(1L, saved.getVersion());
+
+        Transaction update = createTransaction(BASE_TIME, "Updated", "Income");
+        update.setId(saved.getId());
+        assertTrue(repository.saveIfVersion(update, 1));
+        assertEquals(2L, update.getVersion());
+
+        Transaction stale = createTransaction(BASE_TIME, "Stale", "Income");
+        stale.setId(saved.getId());
+        assertFalse(repository.saveIfVersion(stale, 1));
+        Transaction stored = repository.findById(saved.getId()).orElseThrow();
+        assertEquals("Updated", stored.getDescription());
+        assertEquals(2L, stored.getVersion());
+
+        assertFalse(repository.saveIfVersion(createTransaction(BASE_TIME, "Unknown", "Income"), 1));
+        assertEquals(1, repository.count());
+
+        assertFalse(repository.deleteIfVersion(saved.getId(), 1));
+        assertTrue(repository.deleteIfVersion(saved.getId(), 2));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should reject timestamps outside the nanosecond range")
+    void testRejectsOutOfRangeTimestamp() {
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(createTransaction(Instant.parse("2300-01-01T00:00:00Z"), "Late", "Income")));
+    }
+
+    @Test
+    @DisplayName("Should page, seek and iterate exactly like the in-memory repository")
+    void testMatchesInMemoryRepository() {
+        InMemoryTransactionRepository reference = new InMemoryTransactionRepository();
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 6 || ids.isEmpty()) {
+                // Few distinct timestamps, so ties are broken by id; they span several hours of statistics
+                Transaction transaction = createTransaction(BASE_TIME.plusSeconds(random.nextInt(500) * 60L),
+                        "Description " + random.nextInt(1_000), CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                transaction.setAmount(BigDecimal.valueOf(random.nextInt(10_000), 2));
+                ids.add(transaction.getId());
+                save(reference, transaction);
+            } else if (operation < 9) {
+                Transaction update = createTransaction(BASE_TIME.plusSeconds(random.nextInt(500) * 60L),
+                        "Updated " + random.nextInt(1_000), CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                update.setAmount(BigDecimal.valueOf(random.nextInt(10_000), 2));
+                update.setId(ids.get(random.nextInt(ids.size())));
+                save(reference, update);
+            } else {
+                UUID id = ids.remove(random.nextInt(ids.size()));
+                reference.deleteById(id);
+                repository.deleteById(id);
+            }
+        }
+
+        for (int page = 0; page * 50 <= ids.size(); page++) {
+            assertEquals(describe(reference.findAll(page, 50)), describe(repository.findAll(page, 50)));
+        }
+        TransactionCursor cursor = null;
+        List<Transaction> expected;
+        do {
+            expected = reference.findAfter(cursor, 100);
+            assertEquals(describe(expected), describe(repository.findAfter(cursor, 100)));
+            cursor = expected.isEmpty() ? null : TransactionCursor.of(expected.get(expected.size() - 1));
+        } while (cursor != null);
+
+        Instant from = BASE_TIME.plusSeconds(100);
+        Instant to = BASE_TIME.plusSeconds(400);
+        assertEquals(drain(reference.iterate(from, to)), drain(repository.iterate(from, to)));
+        assertEquals(drain(reference.iterate(null, null)), drain(repository.iterate(null, null)));
+
+        TransactionQuery query = new TransactionQuery(TransactionType.DEPOSIT, "Groceries", null, null, from, to);
+        TransactionCursor afterFirst = TransactionCursor.of(reference.query(query, null, 1).get(0));
+        assertEquals(describe(reference.query(query, afterFirst, 20)), describe(repository.query(query, afterFirst, 20)));
+
+        // The in-memory repository reads maintained aggregates, the columnar one scans
+        assertEquals(reference.stats(StatsInterval.HOUR, null, null, null, null),
+                repository.stats(StatsInterval.HOUR, null, null, null, null));
+        assertEquals(reference.stats(StatsInterval.DAY, null, null, null, null),
+                repository.stats(StatsInterval.DAY, null, null, null, null));
+        Instant statsFrom = BASE_TIME.plusSeconds(5_000);
+        Instant statsTo = BASE_TIME.plusSeconds(20_000);
+        assertEquals(reference.stats(StatsInterval.HOUR, TransactionType.DEPOSIT, "Rent", statsFrom, statsTo),
+                repository.stats(StatsInterval.HOUR, TransactionType.DEPOSIT, "Rent", statsFrom, statsTo));
+    }
+
+    @Test
+    @DisplayName("Should serve consistent rows to readers while writers update them")
+    void testConcurrentReadsAndWrites() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(repository.save(createTransaction(BASE_TIME.plusSeconds(i), "Seed", "Income")).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            boolean writer = i % 2 == 0;
+            executor.submit(() -> {
+                try {
+                    Random random = new Random();
+                    for (int j = 0; j < 2_000; j++) {
+                        UUID id = ids.get(random.nextInt(ids.size()));
+                        if (writer) {
+                            // Description and category always change together
+                            int version = random.nextInt(10);
+                            Transaction update = createTransaction(BASE_TIME.plusSeconds(random.nextInt(1_000)),
+                                    "Version " + version, "Category " + version);
+                            update.setId(id);
+                            repository.save(update);
+                        } else {
+                            Transaction read = repository.findById(id).orElseThrow();
+                            if (!read.getDescription().equals("Seed")) {
+                                assertEquals(read.getDescription().replace("Version", "Category"), read.getCategory());
+                            }
+                            assertEquals(50, repository.findAll(0, 50).size());
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+
+        assertTrue(failures.isEmpty(), "Concurrent access failed: " + failures);
+        assertEquals(ids.size(), drain(repository.iterate(null, null)).size());
+    }
+
+    private void save(InMemoryTransactionRepository reference, Transaction transaction) {
+        reference.save(transaction);
+        repository.save(copy(transaction));
+    }
+}
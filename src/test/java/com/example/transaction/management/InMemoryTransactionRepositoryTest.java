@@ -0,0 +1,511 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.PartitionArchive;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryTransactionRepositoryTest {
+    // Base instant for generated timestamps
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    // Page size used when walking the whole store
+    private static final int PAGE_SIZE = 50;
+
+    // Size of the store whose first page is checked; a minute apart, its transactions span two weeks of partitions
+    private static final int LARGE_STORE = 20_000;
+
+    // Number of threads updating the same transactions concurrently
+    private static final int THREAD_COUNT = 4;
+
+    // Drops raced by concurrent writes; each round is a fresh store
+    private static final int DROP_ROUNDS = 20;
+
+    private InMemoryTransactionRepository repository;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTransactionRepository();
+    }
+
+    @Test
+    @DisplayName("Should return pages in the same order as a full timestamp sort")
+    void testFindAllMatchesSortedOrder() {
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            // Only 100 distinct timestamps so that ties are exercised
+            saved.add(repository.save(createTransaction(BASE_TIME.plusSeconds(i % 100))));
+        }
+
+        List<UUID> expected = saved.stream()
+                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed()
+                        .thenComparing(Transaction::getId))
+                .map(Transaction::getId)
+                .collect(Collectors.toList());
+
+        List<UUID> actual = new ArrayList<>();
+        for (int page = 0; page * PAGE_SIZE < saved.size(); page++) {
+            repository.findAll(page, PAGE_SIZE).forEach(t -> actual.add(t.getId()));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Should keep the ordered index consistent across updates and deletes")
+    void testIndexFollowsUpdatesAndDeletes() {
+        Transaction older = repository.save(createTransaction(BASE_TIME));
+        Transaction newer = repository.save(createTransaction(BASE_TIME.plusSeconds(10)));
+
+        Transaction moved = createTransaction(BASE_TIME.plusSeconds(20));
+        moved.setId(older.getId());
+        repository.save(moved);
+
+        List<Transaction> page = repository.findAll(0, 10);
+        assertEquals(2, page.size());
+        assertEquals(older.getId(), page.get(0).getId());
+        assertEquals(newer.getId(), page.get(1).getId());
+
+        repository.deleteById(older.getId());
+        page = repository.findAll(0, 10);
+        assertEquals(1, page.size());
+        assertEquals(newer.getId(), page.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Should not mis-order entries when a stored instance is mutated in place")
+    void testMutatedInstanceDoesNotCorruptIndex() {
+        Transaction transaction = repository.save(createTransaction(BASE_TIME));
+        transaction.setTimestamp(BASE_TIME.plusSeconds(60));
+        repository.save(transaction);
+        repository.deleteById(transaction.getId());
+
+        assertTrue(repository.findAll(0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should version every save and apply conditional writes only at the expected version")
+    void testConditionalWrites() {
+        Transaction saved = repository.save(createTransaction(BASE_TIME));
+        assertEquals(1L, saved.getVersion());
+
+        Transaction update = createTransaction(BASE_TIME.plusSeconds(10));
+        update.setId(saved.getId());
+        assertTrue(repository.saveIfVersion(update, 1));
+        assertEquals(2L, update.getVersion());
+
+        Transaction stale = createTransaction(BASE_TIME.plusSeconds(20));
+        stale.setId(saved.getId());
+        assertFalse(repository.saveIfVersion(stale, 1));
+        List<Transaction> page = repository.findAll(0, 10);
+        assertEquals(1, page.size());
+        assertEquals(BASE_TIME.plusSeconds(10), page.get(0).getTimestamp());
+        assertEquals(2L, page.get(0).getVersion());
+
+        Transaction unknown = createTransaction(BASE_TIME);
+        assertFalse(repository.saveIfVersion(unknown, 1));
+        assertFalse(repository.findById(unknown.getId()).isPresent());
+
+        assertFalse(repository.deleteIfVersion(saved.getId(), 1));
+        assertTrue(repository.deleteIfVersion(saved.getId(), 2));
+        assertTrue(repository.findAll(0, 10).isEmpty());
+        assertFalse(repository.deleteIfVersion(saved.getId(), 2));
+    }
+
+    @Test
+    @DisplayName("Should iterate a half-open time range newest first")
+    void testIterateTimeRange() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(createTransaction(BASE_TIME.plusSeconds(i)));
+            repository.save(createTransaction(BASE_TIME.plusSeconds(i)));
+        }
+
+        List<Instant> timestamps = new ArrayList<>();
+        repository.iterate(BASE_TIME.plusSeconds(3), BASE_TIME.plusSeconds(6))
+                .forEachRemaining(t -> timestamps.add(t.getTimestamp()));
+        assertEquals(List.of(
+                BASE_TIME.plusSeconds(5), BASE_TIME.plusSeconds(5),
+                BASE_TIME.plusSeconds(4), BASE_TIME.plusSeconds(4),
+                BASE_TIME.plusSeconds(3), BASE_TIME.plusSeconds(3)), timestamps);
+
+        List<Transaction> all = new ArrayList<>();
+        repository.iterate(null, null).forEachRemaining(all::add);
+        assertEquals(repository.findAll(0, 20).stream().map(Transaction::getId).collect(Collectors.toList()),
+                all.stream().map(Transaction::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should answer indexed queries like a filtered scan, across updates and deletes")
+    void testQueryMatchesFilteredScan() {
+        Random random = new Random(7);
+        String[] categories = {"Groceries", "Rent", "Travel"};
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            Transaction transaction = createTransaction(BASE_TIME.plusSeconds(random.nextInt(1_000)));
+            if (!saved.isEmpty() && random.nextInt(4) == 0) {
+                // Moves an existing transaction to another type, category and time
+                transaction.setId(saved.get(random.nextInt(saved.size())).getId());
+            }
+            transaction.setType(TransactionType.values()[random.nextInt(TransactionType.values().length)]);
+            transaction.setCategory(categories[random.nextInt(categories.length)]);
+            transaction.setAmount(BigDecimal.valueOf(random.nextInt(10_000), 2));
+            saved.add(repository.save(transaction));
+            if (random.nextInt(10) == 0) {
+                repository.deleteById(saved.get(random.nextInt(saved.size())).getId());
+            }
+        }
+
+        List<TransactionQuery> queries = List.of(
+                new TransactionQuery(TransactionType.WITHDRAWAL, "Groceries", null, null, null, null),
+                new TransactionQuery(TransactionType.TRANSFER, null, new BigDecimal("10"), new BigDecimal("50"), null, null),
+                new TransactionQuery(null, "Rent", null, null, BASE_TIME.plusSeconds(200), BASE_TIME.plusSeconds(700)),
+                new TransactionQuery(null, null, null, new BigDecimal("5"), BASE_TIME.plusSeconds(100), null),
+                new TransactionQuery(null, "Unknown", null, null, null, null));
+        for (TransactionQuery query : queries) {
+            List<UUID> expected = new ArrayList<>();
+            repository.iterate(null, null).forEachRemaining(t -> {
+                if (query.matches(t)) {
+                    expected.add(t.getId());
+                }
+            });
+
+            // Walk every match in pages of 7 to exercise the cursor against each index
+            List<UUID> actual = new ArrayList<>();
+            TransactionCursor cursor = null;
+            List<Transaction> page;
+            do {
+                page = repository.query(query, cursor, 7);
+                page.forEach(t -> actual.add(t.getId()));
+                cursor = page.isEmpty() ? null : TransactionCursor.of(page.get(page.size() - 1));
+            } while (page.size() == 7);
+            assertEquals(expected, actual, query.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Should retract old values from the statistics on update and delete")
+    void testStatsFollowUpdatesAndDeletes() {
+        Transaction small = createTransaction(BASE_TIME.plusSeconds(60));
+        small.setAmount(new BigDecimal("5.00"));
+        Transaction large = createTransaction(BASE_TIME.plusSeconds(120));
+        large.setAmount(new BigDecimal("500.00"));
+        repository.save(small);
+        repository.save(large);
+        repository.save(createTransaction(BASE_TIME.plusSeconds(180)));
+        assertEquals(List.of(new TransactionStats(BASE_TIME, TransactionType.DEPOSIT, "Test", 3,
+                        new BigDecimal("605.00"), new BigDecimal("5.00"), new BigDecimal("500.00"))),
+                repository.stats(StatsInterval.HOUR, null, null, null, null));
+
+        // Move the largest amount to another hour and category, and drop the smallest
+        Transaction moved = createTransaction(BASE_TIME.plusSeconds(3_600));
+        moved.setId(large.getId());
+        moved.setCategory("Travel");
+        moved.setAmount(new BigDecimal("50.00"));
+        repository.save(moved);
+        repository.deleteById(small.getId());
+
+        assertEquals(List.of(
+                        new TransactionStats(BASE_TIME.plusSeconds(3_600), TransactionType.DEPOSIT, "Travel", 1,
+                                new BigDecimal("50.00"), new BigDecimal("50.00"), new BigDecimal("50.00")),
+                        new TransactionStats(BASE_TIME, TransactionType.DEPOSIT, "Test", 1,
+                                new BigDecimal("100.00"), new BigDecimal("100.00"), new BigDecimal("100.00"))),
+                repository.stats(StatsInterval.HOUR, null, null, null, null));
+        assertEquals(List.of(new TransactionStats(BASE_TIME, TransactionType.DEPOSIT, "Travel", 1,
+                        new BigDecimal("50.00"), new BigDecimal("50.00"), new BigDecimal("50.00"))),
+                repository.stats(StatsInterval.DAY, null, "Travel", BASE_TIME.plusSeconds(7_000), null));
+        assertTrue(repository.stats(StatsInterval.HOUR, TransactionType.TRANSFER, null, null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep the statistics exact under concurrent updates of the same transactions")
+    void testConcurrentStatsUpdates() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(repository.save(createTransaction(BASE_TIME)).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            executor.submit(() -> {
+                try {
+                    Random random = new Random();
+                    for (int j = 0; j < 5_000; j++) {
+                        Transaction update = createTransaction(BASE_TIME.plusSeconds(random.nextInt(4) * 3_600L));
+                        update.setId(ids.get(random.nextInt(ids.size())));
+                        update.setAmount(BigDecimal.valueOf(random.nextInt(1_000) + 1, 2));
+                        repository.save(update);
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        assertTrue(failures.isEmpty(), "Concurrent updates failed: " + failures);
+
+        // A fresh store holding only the final versions must report the same aggregates
+        InMemoryTransactionRepository expected = new InMemoryTransactionRepository();
+        repository.iterate(null, null).forEachRemaining(expected::save);
+        assertEquals(expected.stats(StatsInterval.HOUR, null, null, null, null),
+                repository.stats(StatsInterval.HOUR, null, null, null, null));
+        assertEquals(ids.size(), repository.stats(StatsInterval.DAY, null, null, null, null).get(0).count());
+    }
+
+    @Test
+    @DisplayName("Should read across hourly partitions as one store")
+    void testReadsSpanPartitions() {
+        InMemoryTransactionRepository hourly = new InMemoryTransactionRepository(StatsInterval.HOUR);
+        Random random = new Random(11);
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // Two days, with a few hours left empty
+            Transaction transaction = createTransaction(BASE_TIME.plusSeconds(random.nextInt(48) % 40 * 3_600L
+                    + random.nextInt(3_600)));
+            transaction.setType(TransactionType.values()[random.nextInt(TransactionType.values().length)]);
+            saved.add(hourly.save(transaction));
+        }
+        List<Transaction> sorted = saved.stream()
+                .sorted(Comparator.comparing(Transaction::getTimestamp).reversed().thenComparing(Transaction::getId))
+                .collect(Collectors.toList());
+        assertEquals(saved.size(), hourly.count());
+
+        List<UUID> expected = sorted.stream().map(Transaction::getId).collect(Collectors.toList());
+        List<UUID> pages = new ArrayList<>();
+        for (int page = 0; page * PAGE_SIZE < saved.size(); page++) {
+            hourly.findAll(page, PAGE_SIZE).forEach(t -> pages.add(t.getId()));
+        }
+        assertEquals(expected, pages);
+        List<UUID> cursorPages = new ArrayList<>();
+        List<Transaction> page = hourly.findAfter(null, PAGE_SIZE);
+        while (!page.isEmpty()) {
+            page.forEach(t -> cursorPages.add(t.getId()));
+            page = hourly.findAfter(TransactionCursor.of(page.get(page.size() - 1)), PAGE_SIZE);
+        }
+        assertEquals(expected, cursorPages);
+
+        Instant from = BASE_TIME.plusSeconds(5 * 3_600 + 1_800);
+        Instant to = BASE_TIME.plusSeconds(30 * 3_600);
+        List<UUID> range = new ArrayList<>();
+        hourly.iterate(from, to).forEachRemaining(t -> range.add(t.getId()));
+        assertEquals(sorted.stream()
+                .filter(t -> !t.getTimestamp().isBefore(from) && t.getTimestamp().isBefore(to))
+                .map(Transaction::getId)
+                .collect(Collectors.toList()), range);
+
+        TransactionQuery query = new TransactionQuery(TransactionType.TRANSFER, null, null, null, from, to);
+        assertEquals(sorted.stream().filter(query::matches).limit(70).map(Transaction::getId).collect(Collectors.toList()),
+                hourly.query(query, null, 70).stream().map(Transaction::getId).collect(Collectors.toList()));
+
+        for (Transaction transaction : saved) {
+            repository.save(transaction);
+        }
+        assertEquals(repository.stats(StatsInterval.DAY, null, null, from, null),
+                hourly.stats(StatsInterval.DAY, null, null, from, null));
+    }
+
+    @Test
+    @DisplayName("Should drop only partitions that end by the cutoff, and forget their transactions")
+    void testDropBeforeDropsWholePartitions() throws IOException {
+        InMemoryTransactionRepository hourly = new InMemoryTransactionRepository(StatsInterval.HOUR);
+        Transaction first = hourly.save(createTransaction(BASE_TIME));
+        Transaction second = hourly.save(createTransaction(BASE_TIME.plusSeconds(1_800)));
+        Transaction third = hourly.save(createTransaction(BASE_TIME.plusSeconds(4_200)));
+        Transaction fourth = hourly.save(createTransaction(BASE_TIME.plusSeconds(7_200)));
+
+        // The second hour holds a transaction older than the cutoff, but ends after it
+        assertEquals(2, hourly.dropBefore(BASE_TIME.plusSeconds(5_400), null));
+        assertEquals(2, hourly.count());
+        assertFalse(hourly.findById(first.getId()).isPresent());
+        assertFalse(hourly.findById(second.getId()).isPresent());
+        assertEquals(List.of(fourth.getId(), third.getId()),
+                hourly.findAll(0, 10).stream().map(Transaction::getId).collect(Collectors.toList()));
+        assertEquals(List.of(BASE_TIME.plusSeconds(7_200), BASE_TIME.plusSeconds(3_600)),
+                hourly.stats(StatsInterval.HOUR, null, null, null, null).stream()
+                        .map(TransactionStats::start)
+                        .collect(Collectors.toList()));
+        assertFalse(hourly.deleteIfVersion(first.getId(), 1));
+        assertEquals(0, hourly.dropBefore(BASE_TIME.plusSeconds(5_400), null));
+
+        // A dropped id starts over
+        Transaction recreated = createTransaction(BASE_TIME.plusSeconds(60));
+        recreated.setId(first.getId());
+        assertEquals(1, hourly.save(recreated).getVersion());
+        assertEquals(3, hourly.count());
+        assertEquals(1, hourly.dropBefore(BASE_TIME.plusSeconds(5_400), null));
+    }
+
+    @Test
+    @DisplayName("Should archive every dropped partition to its own compressed file")
+    void testDropBeforeArchivesPartitions() throws IOException {
+        InMemoryTransactionRepository hourly = new InMemoryTransactionRepository(StatsInterval.HOUR);
+        Set<UUID> firstHour = new HashSet<>();
+        Set<UUID> secondHour = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            firstHour.add(hourly.save(createTransaction(BASE_TIME.plusSeconds(i))).getId());
+            secondHour.add(hourly.save(createTransaction(BASE_TIME.plusSeconds(3_600 + i))).getId());
+        }
+        Transaction kept = hourly.save(createTransaction(BASE_TIME.plusSeconds(7_200)));
+        PartitionArchive archive = new PartitionArchive(directory);
+
+        assertEquals(200, hourly.dropBefore(BASE_TIME.plusSeconds(7_200), archive));
+        assertEquals(List.of("partition-2024-01-01T00Z.bin.gz", "partition-2024-01-01T01Z.bin.gz"), listArchive());
+        Set<UUID> archived = new HashSet<>();
+        assertEquals(100, PartitionArchive.read(directory.resolve("partition-2024-01-01T00Z.bin.gz"),
+                t -> archived.add(t.getId())));
+        assertEquals(firstHour, archived);
+        archived.clear();
+        PartitionArchive.read(directory.resolve("partition-2024-01-01T01Z.bin.gz"), t -> archived.add(t.getId()));
+        assertEquals(secondHour, archived);
+        assertEquals(List.of(kept.getId()), hourly.findAll(0, 10).stream().map(Transaction::getId).collect(Collectors.toList()));
+
+        // Archiving the same hour again keeps the first file
+        hourly.save(createTransaction(BASE_TIME.plusSeconds(10)));
+        assertEquals(1, hourly.dropBefore(BASE_TIME.plusSeconds(7_200), archive));
+        assertEquals(List.of("partition-2024-01-01T00Z-1.bin.gz", "partition-2024-01-01T00Z.bin.gz",
+                "partition-2024-01-01T01Z.bin.gz"), listArchive());
+    }
+
+    @Test
+    @DisplayName("Should archive or keep every write that races the drop of its partition")
+    void testDropBeforeRacingWrites() throws Exception {
+        PartitionArchive archive = new PartitionArchive(directory);
+        for (int round = 0; round < DROP_ROUNDS; round++) {
+            InMemoryTransactionRepository hourly = new InMemoryTransactionRepository(StatsInterval.HOUR);
+            for (int i = 0; i < 1_000; i++) {
+                hourly.save(createTransaction(BASE_TIME.plusMillis(i)));
+            }
+            List<UUID> acknowledged = new CopyOnWriteArrayList<>();
+            ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        acknowledged.add(hourly.save(createTransaction(BASE_TIME.plusSeconds(i % 3_600))).getId());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            long dropped = hourly.dropBefore(BASE_TIME.plusSeconds(3_600), archive);
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            Set<UUID> archived = new HashSet<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    PartitionArchive.read(file, transaction -> archived.add(transaction.getId()));
+                    Files.delete(file);
+                }
+            }
+            for (UUID id : acknowledged) {
+                assertTrue(archived.contains(id) || hourly.findById(id).isPresent(), "Write " + id + " was lost");
+            }
+            // Kept writes are counted and paged like any other, and a second run drops exactly them
+            long kept = acknowledged.stream().filter(id -> hourly.findById(id).isPresent()).count();
+            assertEquals(kept, hourly.count());
+            assertEquals(kept, hourly.findAll(0, 5_000).size());
+            assertEquals(kept, hourly.dropBefore(BASE_TIME.plusSeconds(3_600), null));
+            assertTrue(dropped >= 1_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep a partition that fails to archive, and every newer one")
+    void testDropBeforeKeepsPartitionOnArchiveFailure() throws IOException {
+        InMemoryTransactionRepository hourly = new InMemoryTransactionRepository(StatsInterval.HOUR);
+        Transaction first = hourly.save(createTransaction(BASE_TIME));
+        Transaction second = hourly.save(createTransaction(BASE_TIME.plusSeconds(3_600)));
+        Path unwritable = directory.resolve("archive");
+        PartitionArchive archive = new PartitionArchive(unwritable);
+        Files.delete(unwritable);
+        // A file where the archive directory was, so writing the first partition fails
+        Files.createFile(unwritable);
+
+        assertThrows(IOException.class, () -> hourly.dropBefore(BASE_TIME.plusSeconds(7_200), archive));
+        assertEquals(2, hourly.count());
+        assertEquals(1L, hourly.findById(first.getId()).orElseThrow().getVersion());
+        assertEquals(List.of(second.getId(), first.getId()),
+                hourly.findAll(0, 10).stream().map(Transaction::getId).collect(Collectors.toList()));
+        assertEquals(2, hourly.dropBefore(BASE_TIME.plusSeconds(7_200), null));
+    }
+
+    @Test
+    @DisplayName("Should return the newest transactions as the first page, whatever order they were saved in")
+    void testFirstPageIsNewest() {
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 0; i < LARGE_STORE; i++) {
+            offsets.add(i);
+        }
+        Collections.shuffle(offsets, new Random(42));
+        Transaction[] byOffset = new Transaction[LARGE_STORE];
+        for (int offset : offsets) {
+            byOffset[offset] = repository.save(createTransaction(BASE_TIME.plusSeconds(offset * 60L)));
+        }
+
+        List<UUID> expected = new ArrayList<>();
+        for (int offset = LARGE_STORE - 1; offset >= LARGE_STORE - PAGE_SIZE; offset--) {
+            expected.add(byOffset[offset].getId());
+        }
+        assertEquals(expected, repository.findAll(0, PAGE_SIZE).stream()
+                .map(Transaction::getId).collect(Collectors.toList()));
+    }
+
+    private List<String> listArchive() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Transaction createTransaction(Instant timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test transaction");
+        transaction.setCategory("Test");
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.StatsInterval;
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import com.example.transaction.management.repository.ShardedTransactionRepository;
+import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.repository.columnar.ColumnarTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+import static com.example.transaction.management.TransactionFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTransactionRepositoryTest {
+    // Base instant for generated timestamps
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T00:00:00Z");
+
+    // Number of random operations replayed against the sharded and a single repository
+    private static final int OPERATION_COUNT = 20_000;
+
+    // Number of random ids routed by the distribution check
+    private static final int DISTRIBUTION_IDS = 80_000;
+
+    // Categories shared by many rows, as in real data
+    private static final String[] CATEGORIES = {"Income", "Groceries", "Rent", "Travel", "Utilities", "Savings"};
+
+    @Test
+    @DisplayName("Should page, seek, query and aggregate in-memory shards exactly like a single repository")
+    void testMatchesSingleRepositoryWithInMemoryShards() {
+        assertMatchesSingleRepository(shards(4, InMemoryTransactionRepository::new));
+    }
+
+    @Test
+    @DisplayName("Should page, seek, query and aggregate columnar shards exactly like a single repository")
+    void testMatchesSingleRepositoryWithColumnarShards() {
+        // Not a power of two, so every shard index is reached by the multiply-shift reduction
+        assertMatchesSingleRepository(shards(7, ColumnarTransactionRepository::new));
+    }
+
+    @Test
+    @DisplayName("Should spread random ids evenly and keep every id on one shard")
+    void testRoutesIdsEvenly() {
+        List<TransactionRepository> shards = shards(8, InMemoryTransactionRepository::new);
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(shards);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < DISTRIBUTION_IDS; i++) {
+            ids.add(repository.save(createTransaction(BASE_TIME.plusMillis(i), "Spread", "Income")).getId());
+        }
+
+        long expected = DISTRIBUTION_IDS / shards.size();
+        for (TransactionRepository shard : shards) {
+            assertEquals(expected, shard.count(), expected * 0.05, "Shard holds " + shard.count() + " ids");
+        }
+        for (UUID id : ids.subList(0, 1_000)) {
+            assertEquals(1, shards.stream().filter(shard -> shard.findById(id).isPresent()).count());
+        }
+        assertEquals(DISTRIBUTION_IDS, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should apply conditional writes on the shard that owns the id")
+    void testConditionalWrites() {
+        ShardedTransactionRepository repository =
+                new ShardedTransactionRepository(shards(4, InMemoryTransactionRepository::new));
+        Transaction saved = repository.save(createTransaction(BASE_TIME, "Original", "Income"));
+        assertEquals(1L, saved.getVersion());
+
+        Transaction update = createTransaction(BASE_TIME, "Updated", "Income");
+        update.setId(saved.getId());
+        assertFalse(repository.saveIfVersion(update, 2));
+        assertTrue(repository.saveIfVersion(update, 1));
+        assertEquals(2L, repository.findById(saved.getId()).orElseThrow().getVersion());
+
+        assertFalse(repository.deleteIfVersion(saved.getId(), 1));
+        assertTrue(repository.deleteIfVersion(saved.getId(), 2));
+        assertTrue(repository.findById(saved.getId()).isEmpty());
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should only report a rejected batch as unstored when no shard stored any of it")
+    void testRejectedBatch() {
+        List<TransactionRepository> shards = shards(2, ColumnarTransactionRepository::new);
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(shards);
+        UUID[] owned = new UUID[2];
+        while (owned[0] == null || owned[1] == null) {
+            Transaction probe = repository.save(createTransaction(BASE_TIME, "Probe", "Income"));
+            owned[shards.get(0).findById(probe.getId()).isPresent() ? 0 : 1] = probe.getId();
+        }
+        Transaction good = createTransaction(BASE_TIME, "Good", "Income");
+        good.setId(owned[0]);
+        // Beyond the columnar engine's timestamp range, and owned by the shard saved last
+        Transaction bad = createTransaction(Instant.parse("2300-01-01T00:00:00Z"), "Bad", "Income");
+        bad.setId(owned[1]);
+
+        assertThrows(IllegalArgumentException.class, () -> repository.saveAll(List.of(bad)));
+        IllegalStateException partly = assertThrows(IllegalStateException.class,
+                () -> repository.saveAll(List.of(good, bad)));
+        assertInstanceOf(IllegalArgumentException.class, partly.getCause());
+        assertEquals("Good", repository.findById(owned[0]).orElseThrow().getDescription());
+    }
+
+    private static void assertMatchesSingleRepository(List<TransactionRepository> shards) {
+        InMemoryTransactionRepository reference = new InMemoryTransactionRepository();
+        ShardedTransactionRepository repository = new ShardedTransactionRepository(shards);
+        Random random = new Random(42);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            int operation = random.nextInt(20);
+            if (operation < 11 || ids.isEmpty()) {
+                // Few distinct timestamps, so ties between shards are broken by id
+                Transaction transaction = randomTransaction(random);
+                reference.save(transaction);
+                ids.add(transaction.getId());
+                repository.save(copy(transaction));
+            } else if (operation < 12) {
+                List<Transaction> batch = new ArrayList<>();
+                for (int j = 0; j < 20; j++) {
+                    batch.add(randomTransaction(random));
+                }
+                reference.saveAll(batch);
+                repository.saveAll(batch.stream().map(TransactionFixtures::copy).toList());
+                batch.forEach(transaction -> ids.add(transaction.getId()));
+            } else if (operation < 18) {
+                Transaction update = randomTransaction(random);
+                update.setId(ids.get(random.nextInt(ids.size())));
+                reference.save(update);
+                repository.save(copy(update));
+            } else if (operation < 19) {
+                UUID id = ids.remove(random.nextInt(ids.size()));
+                reference.deleteById(id);
+                repository.deleteById(id);
+            } else {
+                List<UUID> batch = new ArrayList<>();
+                for (int j = 0; j < 5 && !ids.isEmpty(); j++) {
+                    batch.add(ids.remove(random.nextInt(ids.size())));
+                }
+                reference.deleteAllById(batch);
+                repository.deleteAllById(batch);
+            }
+        }
+
+        assertEquals(reference.count(), repository.count());
+        for (int page = 0; page * 50 <= ids.size(); page += 7) {
+            assertEquals(describe(reference.findAll(page, 50)), describe(repository.findAll(page, 50)));
+        }
+        TransactionCursor cursor = null;
+        List<Transaction> expected;
+        do {
+            expected = reference.findAfter(cursor, 100);
+            assertEquals(describe(expected), describe(repository.findAfter(cursor, 100)));
+            cursor = expected.isEmpty() ? null : TransactionCursor.of(expected.get(expected.size() - 1));
+        } while (cursor != null);
+
+        Instant from = BASE_TIME.plusSeconds(100 * 60);
+        Instant to = BASE_TIME.plusSeconds(400 * 60);
+        assertEquals(drain(reference.iterate(from, to)), drain(repository.iterate(from, to)));
+        assertEquals(drain(reference.iterate(null, null)), drain(repository.iterate(null, null)));
+
+        TransactionQuery query = new TransactionQuery(TransactionType.DEPOSIT, "Groceries", null, null, from, to);
+        TransactionCursor afterFirst = TransactionCursor.of(reference.query(query, null, 1).get(0));
+        assertEquals(describe(reference.query(query, afterFirst, 20)), describe(repository.query(query, afterFirst, 20)));
+
+        assertEquals(reference.stats(StatsInterval.HOUR, null, null, null, null),
+                repository.stats(StatsInterval.HOUR, null, null, null, null));
+        assertEquals(reference.stats(StatsInterval.DAY, TransactionType.DEPOSIT, null, from, to),
+                repository.stats(StatsInterval.DAY, TransactionType.DEPOSIT, null, from, to));
+    }
+
+    private static List<TransactionRepository> shards(int count, Supplier<TransactionRepository> factory) {
+        List<TransactionRepository> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shards.add(factory.get());
+        }
+        return shards;
+    }
+
+    private static Transaction randomTransaction(Random random) {
+        Transaction transaction = createTransaction(BASE_TIME.plusSeconds(random.nextInt(500) * 60L),
+                "Description " + random.nextInt(1_000), CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        transaction.setId(new UUID(random.nextLong(), random.nextLong()));
+        transaction.setAmount(BigDecimal.valueOf(random.nextInt(10_000), 2));
+        transaction.setType(TransactionType.values()[random.nextInt(TransactionType.values().length)]);
+        return transaction;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.SnapshotStore;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotStoreTest {
+    // Number of threads writing while checkpoints run
+    private static final int THREAD_COUNT = 4;
+
+    // Number of transactions saved per thread while checkpoints run
+    private static final int TRANSACTIONS_PER_THREAD = 2_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should restore from a snapshot plus the log written after it")
+    void testRecoverFromSnapshotAndTail() throws IOException {
+        WriteAheadLog wal = openLog();
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, new SnapshotStore(directory));
+        Transaction kept = repository.save(createTransaction("Kept"));
+        Transaction updated = repository.save(createTransaction("Before update"));
+        Transaction deleted = repository.save(createTransaction("Deleted"));
+        long lsn = repository.checkpoint();
+
+        Transaction update = createTransaction("After update");
+        update.setId(updated.getId());
+        repository.save(update);
+        repository.deleteById(deleted.getId());
+        Transaction added = repository.save(createTransaction("Added"));
+        wal.close();
+
+        // Only the snapshot and the segment started by the checkpoint remain
+        assertEquals(List.of(String.format("snapshot-%020d.bin", lsn), String.format("wal-%020d.log", lsn)), listFiles());
+
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(openLog(), new SnapshotStore(directory));
+        assertEquals("Kept", recovered.findById(kept.getId()).orElseThrow().getDescription());
+        assertEquals("After update", recovered.findById(updated.getId()).orElseThrow().getDescription());
+        assertFalse(recovered.findById(deleted.getId()).isPresent());
+        assertTrue(recovered.findById(added.getId()).isPresent());
+        assertEquals(3, recovered.findAll(0, 10).size());
+    }
+
+    @Test
+    @DisplayName("Should snapshot after dropping partitions, so they are not restored")
+    void testDroppedPartitionsStayDropped() throws IOException {
+        WriteAheadLog wal = openLog();
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, new SnapshotStore(directory));
+        Transaction old = createTransaction("Old");
+        old.setTimestamp(Instant.parse("2024-01-01T12:00:00Z"));
+        repository.save(old);
+        Transaction recent = repository.save(createTransaction("Recent"));
+        repository.checkpoint();
+
+        // Nothing was written since the checkpoint, yet the snapshot must be replaced
+        assertEquals(1, repository.dropBefore(Instant.parse("2024-01-03T00:00:00Z"), null));
+        wal.close();
+
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(openLog(), new SnapshotStore(directory));
+        assertFalse(recovered.findById(old.getId()).isPresent());
+        assertTrue(recovered.findById(recent.getId()).isPresent());
+        assertEquals(1, recovered.count());
+    }
+
+    @Test
+    @DisplayName("Should skip the snapshot when nothing was written since the last one")
+    void testCheckpointWithoutWritesIsNoOp() throws IOException {
+        WriteAheadLog wal = openLog();
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, new SnapshotStore(directory));
+        repository.save(createTransaction("Only"));
+        long lsn = repository.checkpoint();
+        List<String> files = listFiles();
+
+        assertEquals(lsn, repository.checkpoint());
+        assertEquals(files, listFiles());
+        wal.close();
+    }
+
+    @Test
+    @DisplayName("Should not lose writes made while checkpoints run")
+    void testCheckpointDuringConcurrentWrites() throws Exception {
+        WriteAheadLog wal = openLog();
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, new SnapshotStore(directory));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        List<Transaction> saved = new ArrayList<>();
+        List<Exception> exceptions = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            executor.submit(() -> {
+                try {
+                    Transaction previous = null;
+                    for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+                        // Every other write updates the previous transaction, so snapshots see entries move
+                        Transaction transaction = createTransaction("Concurrent " + j);
+                        if (previous != null && j % 2 == 0) {
+                            transaction.setId(previous.getId());
+                        }
+                        previous = repository.save(transaction);
+                        synchronized (saved) {
+                            saved.add(previous);
+                        }
+                    }
+                } catch (Exception e) {
+                    synchronized (exceptions) {
+                        exceptions.add(e);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        while (latch.getCount() > 0) {
+            repository.checkpoint();
+        }
+        executor.shutdown();
+        wal.close();
+
+        if (!exceptions.isEmpty()) {
+            throw new RuntimeException("Test failed with exceptions: " + exceptions);
+        }
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(openLog(), new SnapshotStore(directory));
+        for (Transaction transaction : saved) {
+            assertEquals(repository.findById(transaction.getId()).orElseThrow().getDescription(),
+                    recovered.findById(transaction.getId()).orElseThrow().getDescription());
+        }
+        assertEquals(repository.findAll(0, Integer.MAX_VALUE).size(), recovered.findAll(0, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    @DisplayName("Should refuse to start from a corrupt snapshot")
+    void testCorruptSnapshotFailsRecovery() throws IOException {
+        WriteAheadLog wal = openLog();
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal, new SnapshotStore(directory));
+        for (int i = 0; i < 100; i++) {
+            repository.save(createTransaction("Transaction " + i));
+        }
+        long lsn = repository.checkpoint();
+        wal.close();
+
+        Path snapshot = directory.resolve(String.format("snapshot-%020d.bin", lsn));
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            // Flip a byte in the middle of the records
+            channel.write(ByteBuffer.wrap(new byte[] {0x7F}), Files.size(snapshot) / 2);
+        }
+
+        SnapshotStore snapshots = new SnapshotStore(directory);
+        WriteAheadLog reopened = openLog();
+        assertThrows(UncheckedIOException.class, () -> new InMemoryTransactionRepository(reopened, snapshots));
+    }
+
+    private WriteAheadLog openLog() throws IOException {
+        return new WriteAheadLog(directory, WriteAheadLog.FsyncPolicy.NEVER, Duration.ofMillis(10), 64 * 1024);
+    }
+
+    private List<String> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Transaction createTransaction(String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(UUID.randomUUID());
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription(description);
+        transaction.setCategory("Test");
+        return transaction;
+    }
+}
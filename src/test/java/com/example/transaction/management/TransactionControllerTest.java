@@ -1,11 +1,23 @@
 package com.example.transaction.management;
 
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.ChangeType;
+import com.example.transaction.management.model.StatsInterval;
 import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionChange;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
+import com.example.transaction.management.model.TransactionStats;
 import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.model.TransactionSnapshot;
+import com.example.transaction.management.service.ChangeFeed;
 import com.example.transaction.management.service.TransactionService;
 import com.example.transaction.management.exception.TransactionException;
+import com.example.transaction.management.config.WireFormatConfig;
 import com.example.transaction.management.controller.TransactionController;
 import com.example.transaction.management.exception.TransactionErrorType;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,25 +25,35 @@ import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(TransactionController.class)
+@Import(WireFormatConfig.class)
 public class TransactionControllerTest {
 
     @Autowired
@@ -43,6 +65,9 @@ public class TransactionControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
     private Transaction testTransaction;
     private UUID testId;
 
@@ -81,12 +106,49 @@ public class TransactionControllerTest {
         // Missing required fields
 
         when(transactionService.createTransaction(any(Transaction.class)))
-                .thenThrow(new TransactionException(TransactionErrorType.INVALID_AMOUNT));
+                .thenThrow(TransactionException.of(TransactionErrorType.INVALID_AMOUNT));
+
+        // The second rejection is usually served from the response rendered for the first
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/transactions")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(invalidTransaction)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.timestamp").exists())
+                    .andExpect(jsonPath("$.status").value(400))
+                    .andExpect(jsonPath("$.errorType").value("INVALID_AMOUNT"))
+                    .andExpect(jsonPath("$.message").value("Invalid transaction amount"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After when the write queue is full")
+    void testCreateTransactionWriteQueueFull() throws Exception {
+        when(transactionService.createTransaction(any(Transaction.class)))
+                .thenThrow(TransactionException.of(TransactionErrorType.WRITE_QUEUE_FULL));
 
         mockMvc.perform(post("/transactions")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(invalidTransaction)))
-                .andExpect(status().isBadRequest());
+                .content(objectMapper.writeValueAsString(testTransaction)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.errorType").value("WRITE_QUEUE_FULL"));
+    }
+
+    @Test
+    @DisplayName("Should pass the Idempotency-Key header to the service")
+    void testCreateTransactionWithIdempotencyKey() throws Exception {
+        when(transactionService.createTransaction(any(Transaction.class), eq("order-42")))
+                .thenReturn(testTransaction);
+
+        mockMvc.perform(post("/transactions")
+                .header("Idempotency-Key", "order-42")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testTransaction)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(testTransaction.getId().toString()));
     }
 
     @Test
@@ -104,6 +166,33 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$.category").value("Test"));
     }
 
+    @Test
+    @DisplayName("Should send the version of a transaction as its ETag")
+    void testGetTransactionETag() throws Exception {
+        testTransaction.setVersion(3L);
+        when(transactionService.getTransaction(testId)).thenReturn(Optional.of(testTransaction));
+
+        mockMvc.perform(get("/transactions/" + testId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    @DisplayName("Should return 304 without a body while the transaction is at the version in If-None-Match")
+    void testGetTransactionNotModified() throws Exception {
+        testTransaction.setVersion(3L);
+        when(transactionService.getTransaction(testId)).thenReturn(Optional.of(testTransaction));
+
+        mockMvc.perform(get("/transactions/" + testId).header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/transactions/" + testId).header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
     @Test
     @DisplayName("Should return 404 when transaction not found")
     void testGetTransactionNotFound() throws Exception {
@@ -132,6 +221,125 @@ public class TransactionControllerTest {
                 .andExpect(jsonPath("$[0].category").value("Test"));
     }
 
+    @Test
+    @DisplayName("Should answer a repeated list poll with 304 until something is written, without reading the store")
+    void testGetAllTransactionsNotModified() throws Exception {
+        when(transactionService.latestChangeSequence()).thenReturn(5L);
+        when(transactionService.getAllTransactions(0, 10)).thenReturn(List.of(testTransaction));
+
+        String eTag = mockMvc.perform(get("/transactions"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertTrue(eTag.startsWith("W/\""));
+        mockMvc.perform(get("/transactions").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+        verify(transactionService, times(1)).getAllTransactions(0, 10);
+
+        when(transactionService.latestChangeSequence()).thenReturn(6L);
+        String next = mockMvc.perform(get("/transactions").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testId.toString()))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, next);
+        mockMvc.perform(get("/transactions/stats").header("If-None-Match", next))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Should return a next cursor when the page is full")
+    void testGetAllTransactionsNextCursor() throws Exception {
+        when(transactionService.getAllTransactions(0, 1)).thenReturn(List.of(testTransaction));
+
+        mockMvc.perform(get("/transactions")
+                .param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", TransactionCursor.of(testTransaction).encode()));
+    }
+
+    @Test
+    @DisplayName("Should page by cursor when one is given")
+    void testGetAllTransactionsWithCursor() throws Exception {
+        String cursor = TransactionCursor.of(testTransaction).encode();
+        when(transactionService.getTransactionsAfter(cursor, 10)).thenReturn(List.of(testTransaction));
+
+        mockMvc.perform(get("/transactions")
+                .param("cursor", cursor)
+                .param("size", "10")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$[0].id").value(testId.toString()));
+    }
+
+    @Test
+    @DisplayName("Should pass filters to the query and page it by cursor")
+    void testGetAllTransactionsFiltered() throws Exception {
+        TransactionQuery query = new TransactionQuery(TransactionType.WITHDRAWAL, "Groceries",
+                new BigDecimal("10"), new BigDecimal("99.99"),
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-01-08T00:00:00Z"));
+        when(transactionService.queryTransactions(query, 0, 1)).thenReturn(List.of(testTransaction));
+
+        mockMvc.perform(get("/transactions")
+                .param("type", "WITHDRAWAL")
+                .param("category", "Groceries")
+                .param("minAmount", "10")
+                .param("maxAmount", "99.99")
+                .param("from", "2024-01-01T00:00:00Z")
+                .param("to", "2024-01-08T00:00:00Z")
+                .param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", TransactionCursor.of(testTransaction).encode()))
+                .andExpect(jsonPath("$[0].id").value(testId.toString()));
+
+        String cursor = TransactionCursor.of(testTransaction).encode();
+        TransactionQuery byType = new TransactionQuery(TransactionType.WITHDRAWAL, null, null, null, null, null);
+        when(transactionService.queryTransactionsAfter(byType, cursor, 10)).thenReturn(List.of());
+
+        mockMvc.perform(get("/transactions")
+                .param("type", "WITHDRAWAL")
+                .param("cursor", cursor)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return 400 for an unknown transaction type filter")
+    void testGetAllTransactionsInvalidTypeFilter() throws Exception {
+        mockMvc.perform(get("/transactions")
+                .param("type", "REFUND")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should return statistics per bucket, type and category")
+    void testGetStats() throws Exception {
+        Instant day = Instant.parse("2024-01-01T00:00:00Z");
+        TransactionStats stats = new TransactionStats(day, TransactionType.WITHDRAWAL, "Groceries", 3,
+                new BigDecimal("60.00"), new BigDecimal("10.00"), new BigDecimal("30.00"));
+        when(transactionService.getStats(StatsInterval.DAY, TransactionType.WITHDRAWAL, null, day, null))
+                .thenReturn(List.of(stats));
+
+        mockMvc.perform(get("/transactions/stats")
+                .param("interval", "DAY")
+                .param("type", "WITHDRAWAL")
+                .param("from", "2024-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start").value("2024-01-01T00:00:00Z"))
+                .andExpect(jsonPath("$[0].category").value("Groceries"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[0].sum").value(60.00))
+                .andExpect(jsonPath("$[0].max").value(30.00));
+
+        mockMvc.perform(get("/transactions/stats").param("interval", "WEEK"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Should return 400 when pagination parameters are invalid")
     void testGetAllTransactionsInvalidPagination() throws Exception {
@@ -182,6 +390,79 @@ public class TransactionControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Should return 412 when an update without If-Match is at another version than its body")
+    void testUpdateTransactionBodyVersionConflict() throws Exception {
+        testTransaction.setVersion(2L);
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class)))
+                .thenThrow(TransactionException.of(TransactionErrorType.VERSION_CONFLICT));
+
+        mockMvc.perform(put("/transactions/" + testId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testTransaction)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errorType").value("VERSION_CONFLICT"));
+    }
+
+    @Test
+    @DisplayName("Should update only at the version in If-Match and return the new ETag")
+    void testUpdateTransactionIfMatch() throws Exception {
+        Transaction updatedTransaction = new Transaction();
+        updatedTransaction.setId(testId);
+        updatedTransaction.setAmount(new BigDecimal("200.00"));
+        updatedTransaction.setType(TransactionType.DEPOSIT);
+        updatedTransaction.setDescription("Test deposit");
+        updatedTransaction.setCategory("Test");
+        updatedTransaction.setVersion(4L);
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class), aryEq(new long[] {3})))
+                .thenReturn(updatedTransaction);
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class), aryEq(new long[] {2})))
+                .thenThrow(TransactionException.of(TransactionErrorType.VERSION_CONFLICT));
+
+        mockMvc.perform(put("/transactions/" + testId)
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testTransaction)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        mockMvc.perform(put("/transactions/" + testId)
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testTransaction)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412))
+                .andExpect(jsonPath("$.errorType").value("VERSION_CONFLICT"));
+    }
+
+    @Test
+    @DisplayName("Should pass on every version of an If-Match list, any of which may match")
+    void testUpdateTransactionIfMatchList() throws Exception {
+        testTransaction.setVersion(5L);
+        when(transactionService.updateTransaction(eq(testId), any(Transaction.class), aryEq(new long[] {3, 4})))
+                .thenReturn(testTransaction);
+
+        // Weak and foreign ETags in the list never match and are left out
+        mockMvc.perform(put("/transactions/" + testId)
+                .header("If-Match", "\"3\", W/\"7\", \"4\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testTransaction)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""));
+    }
+
+    @Test
+    @DisplayName("Should fail a delete whose If-Match is not an ETag of ours")
+    void testDeleteTransactionIfMatchMalformed() throws Exception {
+        // Weak ETags never match in If-Match, so no stored version is asked for
+        doThrow(TransactionException.of(TransactionErrorType.VERSION_CONFLICT))
+                .when(transactionService).deleteTransaction(eq(testId), aryEq(new long[] {0}));
+
+        mockMvc.perform(delete("/transactions/" + testId)
+                .header("If-Match", "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("Should delete transaction")
     void testDeleteTransaction() throws Exception {
@@ -202,4 +483,171 @@ public class TransactionControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should create transactions in batch with per-item results")
+    void testCreateTransactionsBatch() throws Exception {
+        when(transactionService.createTransactions(any())).thenReturn(List.of(
+                BatchItemResult.succeeded(0, testTransaction),
+                BatchItemResult.failed(1, null, TransactionErrorType.INVALID_AMOUNT)));
+
+        mockMvc.perform(post("/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testTransaction, new Transaction()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[0].transaction.id").value(testId.toString()))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].errorType").value("INVALID_AMOUNT"));
+    }
+
+    @Test
+    @DisplayName("Should delete transactions in batch")
+    void testDeleteTransactionsBatch() throws Exception {
+        when(transactionService.deleteTransactions(List.of(testId)))
+                .thenReturn(List.of(BatchItemResult.succeeded(0, testId)));
+
+        mockMvc.perform(delete("/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testId))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testId.toString()))
+                .andExpect(jsonPath("$[0].success").value(true));
+    }
+
+    @Test
+    @DisplayName("Should stream transactions as newline-delimited JSON")
+    void testExportTransactions() throws Exception {
+        Transaction second = new Transaction();
+        second.setAmount(new BigDecimal("50.00"));
+        second.setType(TransactionType.WITHDRAWAL);
+        second.setDescription("Second");
+        second.setCategory("Test");
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        when(transactionService.exportTransactions(from, null))
+                .thenReturn(List.of(testTransaction, second).iterator());
+
+        MvcResult result = mockMvc.perform(get("/transactions/export").param("from", from.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String expected = objectMapper.writeValueAsString(testTransaction) + "\n"
+                + objectMapper.writeValueAsString(second) + "\n";
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expected));
+    }
+
+    @Test
+    @DisplayName("Should stream an empty body when there is nothing to export")
+    void testExportTransactionsEmpty() throws Exception {
+        when(transactionService.exportTransactions(null, null)).thenReturn(Collections.emptyIterator());
+
+        MvcResult result = mockMvc.perform(get("/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should fail the export rather than end it quietly when a transaction cannot be serialized")
+    void testExportTransactionsUnserializable() throws Exception {
+        Transaction unreadable = new Transaction() {
+            @Override
+            public BigDecimal getAmount() {
+                throw new IllegalStateException("Unreadable amount");
+            }
+        };
+        when(transactionService.exportTransactions(null, null)).thenReturn(List.of(unreadable).iterator());
+
+        MvcResult result = mockMvc.perform(get("/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Not mistaken for a disconnected client: the failure reaches the container, which answers 500
+        assertThrows(JsonMappingException.class, () -> mockMvc.perform(asyncDispatch(result)));
+    }
+
+    @Test
+    @DisplayName("Should stream changes as server-sent events and end with a resync once the consumer falls behind")
+    void testStreamChanges() throws Exception {
+        testTransaction.setVersion(1L);
+        TransactionChange created = new TransactionChange(
+                8, ChangeType.CREATED, testId, 1L, TransactionSnapshot.of(testTransaction));
+        TransactionChange deleted = new TransactionChange(9, ChangeType.DELETED, testId, 1L, null);
+        when(transactionService.getChanges(eq(7L), anyInt(), any()))
+                .thenReturn(new ChangeFeed.Page(List.of(created, deleted), false, 9));
+        when(transactionService.getChanges(eq(9L), anyInt(), any()))
+                .thenReturn(new ChangeFeed.Page(List.of(), true, 20_000));
+
+        MvcResult result = mockMvc.perform(get("/transactions/changes").header("Last-Event-ID", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(result.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+        assertEquals("id:8\nevent:change\ndata:" + objectMapper.writeValueAsString(created) + "\n\n"
+                + "id:9\nevent:change\ndata:" + objectMapper.writeValueAsString(deleted) + "\n\n"
+                + "event:resync\ndata:20000\n\n", body);
+        assertFalse(body.contains("\"transaction\":null"));
+    }
+
+    @Test
+    @DisplayName("Should serve a transaction and a page as Smile when asked for it")
+    void testGetTransactionsAsSmile() throws Exception {
+        MediaType smile = MediaType.parseMediaType(WireFormatConfig.SMILE_VALUE);
+        ObjectMapper smileMapper = smileConverter.getObjectMapper();
+        when(transactionService.getTransaction(testId)).thenReturn(Optional.of(testTransaction));
+        when(transactionService.getAllTransactions(0, 10)).thenReturn(List.of(testTransaction));
+
+        byte[] single = mockMvc.perform(get("/transactions/{id}", testId).accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] page = mockMvc.perform(get("/transactions").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertArrayEquals(smileMapper.writeValueAsBytes(testTransaction), single);
+        Transaction decoded = smileMapper.readValue(single, Transaction.class);
+        assertEquals(testId, decoded.getId());
+        assertEquals(testTransaction.getTimestamp(), decoded.getTimestamp());
+        assertEquals(0, testTransaction.getAmount().compareTo(decoded.getAmount()));
+        List<Transaction> decodedPage = smileMapper.readValue(page, new TypeReference<List<Transaction>>() {
+        });
+        assertEquals(1, decodedPage.size());
+        assertEquals(testId, decodedPage.get(0).getId());
+        assertTrue(page.length < objectMapper.writeValueAsBytes(List.of(testTransaction)).length);
+    }
+
+    @Test
+    @DisplayName("Should accept a batch in Smile and answer in Smile")
+    void testCreateTransactionsBatchAsSmile() throws Exception {
+        MediaType smile = MediaType.parseMediaType(WireFormatConfig.SMILE_VALUE);
+        ObjectMapper smileMapper = smileConverter.getObjectMapper();
+        when(transactionService.createTransactions(any())).thenAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            assertEquals(testId, batch.get(0).getId());
+            assertEquals("Test deposit", batch.get(0).getDescription());
+            return List.of(BatchItemResult.succeeded(0, batch.get(0)));
+        });
+
+        byte[] body = mockMvc.perform(post("/transactions/batch")
+                .contentType(smile)
+                .accept(smile)
+                .content(smileMapper.writeValueAsBytes(List.of(testTransaction))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<BatchItemResult> results = smileMapper.readValue(body, new TypeReference<List<BatchItemResult>>() {
+        });
+        assertTrue(results.get(0).success());
+    }
+}
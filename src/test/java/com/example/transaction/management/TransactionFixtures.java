@@ -0,0 +1,50 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Transactions and comparable descriptions of them, shared by the tests that check a repository against the
+ * in-memory one.
+ */
+final class TransactionFixtures {
+    private TransactionFixtures() {
+    }
+
+    static List<String> describe(List<Transaction> transactions) {
+        return transactions.stream()
+                .map(t -> t.getId() + " " + t.getTimestamp() + " " + t.getDescription() + " " + t.getCategory()
+                        + " v" + t.getVersion())
+                .collect(Collectors.toList());
+    }
+
+    static List<String> drain(Iterator<Transaction> iterator) {
+        List<Transaction> transactions = new ArrayList<>();
+        iterator.forEachRemaining(transactions::add);
+        return describe(transactions);
+    }
+
+    static Transaction copy(Transaction source) {
+        Transaction copy = createTransaction(source.getTimestamp(), source.getDescription(), source.getCategory());
+        copy.setId(source.getId());
+        copy.setAmount(source.getAmount());
+        copy.setType(source.getType());
+        return copy;
+    }
+
+    static Transaction createTransaction(Instant timestamp, String description, String category) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription(description);
+        transaction.setCategory(category);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
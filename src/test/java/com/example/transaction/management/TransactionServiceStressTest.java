@@ -1,16 +1,25 @@
 package com.example.transaction.management;
 
+import com.example.transaction.management.config.CacheConfig;
+import com.example.transaction.management.config.TransactionCacheProperties;
+import com.example.transaction.management.exception.TransactionErrorType;
+import com.example.transaction.management.exception.TransactionException;
 import com.example.transaction.management.model.Transaction;
 import com.example.transaction.management.model.TransactionType;
 import com.example.transaction.management.repository.InMemoryTransactionRepository;
 import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.service.TransactionCache;
 import com.example.transaction.management.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.springframework.cache.caffeine.CaffeineCache;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -39,6 +48,12 @@ public class TransactionServiceStressTest {
     // Updated amount for update tests
     private static final BigDecimal UPDATED_AMOUNT = new BigDecimal("200.00");
 
+    // Default stripe count of the service
+    private static final int STRIPED_LOCK_STRIPES = 64;
+
+    // Increments each thread makes to one shared transaction in the optimistic update test
+    private static final int INCREMENTS_PER_THREAD = 200;
+
     private TransactionService service;
     private TransactionRepository repository;
 
@@ -139,6 +154,163 @@ public class TransactionServiceStressTest {
         assertEquals(expectedTotal, successCount.get(), "Not all operations were completed successfully");
     }
 
+    @Test
+    @DisplayName("Should never serve a phantom 404 for a transaction read right after its creation")
+    void testConcurrentCreateThenReadWithCache() throws InterruptedException {
+        TransactionCacheProperties properties = new TransactionCacheProperties(
+                INITIAL_TRANSACTIONS * THREAD_COUNT, 0, Duration.ofMinutes(10), Duration.ofMinutes(10), true);
+        TransactionService cachingService = new TransactionService(repository, new TransactionCache(
+                new CaffeineCache(TransactionCache.CACHE_NAME, new CacheConfig().caffeineConfig(properties).build())),
+                STRIPED_LOCK_STRIPES);
+
+        // Ids are chosen up front so that readers can look them up before they exist
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < INITIAL_TRANSACTIONS * THREAD_COUNT; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT * 2);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT * 2);
+        AtomicInteger phantomMisses = new AtomicInteger(0);
+        List<Exception> exceptions = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final int threadId = i;
+            // Readers populate negative entries for ids that are about to be created
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+                        cachingService.getTransaction(ids.get((threadId + j * THREAD_COUNT) % ids.size()));
+                    }
+                } catch (Exception e) {
+                    exceptions.add(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+            executor.submit(() -> {
+                try {
+                    for (int j = threadId; j < ids.size(); j += THREAD_COUNT) {
+                        Transaction transaction = createTransaction(threadId, j);
+                        transaction.setId(ids.get(j));
+                        cachingService.createTransaction(transaction);
+                        if (cachingService.getTransaction(ids.get(j)).isEmpty()) {
+                            phantomMisses.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    exceptions.add(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+
+        if (!exceptions.isEmpty()) {
+            throw new RuntimeException("Test failed with exceptions: " + exceptions);
+        }
+        assertEquals(0, phantomMisses.get(), "Transactions were reported missing right after creation");
+        for (UUID id : ids) {
+            assertTrue(cachingService.getTransaction(id).isPresent(), "Cache kept a stale miss for " + id);
+        }
+    }
+
+    @Test
+    @DisplayName("Should create one transaction per idempotency key when retries race")
+    void testConcurrentRetriesWithIdempotencyKey() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        List<Exception> exceptions = new CopyOnWriteArrayList<>();
+        // Every thread sends the same keys, each with a freshly constructed (so differently identified) body
+        List<List<UUID>> returnedIds = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            executor.submit(() -> {
+                try {
+                    List<UUID> ids = new ArrayList<>();
+                    for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+                        ids.add(service.createTransaction(createTransaction(0, j), "retry-" + j).getId());
+                    }
+                    returnedIds.add(ids);
+                } catch (Exception e) {
+                    exceptions.add(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+
+        if (!exceptions.isEmpty()) {
+            throw new RuntimeException("Test failed with exceptions: " + exceptions);
+        }
+        for (List<UUID> ids : returnedIds) {
+            assertEquals(returnedIds.get(0), ids, "Retries of one key returned different transactions");
+        }
+        assertEquals(TRANSACTIONS_PER_THREAD, repository.count(), "Retries created duplicate transactions");
+    }
+
+    @Test
+    @DisplayName("Should lose no update when editors race with conditional updates")
+    void testConcurrentConditionalUpdates() throws InterruptedException {
+        TransactionCacheProperties properties = new TransactionCacheProperties(
+                INITIAL_TRANSACTIONS, 0, Duration.ofMinutes(10), Duration.ofMinutes(10), true);
+        TransactionService cachingService = new TransactionService(repository, new TransactionCache(
+                new CaffeineCache(TransactionCache.CACHE_NAME, new CacheConfig().caffeineConfig(properties).build())),
+                STRIPED_LOCK_STRIPES);
+        Transaction counter = createTransaction(0, 0);
+        counter.setAmount(BigDecimal.ONE);
+        UUID id = cachingService.createTransaction(counter).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        List<Exception> exceptions = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < INCREMENTS_PER_THREAD; j++) {
+                        // Read, modify and write back until no other editor got in between
+                        while (true) {
+                            Transaction current = cachingService.getTransaction(id).orElseThrow();
+                            long version = current.getVersion();
+                            current.setAmount(current.getAmount().add(BigDecimal.ONE));
+                            try {
+                                cachingService.updateTransaction(id, current, version);
+                                break;
+                            } catch (TransactionException e) {
+                                if (e.getErrorType() != TransactionErrorType.VERSION_CONFLICT) {
+                                    throw e;
+                                }
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    exceptions.add(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+
+        if (!exceptions.isEmpty()) {
+            throw new RuntimeException("Test failed with exceptions: " + exceptions);
+        }
+        int increments = THREAD_COUNT * INCREMENTS_PER_THREAD;
+        Transaction result = repository.findById(id).orElseThrow();
+        assertEquals(BigDecimal.valueOf(1 + increments), result.getAmount(), "Updates were lost");
+        assertEquals(1L + increments, result.getVersion());
+        assertEquals(result.getVersion(), cachingService.getTransaction(id).orElseThrow().getVersion());
+    }
+
     private Transaction createTransaction(int threadId, int index) {
         Transaction transaction = new Transaction();
         transaction.setAmount(TEST_AMOUNT);
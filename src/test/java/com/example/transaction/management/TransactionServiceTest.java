@@ -1,23 +1,53 @@
 package com.example.transaction.management;
 
+import com.example.transaction.management.config.CacheConfig;
+import com.example.transaction.management.config.TransactionCacheProperties;
+import com.example.transaction.management.model.BatchItemResult;
+import com.example.transaction.management.model.ChangeType;
+import com.example.transaction.management.model.StatsInterval;
 import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionChange;
+import com.example.transaction.management.model.TransactionCursor;
+import com.example.transaction.management.model.TransactionQuery;
 import com.example.transaction.management.model.TransactionType;
 import com.example.transaction.management.repository.InMemoryTransactionRepository;
 import com.example.transaction.management.repository.TransactionRepository;
+import com.example.transaction.management.service.BatchingWriter;
+import com.example.transaction.management.service.ChangeFeed;
+import com.example.transaction.management.service.IdempotencyStore;
+import com.example.transaction.management.service.TransactionCache;
+import com.example.transaction.management.service.TransactionMetrics;
 import com.example.transaction.management.service.TransactionService;
 import com.example.transaction.management.exception.TransactionException;
 import com.example.transaction.management.exception.TransactionErrorType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.caffeine.CaffeineCache;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TransactionServiceTest {
     private TransactionService service;
     private TransactionRepository repository;
+
+    // Creates queued behind a batch the writer is committing
+    private static final int ASYNC_CREATES = 100;
     
     // Maximum page size for pagination tests
     private static final int MAX_PAGE_SIZE = 50;
@@ -136,4 +166,741 @@ public class TransactionServiceTest {
         );
         assertEquals(TransactionErrorType.INVALID_PAGINATION, exception.getErrorType());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should scroll through all transactions by cursor")
+    void testGetTransactionsAfterCursor() {
+        for (int i = 0; i < 25; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAmount(new BigDecimal("100.00"));
+            transaction.setType(TransactionType.DEPOSIT);
+            transaction.setDescription("Test deposit " + i);
+            transaction.setCategory("Test");
+            service.createTransaction(transaction);
+        }
+
+        List<UUID> scrolled = new ArrayList<>();
+        String cursor = null;
+        List<Transaction> page;
+        do {
+            page = service.getTransactionsAfter(cursor, 10);
+            page.forEach(t -> scrolled.add(t.getId()));
+            if (!page.isEmpty()) {
+                cursor = TransactionCursor.of(page.get(page.size() - 1)).encode();
+            }
+        } while (page.size() == 10);
+
+        List<UUID> expected = new ArrayList<>();
+        service.getAllTransactions(0, 50).forEach(t -> expected.add(t.getId()));
+        assertEquals(expected, scrolled);
+    }
+
+    @Test
+    @DisplayName("Should throw exception when cursor is malformed")
+    void testInvalidCursor() {
+        TransactionException exception = assertThrows(
+            TransactionException.class,
+            () -> service.getTransactionsAfter("not-a-cursor", 10)
+        );
+        assertEquals(TransactionErrorType.INVALID_CURSOR, exception.getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should serve a transaction created after a cached miss")
+    void testCreateReplacesCachedMiss() {
+        TransactionService cachingService = new TransactionService(repository, cachingTransactionCache(), 64);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test deposit");
+        transaction.setCategory("Test");
+
+        assertFalse(cachingService.getTransaction(transaction.getId()).isPresent());
+        cachingService.createTransaction(transaction);
+        assertTrue(cachingService.getTransaction(transaction.getId()).isPresent());
+
+        cachingService.deleteTransaction(transaction.getId());
+        assertFalse(cachingService.getTransaction(transaction.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should not let callers mutate cached transactions")
+    void testCachedTransactionsAreSnapshots() {
+        TransactionService cachingService = new TransactionService(repository, cachingTransactionCache(), 64);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test deposit");
+        transaction.setCategory("Test");
+        Transaction saved = cachingService.createTransaction(transaction);
+
+        saved.setAmount(new BigDecimal("999.00"));
+        Transaction first = cachingService.getTransaction(saved.getId()).orElseThrow();
+        first.setDescription("Changed by caller");
+
+        Transaction second = cachingService.getTransaction(saved.getId()).orElseThrow();
+        assertEquals(new BigDecimal("100.00"), second.getAmount());
+        assertEquals("Test deposit", second.getDescription());
+    }
+
+    @Test
+    @DisplayName("Should create valid batch items and report invalid ones")
+    void testCreateTransactionsBatch() {
+        Transaction valid = new Transaction();
+        valid.setAmount(new BigDecimal("100.00"));
+        valid.setType(TransactionType.DEPOSIT);
+        valid.setDescription("Test deposit");
+        valid.setCategory("Test");
+        Transaction invalid = new Transaction();
+        invalid.setAmount(BigDecimal.ZERO);
+        invalid.setType(TransactionType.DEPOSIT);
+        invalid.setDescription("Test deposit");
+        invalid.setCategory("Test");
+
+        List<BatchItemResult> results = service.createTransactions(List.of(valid, invalid));
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).success());
+        assertTrue(service.getTransaction(valid.getId()).isPresent());
+        assertFalse(results.get(1).success());
+        assertEquals(TransactionErrorType.ZERO_AMOUNT, results.get(1).errorType());
+        assertFalse(service.getTransaction(invalid.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should update and delete existing batch items and report missing ones")
+    void testUpdateAndDeleteTransactionsBatch() {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test deposit");
+        transaction.setCategory("Test");
+        Transaction saved = service.createTransaction(transaction);
+
+        Transaction update = new Transaction();
+        update.setId(saved.getId());
+        update.setAmount(new BigDecimal("150.00"));
+        update.setType(TransactionType.DEPOSIT);
+        update.setDescription("Test deposit");
+        update.setCategory("Test");
+        Transaction missing = new Transaction();
+        missing.setAmount(new BigDecimal("150.00"));
+        missing.setType(TransactionType.DEPOSIT);
+        missing.setDescription("Test deposit");
+        missing.setCategory("Test");
+
+        List<BatchItemResult> updated = service.updateTransactions(List.of(update, missing));
+        assertTrue(updated.get(0).success());
+        assertEquals(new BigDecimal("150.00"), service.getTransaction(saved.getId()).orElseThrow().getAmount());
+        assertEquals(TransactionErrorType.TRANSACTION_NOT_FOUND, updated.get(1).errorType());
+
+        List<BatchItemResult> deleted = service.deleteTransactions(List.of(saved.getId(), missing.getId()));
+        assertTrue(deleted.get(0).success());
+        assertFalse(service.getTransaction(saved.getId()).isPresent());
+        assertEquals(TransactionErrorType.TRANSACTION_NOT_FOUND, deleted.get(1).errorType());
+    }
+
+    @Test
+    @DisplayName("Should apply conditional updates and deletes only at the expected version")
+    void testConditionalUpdateAndDelete() {
+        service = new TransactionService(repository, cachingTransactionCache(), 64);
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test deposit");
+        transaction.setCategory("Test");
+        Transaction saved = service.createTransaction(transaction);
+        assertEquals(1L, saved.getVersion());
+
+        Transaction update = new Transaction();
+        update.setAmount(new BigDecimal("150.00"));
+        update.setType(TransactionType.DEPOSIT);
+        update.setDescription("Test deposit");
+        update.setCategory("Test");
+        assertEquals(2L, service.updateTransaction(saved.getId(), update, 1L).getVersion());
+        assertEquals(2L, service.getTransaction(saved.getId()).orElseThrow().getVersion());
+
+        Transaction stale = new Transaction();
+        stale.setAmount(new BigDecimal("200.00"));
+        stale.setType(TransactionType.DEPOSIT);
+        stale.setDescription("Test deposit");
+        stale.setCategory("Test");
+        TransactionException conflict = assertThrows(TransactionException.class,
+                () -> service.updateTransaction(saved.getId(), stale, 1L));
+        assertEquals(TransactionErrorType.VERSION_CONFLICT, conflict.getErrorType());
+        assertEquals(new BigDecimal("150.00"), service.getTransaction(saved.getId()).orElseThrow().getAmount());
+        TransactionException missing = assertThrows(TransactionException.class,
+                () -> service.updateTransaction(UUID.randomUUID(), stale, 1L));
+        assertEquals(TransactionErrorType.TRANSACTION_NOT_FOUND, missing.getErrorType());
+
+        // Without an expected version, the version the body carries is expected, as in a batch update
+        Transaction outdated = TransactionFixtures.copy(stale);
+        outdated.setVersion(1L);
+        conflict = assertThrows(TransactionException.class, () -> service.updateTransaction(saved.getId(), outdated));
+        assertEquals(TransactionErrorType.VERSION_CONFLICT, conflict.getErrorType());
+
+        // An If-Match list applies at any of its versions
+        conflict = assertThrows(TransactionException.class,
+                () -> service.updateTransaction(saved.getId(), stale, new long[] {1, 3}));
+        assertEquals(TransactionErrorType.VERSION_CONFLICT, conflict.getErrorType());
+        assertEquals(3L, service.updateTransaction(saved.getId(), stale, new long[] {1, 2}).getVersion());
+        conflict = assertThrows(TransactionException.class,
+                () -> service.deleteTransaction(saved.getId(), new long[] {1, 2}));
+        assertEquals(TransactionErrorType.VERSION_CONFLICT, conflict.getErrorType());
+
+        conflict = assertThrows(TransactionException.class, () -> service.deleteTransaction(saved.getId(), 1L));
+        assertEquals(TransactionErrorType.VERSION_CONFLICT, conflict.getErrorType());
+        service.deleteTransaction(saved.getId(), 3L);
+        assertFalse(service.getTransaction(saved.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should only apply versioned batch updates at their version")
+    void testVersionedBatchUpdate() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAmount(new BigDecimal("100.00"));
+            transaction.setType(TransactionType.DEPOSIT);
+            transaction.setDescription("Test deposit");
+            transaction.setCategory("Test");
+            ids.add(service.createTransaction(transaction).getId());
+        }
+
+        List<Transaction> updates = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Transaction update = new Transaction();
+            update.setId(ids.get(i));
+            update.setAmount(new BigDecimal("150.00"));
+            update.setType(TransactionType.DEPOSIT);
+            update.setDescription("Test deposit");
+            update.setCategory("Test");
+            // The first is based on the current version, the second on one that never existed
+            update.setVersion(i == 0 ? 1L : 5L);
+            updates.add(update);
+        }
+
+        List<BatchItemResult> results = service.updateTransactions(updates);
+        assertTrue(results.get(0).success());
+        assertEquals(2L, results.get(0).transaction().getVersion());
+        assertEquals(TransactionErrorType.VERSION_CONFLICT, results.get(1).errorType());
+        assertEquals(1L, service.getTransaction(ids.get(1)).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Should reject repeated ids within one batch update or delete")
+    void testBatchRejectsRepeatedIds() {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Test deposit");
+        transaction.setCategory("Test");
+        UUID id = service.createTransaction(transaction).getId();
+
+        List<Transaction> updates = new ArrayList<>();
+        for (String amount : List.of("10.00", "20.00")) {
+            Transaction update = new Transaction();
+            update.setId(id);
+            update.setAmount(new BigDecimal(amount));
+            update.setType(TransactionType.DEPOSIT);
+            update.setDescription("Test deposit");
+            update.setCategory("Test");
+            update.setVersion(1L);
+            updates.add(update);
+        }
+
+        List<BatchItemResult> results = service.updateTransactions(updates);
+        assertTrue(results.get(0).success());
+        assertEquals(TransactionErrorType.INVALID_BATCH, results.get(1).errorType());
+        Transaction stored = service.getTransaction(id).orElseThrow();
+        assertEquals(0, new BigDecimal("10.00").compareTo(stored.getAmount()));
+        assertEquals(2L, stored.getVersion());
+
+        long before = service.latestChangeSequence();
+        results = service.deleteTransactions(List.of(id, id));
+        assertTrue(results.get(0).success());
+        assertEquals(TransactionErrorType.INVALID_BATCH, results.get(1).errorType());
+        assertEquals(before + 1, service.latestChangeSequence());
+    }
+
+    @Test
+    @DisplayName("Should return filtered pages that continue across offsets and cursors")
+    void testQueryTransactions() {
+        for (int i = 0; i < 30; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setDescription("Query test " + i);
+            transaction.setType(i % 3 == 0 ? TransactionType.WITHDRAWAL : TransactionType.DEPOSIT);
+            transaction.setCategory(i % 2 == 0 ? "Groceries" : "Rent");
+            transaction.setAmount(BigDecimal.valueOf(10 + i));
+            service.createTransaction(transaction);
+        }
+        // i % 6 == 0: i = 0, 6, 12, 18, 24 with amounts 10, 16, 22, 28, 34
+        TransactionQuery query = new TransactionQuery(TransactionType.WITHDRAWAL, "Groceries",
+                new BigDecimal("16"), new BigDecimal("28"), null, null);
+
+        List<Transaction> firstPage = service.queryTransactions(query, 0, 2);
+        List<Transaction> secondPage = service.queryTransactions(query, 1, 2);
+        List<Transaction> afterCursor = service.queryTransactionsAfter(query,
+                TransactionCursor.of(firstPage.get(1)).encode(), 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertEquals(secondPage.get(0).getId(), afterCursor.get(0).getId());
+        firstPage.forEach(t -> assertTrue(query.matches(t)));
+    }
+
+    @Test
+    @DisplayName("Should reject amount ranges whose minimum exceeds the maximum")
+    void testInvalidQueryAmountRange() {
+        TransactionQuery query = new TransactionQuery(null, null, new BigDecimal("10"), new BigDecimal("1"), null, null);
+        TransactionException exception = assertThrows(TransactionException.class,
+                () -> service.queryTransactions(query, 0, 10));
+        assertEquals(TransactionErrorType.INVALID_AMOUNT_RANGE, exception.getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should reject statistics time ranges that end before they start")
+    void testInvalidStatsTimeRange() {
+        Instant now = Instant.now();
+        TransactionException exception = assertThrows(TransactionException.class,
+                () -> service.getStats(StatsInterval.HOUR, null, null, now, now.minusSeconds(1)));
+        assertEquals(TransactionErrorType.INVALID_TIME_RANGE, exception.getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should reject export time ranges that end before they start")
+    void testInvalidExportTimeRange() {
+        Instant now = Instant.now();
+        TransactionException exception = assertThrows(
+            TransactionException.class,
+            () -> service.exportTransactions(now, now.minusSeconds(1))
+        );
+        assertEquals(TransactionErrorType.INVALID_TIME_RANGE, exception.getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should reject empty batches")
+    void testEmptyBatch() {
+        TransactionException exception = assertThrows(
+            TransactionException.class,
+            () -> service.createTransactions(List.of())
+        );
+        assertEquals(TransactionErrorType.INVALID_BATCH, exception.getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should return the original transaction when a create is repeated with its idempotency key")
+    void testIdempotentCreate() {
+        Transaction original = service.createTransaction(idempotentTransaction("Rent"), "key-1");
+        Transaction repeat = service.createTransaction(idempotentTransaction("Rent"), "key-1");
+        Transaction other = service.createTransaction(idempotentTransaction("Rent"), "key-2");
+
+        assertEquals(original.getId(), repeat.getId());
+        assertEquals(original.getTimestamp(), repeat.getTimestamp());
+        assertNotEquals(original.getId(), other.getId());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should reject an idempotency key reused for a different transaction or malformed")
+    void testIdempotencyKeyMisuse() {
+        service.createTransaction(idempotentTransaction("Rent"), "key-1");
+
+        TransactionException reused = assertThrows(TransactionException.class,
+                () -> service.createTransaction(idempotentTransaction("Groceries"), "key-1"));
+        assertEquals(TransactionErrorType.IDEMPOTENCY_KEY_REUSED, reused.getErrorType());
+        for (String key : List.of("", " ", "x".repeat(256), "caf\u00e9")) {
+            TransactionException malformed = assertThrows(TransactionException.class,
+                    () -> service.createTransaction(idempotentTransaction("Rent"), key));
+            assertEquals(TransactionErrorType.INVALID_IDEMPOTENCY_KEY, malformed.getErrorType());
+        }
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should release an idempotency key when its create fails and forget it after the window")
+    void testIdempotencyKeyReleaseAndExpiry() {
+        AtomicLong nanos = new AtomicLong();
+        service = new TransactionService(repository, TransactionCache.disabled(), TransactionMetrics.disabled(),
+                new IdempotencyStore(100, Duration.ofMinutes(10), nanos::get), 64, 100);
+        Transaction invalid = idempotentTransaction("Rent");
+        invalid.setAmount(BigDecimal.ZERO);
+        assertThrows(TransactionException.class, () -> service.createTransaction(invalid, "key-1"));
+
+        Transaction created = service.createTransaction(idempotentTransaction("Rent"), "key-1");
+        nanos.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertEquals(created.getId(), service.createTransaction(idempotentTransaction("Rent"), "key-1").getId());
+        nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+        Transaction afterExpiry = service.createTransaction(idempotentTransaction("Rent"), "key-1");
+
+        assertNotEquals(created.getId(), afterExpiry.getId());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid transactions with one shared stackless exception per error type")
+    void testRejectionsAreShared() {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(BigDecimal.ZERO);
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Zero");
+        transaction.setCategory("Test");
+
+        TransactionException first = assertThrows(TransactionException.class, () -> service.createTransaction(transaction));
+        TransactionException second = assertThrows(TransactionException.class, () -> service.createTransaction(transaction));
+        assertSame(first, second);
+        assertSame(TransactionException.of(TransactionErrorType.ZERO_AMOUNT), first);
+        assertEquals(0, first.getStackTrace().length);
+        assertThrows(IllegalStateException.class, () -> first.initCause(new RuntimeException()));
+    }
+
+    @Test
+    @DisplayName("Should time operations and lock use and count errors by type")
+    void testRecordsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new TransactionService(repository, TransactionCache.disabled(), new TransactionMetrics(registry), 1, 100);
+
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription("Metered deposit");
+        transaction.setCategory("Test");
+        UUID id = service.createTransaction(transaction).getId();
+        service.getTransaction(id);
+        service.getAllTransactions(0, 10);
+        assertThrows(TransactionException.class, () -> service.getAllTransactions(0, INVALID_PAGE_SIZE));
+        assertThrows(TransactionException.class, () -> service.deleteTransaction(UUID.randomUUID()));
+        service.deleteTransactions(List.of(id, UUID.randomUUID()));
+
+        assertEquals(1, registry.get(TransactionMetrics.OPERATION_TIMER).tag("operation", "create").timer().count());
+        assertEquals(1, registry.get(TransactionMetrics.OPERATION_TIMER).tag("operation", "get").timer().count());
+        assertEquals(2, registry.get(TransactionMetrics.OPERATION_TIMER).tag("operation", "list").timer().count());
+        assertEquals(1, registry.get(TransactionMetrics.OPERATION_TIMER).tag("operation", "delete_batch").timer().count());
+        // Create, the failed delete and the batch delete, whose ids share the single stripe
+        assertEquals(3, registry.get(TransactionMetrics.LOCK_WAIT_TIMER).timer().count());
+        assertEquals(3, registry.get(TransactionMetrics.LOCK_HOLD_TIMER).timer().count());
+        assertEquals(1, registry.get(TransactionMetrics.ERROR_COUNTER)
+                .tag("type", TransactionErrorType.INVALID_PAGINATION.name()).counter().count());
+        // The failed delete and the missing batch item
+        assertEquals(2, registry.get(TransactionMetrics.ERROR_COUNTER)
+                .tag("type", TransactionErrorType.TRANSACTION_NOT_FOUND.name()).counter().count());
+    }
+
+    @Test
+    @DisplayName("Should commit creates queued while the writer is busy as one batch")
+    void testAsyncCreatesCommittedInBatches() throws Exception {
+        GatedRepository gated = new GatedRepository();
+        service = new TransactionService(gated, cachingTransactionCache(), TransactionMetrics.disabled(),
+                new IdempotencyStore(100, Duration.ofMinutes(1)), new BatchingWriter(1_000, 512, Duration.ZERO),
+                64, 100);
+        assertTrue(service.writesAsynchronously());
+
+        CompletableFuture<Transaction> first = service.createTransactionAsync(asyncTransaction("First"));
+        assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+        List<CompletableFuture<Transaction>> queued = new ArrayList<>();
+        for (int i = 0; i < ASYNC_CREATES; i++) {
+            queued.add(service.createTransactionAsync(asyncTransaction("Queued " + i)));
+        }
+        assertFalse(first.isDone());
+        gated.release.countDown();
+
+        assertEquals(1L, first.get(10, TimeUnit.SECONDS).getVersion());
+        for (CompletableFuture<Transaction> created : queued) {
+            Transaction transaction = created.get(10, TimeUnit.SECONDS);
+            assertEquals(transaction.getDescription(),
+                    service.getTransaction(transaction.getId()).orElseThrow().getDescription());
+        }
+        assertEquals(List.of(1, ASYNC_CREATES), gated.batchSizes);
+        // The blocking create waits for its batch
+        assertNotNull(service.createTransaction(asyncTransaction("Blocking")).getId());
+        assertEquals(ASYNC_CREATES + 2, gated.count());
+        service.close();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid creates at once and creates beyond the queue capacity")
+    void testAsyncCreateBackpressure() throws Exception {
+        GatedRepository gated = new GatedRepository();
+        service = new TransactionService(gated, TransactionCache.disabled(), TransactionMetrics.disabled(),
+                new IdempotencyStore(100, Duration.ofMinutes(1)), new BatchingWriter(2, 512, Duration.ZERO), 64, 100);
+
+        Transaction invalid = asyncTransaction("Invalid");
+        invalid.setAmount(BigDecimal.ZERO);
+        TransactionException rejected = assertThrows(TransactionException.class, () -> service.createTransactionAsync(invalid));
+        assertEquals(TransactionErrorType.ZERO_AMOUNT, rejected.getErrorType());
+
+        CompletableFuture<Transaction> committing = service.createTransactionAsync(asyncTransaction("Committing"));
+        assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Transaction> second = service.createTransactionAsync(asyncTransaction("Queued 1"));
+        CompletableFuture<Transaction> third = service.createTransactionAsync(asyncTransaction("Queued 2"));
+        TransactionException full = assertThrows(TransactionException.class,
+                () -> service.createTransactionAsync(asyncTransaction("Overflow")));
+        assertEquals(TransactionErrorType.WRITE_QUEUE_FULL, full.getErrorType());
+
+        gated.release.countDown();
+        CompletableFuture.allOf(committing, second, third).get(10, TimeUnit.SECONDS);
+        assertEquals(3, gated.count());
+        service.close();
+    }
+
+    @Test
+    @DisplayName("Should fail only the bad item of a failed batch and commit everything queued before close")
+    void testAsyncFailureIsolationAndClose() throws Exception {
+        GatedRepository gated = new GatedRepository();
+        service = new TransactionService(gated, TransactionCache.disabled(), TransactionMetrics.disabled(),
+                new IdempotencyStore(100, Duration.ofMinutes(1)), new BatchingWriter(100, 512, Duration.ZERO), 64, 100);
+
+        CompletableFuture<Transaction> first = service.createTransactionAsync(asyncTransaction("First"));
+        assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Transaction> good = service.createTransactionAsync(asyncTransaction("Good"));
+        CompletableFuture<Transaction> bad = service.createTransactionAsync(asyncTransaction(GatedRepository.REJECTED));
+        CompletableFuture<Transaction> last = service.createTransactionAsync(asyncTransaction("Last"));
+        Thread closing = new Thread(() -> {
+            try {
+                service.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closing.start();
+        gated.release.countDown();
+        closing.join(10_000);
+
+        assertTrue(first.isDone() && good.isDone() && last.isDone() && bad.isDone());
+        ExecutionException failure = assertThrows(ExecutionException.class, bad::get);
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        assertEquals(3, gated.count());
+        assertThrows(IllegalStateException.class, () -> service.createTransactionAsync(asyncTransaction("Late")));
+    }
+
+    @Test
+    @DisplayName("Should fail every create of a batch that failed after storing part of it, without saving any twice")
+    void testAsyncPartialFailureNotRetried() throws Exception {
+        GatedRepository gated = new GatedRepository();
+        service = new TransactionService(gated, TransactionCache.disabled(), TransactionMetrics.disabled(),
+                new IdempotencyStore(100, Duration.ofMinutes(1)), new BatchingWriter(100, 512, Duration.ZERO), 64, 100);
+
+        CompletableFuture<Transaction> first = service.createTransactionAsync(asyncTransaction("First"));
+        assertTrue(gated.entered.await(10, TimeUnit.SECONDS));
+        List<CompletableFuture<Transaction>> batch = List.of(
+                service.createTransactionAsync(asyncTransaction("Stored")),
+                service.createTransactionAsync(asyncTransaction(GatedRepository.FAILING)),
+                service.createTransactionAsync(asyncTransaction("Last")));
+        gated.release.countDown();
+
+        first.get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<Transaction> created : batch) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> created.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(UncheckedIOException.class, failure.getCause());
+        }
+        assertEquals(List.of(1, 3), gated.batchSizes);
+        assertEquals(2, gated.count());
+        for (Transaction stored : gated.findAll(0, 10)) {
+            assertEquals(1L, stored.getVersion());
+        }
+        service.close();
+    }
+
+    @Test
+    @DisplayName("Should publish every create, update and delete in commit order")
+    void testChangeFeedOrder() throws Exception {
+        service = changeFeedService(ChangeFeed.DEFAULT_CAPACITY);
+        Transaction created = service.createTransaction(asyncTransaction("Created"));
+        service.updateTransaction(created.getId(), asyncTransaction("Updated"));
+        List<BatchItemResult> batch = service.createTransactions(
+                List.of(asyncTransaction("Batch 1"), asyncTransaction("Batch 2")));
+        service.deleteTransaction(created.getId());
+        service.deleteTransactions(List.of(batch.get(0).id(), UUID.randomUUID()));
+        assertEquals(6, service.latestChangeSequence());
+
+        List<TransactionChange> changes = service.getChanges(0, 100, Duration.ZERO).changes();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), changes.stream().map(TransactionChange::sequence).toList());
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.CREATED, ChangeType.CREATED,
+                ChangeType.DELETED, ChangeType.DELETED), changes.stream().map(TransactionChange::type).toList());
+        assertEquals("Updated", changes.get(1).transaction().description());
+        assertEquals(2L, changes.get(1).version());
+        assertEquals(created.getId(), changes.get(4).id());
+        assertEquals(2L, changes.get(4).version());
+        assertNull(changes.get(4).transaction());
+        assertEquals(batch.get(0).id(), changes.get(5).id());
+
+        // Resumes after the last change seen, a page at a time
+        List<TransactionChange> resumed = service.getChanges(2, 3, Duration.ZERO).changes();
+        assertEquals(List.of(3L, 4L, 5L), resumed.stream().map(TransactionChange::sequence).toList());
+        assertTrue(service.getChanges(6, 100, Duration.ZERO).changes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should number every write even without a change feed, and hold no changes")
+    void testChangeSequenceWithoutFeed() throws Exception {
+        Transaction created = service.createTransaction(asyncTransaction("Created"));
+        service.updateTransaction(created.getId(), asyncTransaction("Updated"));
+        service.createTransactions(List.of(asyncTransaction("Batch 1"), asyncTransaction("Batch 2")));
+        service.deleteTransaction(created.getId());
+        assertEquals(5, service.latestChangeSequence());
+        assertTrue(service.getChanges(0, 100, Duration.ZERO).resync());
+    }
+
+    @Test
+    @DisplayName("Should ask a change consumer to resync once the feed has moved past it or its position is unknown")
+    void testChangeFeedResync() throws Exception {
+        service = changeFeedService(4);
+        for (int i = 0; i < 6; i++) {
+            service.createTransaction(asyncTransaction("Change " + i));
+        }
+
+        ChangeFeed.Page kept = service.getChanges(2, 100, Duration.ZERO);
+        assertFalse(kept.resync());
+        assertEquals(4, kept.changes().size());
+        for (long after : new long[]{0, 1, 7, -1}) {
+            ChangeFeed.Page page = service.getChanges(after, 100, Duration.ZERO);
+            assertTrue(page.resync(), "Resync after " + after);
+            assertTrue(page.changes().isEmpty());
+            assertEquals(6, page.latestSequence());
+        }
+    }
+
+    @Test
+    @DisplayName("Should wake a waiting change consumer as soon as the next change is committed")
+    void testChangeFeedWait() throws Exception {
+        service = changeFeedService(16);
+        assertTrue(service.getChanges(0, 100, Duration.ofMillis(20)).changes().isEmpty());
+
+        CompletableFuture<ChangeFeed.Page> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.getChanges(0, 100, Duration.ofSeconds(30));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Transaction created = service.createTransaction(asyncTransaction("Awaited"));
+        ChangeFeed.Page page = waiting.get(10, TimeUnit.SECONDS);
+        assertEquals(created.getId(), page.changes().get(0).id());
+    }
+
+    @Test
+    @DisplayName("Should forget expired transactions in the cache and ask change consumers to resync")
+    void testExpireTransactions() throws Exception {
+        service = new TransactionService(repository, cachingTransactionCache(), TransactionMetrics.disabled(),
+                new IdempotencyStore(100, Duration.ofMinutes(1)), new ChangeFeed(16), (BatchingWriter) null, 64, 100);
+        Transaction old = asyncTransaction("Old");
+        old.setTimestamp(Instant.parse("2024-01-01T12:00:00Z"));
+        old = service.createTransaction(old);
+        Transaction recent = service.createTransaction(asyncTransaction("Recent"));
+        assertTrue(service.getTransaction(old.getId()).isPresent());
+
+        assertEquals(1, service.expireTransactions(Instant.parse("2024-01-03T00:00:00Z"), null));
+        assertFalse(service.getTransaction(old.getId()).isPresent());
+        assertTrue(service.getTransaction(recent.getId()).isPresent());
+        assertEquals(3, service.latestChangeSequence());
+        ChangeFeed.Page before = service.getChanges(0, 100, Duration.ZERO);
+        assertFalse(before.resync());
+        assertEquals(2, before.changes().size());
+        ChangeFeed.Page after = service.getChanges(2, 100, Duration.ZERO);
+        assertTrue(after.resync());
+        assertEquals(3, after.latestSequence());
+
+        // Nothing left to drop: no marker and no resync
+        assertEquals(0, service.expireTransactions(Instant.parse("2024-01-03T00:00:00Z"), null));
+        assertEquals(3, service.latestChangeSequence());
+    }
+
+    @Test
+    @DisplayName("Should not cache an expired transaction loaded before it was dropped")
+    void testExpireTransactionsRacingLoad() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        repository = new InMemoryTransactionRepository() {
+            @Override
+            public Optional<Transaction> findById(UUID id) {
+                Optional<Transaction> found = super.findById(id);
+                if (loaded.getCount() > 0) {
+                    loaded.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return found;
+            }
+        };
+        service = new TransactionService(repository, cachingTransactionCache(), 64);
+        Transaction old = asyncTransaction("Old");
+        old.setTimestamp(Instant.parse("2024-01-01T12:00:00Z"));
+        // Stored behind the cache so that the lookup below loads it
+        UUID id = repository.save(old).getId();
+
+        // Reads the transaction before the drop and caches it after the cache was cleared
+        CompletableFuture<Optional<Transaction>> racing = CompletableFuture.supplyAsync(() -> service.getTransaction(id));
+        assertTrue(loaded.await(10, TimeUnit.SECONDS));
+        assertEquals(1, service.expireTransactions(Instant.parse("2024-01-03T00:00:00Z"), null));
+        release.countDown();
+        racing.get(10, TimeUnit.SECONDS);
+
+        assertFalse(service.getTransaction(id).isPresent());
+    }
+
+    private static TransactionService changeFeedService(int capacity) {
+        return new TransactionService(new InMemoryTransactionRepository(), TransactionCache.disabled(),
+                TransactionMetrics.disabled(), new IdempotencyStore(100, Duration.ofMinutes(1)),
+                new ChangeFeed(capacity), (BatchingWriter) null, 64, 100);
+    }
+
+    private static Transaction asyncTransaction(String description) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("25.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription(description);
+        transaction.setCategory("Async");
+        return transaction;
+    }
+
+    // Holds the first batch until released, records batch sizes and rejects batches with a marked item
+    private static final class GatedRepository extends InMemoryTransactionRepository {
+        static final String REJECTED = "Rejected";
+        // Stores the items before it, then fails as a log write would
+        static final String FAILING = "Failing";
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<Transaction> saveAll(List<Transaction> transactions) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            batchSizes.add(transactions.size());
+            if (transactions.stream().anyMatch(transaction -> REJECTED.equals(transaction.getDescription()))) {
+                throw new IllegalArgumentException("Rejected by the test");
+            }
+            for (int i = 0; i < transactions.size(); i++) {
+                if (FAILING.equals(transactions.get(i).getDescription())) {
+                    super.saveAll(transactions.subList(0, i));
+                    throw new UncheckedIOException(new IOException("Failed by the test"));
+                }
+            }
+            return super.saveAll(transactions);
+        }
+    }
+
+    private static Transaction idempotentTransaction(String category) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.WITHDRAWAL);
+        transaction.setDescription("Retried payment");
+        transaction.setCategory(category);
+        return transaction;
+    }
+
+    private TransactionCache cachingTransactionCache() {
+        TransactionCacheProperties properties = new TransactionCacheProperties(
+                1_000, 0, Duration.ofMinutes(10), Duration.ofMinutes(10), true);
+        return new TransactionCache(new CaffeineCache(TransactionCache.CACHE_NAME,
+                new CacheConfig().caffeineConfig(properties).build()));
+    }
+}
\ No newline at end of file
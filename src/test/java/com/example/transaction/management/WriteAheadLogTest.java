@@ -0,0 +1,193 @@
+package com.example.transaction.management;
+
+import com.example.transaction.management.model.Transaction;
+import com.example.transaction.management.model.TransactionType;
+import com.example.transaction.management.persistence.TransactionCodec;
+import com.example.transaction.management.persistence.WriteAheadLog;
+import com.example.transaction.management.repository.InMemoryTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+    // Number of threads writing concurrently in the group commit test
+    private static final int THREAD_COUNT = 8;
+
+    // Number of transactions saved per thread in the group commit test
+    private static final int TRANSACTIONS_PER_THREAD = 250;
+
+    // Small buffer so that the group commit test exercises backpressure
+    private static final int BUFFER_BYTES = 4 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should restore saves, updates and deletes after a restart")
+    void testRecoverRepositoryState() throws IOException {
+        WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.INTERVAL);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+
+        Transaction kept = repository.save(createTransaction("Kept"));
+        Transaction updated = repository.save(createTransaction("Before update"));
+        Transaction deleted = repository.save(createTransaction("Deleted"));
+        Transaction update = createTransaction("After update");
+        update.setId(updated.getId());
+        update.setAmount(new BigDecimal("12.345"));
+        assertTrue(repository.saveIfVersion(update, 1));
+        repository.deleteById(deleted.getId());
+        wal.close();
+
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(open(WriteAheadLog.FsyncPolicy.INTERVAL));
+        assertEquals("Kept", recovered.findById(kept.getId()).orElseThrow().getDescription());
+        Transaction restored = recovered.findById(updated.getId()).orElseThrow();
+        assertEquals("After update", restored.getDescription());
+        assertEquals(new BigDecimal("12.345"), restored.getAmount());
+        assertEquals(TransactionType.DEPOSIT, restored.getType());
+        assertEquals(update.getTimestamp(), restored.getTimestamp());
+        assertEquals(2L, restored.getVersion());
+        assertEquals(1L, recovered.findById(kept.getId()).orElseThrow().getVersion());
+        assertFalse(recovered.findById(deleted.getId()).isPresent());
+        assertEquals(2, recovered.findAll(0, 10).size());
+    }
+
+    @Test
+    @DisplayName("Should read records logged without a version as version 1")
+    void testDecodeRecordWithoutVersion() {
+        Transaction transaction = createTransaction("Versioned");
+        transaction.setVersion(7L);
+        byte[] record = TransactionCodec.encode(transaction);
+
+        assertEquals(7L, TransactionCodec.decode(ByteBuffer.wrap(record)).getVersion());
+        Transaction legacy = TransactionCodec.decode(ByteBuffer.wrap(record, 0, record.length - Long.BYTES));
+        assertEquals(1L, legacy.getVersion());
+        assertEquals("Versioned", legacy.getDescription());
+    }
+
+    @Test
+    @DisplayName("Should drop a torn tail and keep appending after it")
+    void testRecoverTornTail() throws IOException {
+        // First segment of a fresh log
+        Path file = directory.resolve("wal-00000000000000000000.log");
+        WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.NEVER);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+        Transaction first = repository.save(createTransaction("First"));
+        wal.close();
+
+        long intact = Files.size(file);
+        // Simulate a crash in the middle of writing the next record
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        wal = open(WriteAheadLog.FsyncPolicy.NEVER);
+        repository = new InMemoryTransactionRepository(wal);
+        assertEquals(intact, Files.size(file));
+        Transaction second = repository.save(createTransaction("Second"));
+        wal.close();
+
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(open(WriteAheadLog.FsyncPolicy.NEVER));
+        assertTrue(recovered.findById(first.getId()).isPresent());
+        assertTrue(recovered.findById(second.getId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should make every acknowledged write durable under concurrent group commit")
+    void testConcurrentWritesWithFsync() throws Exception {
+        WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.ALWAYS);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+        List<UUID> ids = new ArrayList<>();
+        List<Exception> exceptions = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            executor.submit(() -> {
+                try {
+                    for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+                        Transaction saved = repository.save(createTransaction("Concurrent " + j));
+                        synchronized (ids) {
+                            ids.add(saved.getId());
+                        }
+                    }
+                } catch (Exception e) {
+                    synchronized (exceptions) {
+                        exceptions.add(e);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        wal.close();
+
+        if (!exceptions.isEmpty()) {
+            throw new RuntimeException("Test failed with exceptions: " + exceptions);
+        }
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(open(WriteAheadLog.FsyncPolicy.ALWAYS));
+        for (UUID id : ids) {
+            assertTrue(recovered.findById(id).isPresent(), "Lost acknowledged write " + id);
+        }
+    }
+
+    @Test
+    @DisplayName("Should log records larger than the buffer in order with the records around them")
+    void testOversizedRecords() throws Exception {
+        WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.INTERVAL);
+        InMemoryTransactionRepository repository = new InMemoryTransactionRepository(wal);
+        String large = "Large ".repeat(BUFFER_BYTES / 3);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        List<Future<Transaction>> saves = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT * 10; i++) {
+            String description = i % 4 == 0 ? large + i : "Small " + i;
+            saves.add(executor.submit(() -> repository.save(createTransaction(description))));
+        }
+        List<Transaction> saved = new ArrayList<>();
+        for (Future<Transaction> save : saves) {
+            saved.add(save.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        // Updated right after the oversized record it replaces
+        Transaction update = createTransaction("Small update");
+        update.setId(saved.get(0).getId());
+        assertTrue(repository.saveIfVersion(update, 1));
+        wal.close();
+
+        InMemoryTransactionRepository recovered = new InMemoryTransactionRepository(open(WriteAheadLog.FsyncPolicy.INTERVAL));
+        assertEquals("Small update", recovered.findById(saved.get(0).getId()).orElseThrow().getDescription());
+        for (Transaction transaction : saved.subList(1, saved.size())) {
+            assertEquals(transaction.getDescription(),
+                    recovered.findById(transaction.getId()).orElseThrow().getDescription());
+        }
+    }
+
+    private WriteAheadLog open(WriteAheadLog.FsyncPolicy policy) throws IOException {
+        return new WriteAheadLog(directory, policy, Duration.ofMillis(10), BUFFER_BYTES);
+    }
+
+    private Transaction createTransaction(String description) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setDescription(description);
+        transaction.setCategory("Test");
+        return transaction;
+    }
+}